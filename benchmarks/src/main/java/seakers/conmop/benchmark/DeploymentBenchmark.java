@@ -0,0 +1,65 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import seakers.conmop.deployment.ConstellationDeployment;
+import seakers.conmop.deployment.DeploymentPlanner;
+import seakers.conmop.deployment.DeploymentStrategy;
+import seakers.conmop.variable.SatelliteVariable;
+
+/**
+ * Benchmarks the deployment routines on a 20 satellite constellation with the
+ * deployment properties used in Search. The deployment strategy is computed
+ * by the same planner that ConstellationOptimizer delegates to.
+ *
+ * @author nhitomi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DeploymentBenchmark {
+
+    private List<SatelliteVariable> satellites;
+
+    private DeploymentPlanner planner;
+
+    private double dvLimit;
+
+    @Setup
+    public void setup() {
+        satellites = new ArrayList<>(Fixtures.constellation(Fixtures.SEED).getSatelliteVariables());
+        double raanTimeLimit = Double.parseDouble(Fixtures.properties().getProperty("raanTimeLimit"));
+        dvLimit = Double.parseDouble(Fixtures.properties().getProperty("dvLimit"));
+        planner = new DeploymentPlanner(raanTimeLimit, dvLimit, 0.0);
+    }
+
+    @Benchmark
+    public List<SatelliteVariable> deltaVCompatible() {
+        return ConstellationDeployment.deltaVCompatible(satellites, dvLimit);
+    }
+
+    @Benchmark
+    public DeploymentStrategy deploymentStrategy() {
+        return planner.plan(satellites);
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.moeaframework.core.Solution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.orekit.errors.OrekitException;
+import seakers.conmop.ConstellationOptimizer;
+
+/**
+ * Benchmarks the full evaluation of a 20 satellite constellation in the
+ * problem set up in Search. Each invocation evaluates a fresh copy of the same
+ * solution so that the evaluation cache, if enabled, is not measured.
+ *
+ * @author nhitomi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 30)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    private ConstellationOptimizer problem;
+
+    private Solution solution;
+
+    private Solution toEvaluate;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws OrekitException {
+        problem = Fixtures.problem(Fixtures.properties());
+        solution = Fixtures.solution(Fixtures.constellation(Fixtures.SEED));
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        toEvaluate = solution.copy();
+    }
+
+    @Benchmark
+    public Solution evaluate() {
+        problem.evaluate(toEvaluate);
+        return toEvaluate;
+    }
+
+}
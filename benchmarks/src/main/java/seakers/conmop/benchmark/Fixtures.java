@@ -0,0 +1,191 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import org.hipparchus.util.FastMath;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.orekit.bodies.BodyShape;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.bodies.OneAxisEllipsoid;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScale;
+import org.orekit.time.TimeScalesFactory;
+import org.orekit.utils.Constants;
+import org.orekit.utils.IERSConventions;
+import seakers.conmop.ConstellationOptimizer;
+import seakers.conmop.util.Bounds;
+import seakers.conmop.variable.ConstellationVariable;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.object.CommunicationBand;
+import seakers.orekit.object.CoverageDefinition;
+import seakers.orekit.object.CoveragePoint;
+import seakers.orekit.object.GndStation;
+import seakers.orekit.object.communications.ReceiverAntenna;
+import seakers.orekit.object.communications.TransmitterAntenna;
+import seakers.orekit.propagation.PropagatorFactory;
+import seakers.orekit.propagation.PropagatorType;
+import seakers.orekit.util.OrekitConfig;
+
+/**
+ * The problem and constellations shared by the benchmarks. The problem is the
+ * one set up in Search: a 7 day scenario, a 20 degree equal-area grid between
+ * 30S and 30N, and the Wallops and Morehead ground stations. Constellations
+ * are drawn from a fixed seed so that every benchmark run measures the same
+ * inputs.
+ *
+ * @author nhitomi
+ */
+public class Fixtures {
+
+    private static final double DEG_TO_RAD = Math.PI / 180.;
+
+    /**
+     * The seed used to draw the constellations
+     */
+    public static final long SEED = 4;
+
+    /**
+     * The number of satellites in the benchmarked constellations
+     */
+    public static final int N_SATELLITES = 20;
+
+    /**
+     * The bounds on the number of satellites
+     */
+    public static final Bounds<Integer> T_BOUNDS = new Bounds<>(1, 20);
+
+    /**
+     * The bounds on the semi-major axis [m]
+     */
+    public static final Bounds<Double> SMA_BOUNDS = new Bounds<>(
+            Constants.WGS84_EARTH_EQUATORIAL_RADIUS + 400000,
+            Constants.WGS84_EARTH_EQUATORIAL_RADIUS + 1000000);
+
+    /**
+     * The bounds on the inclination [rad]
+     */
+    public static final Bounds<Double> INC_BOUNDS = new Bounds<>(30. * DEG_TO_RAD, 100. * DEG_TO_RAD);
+
+    private static boolean initialized = false;
+
+    /**
+     * Loads the orekit data. The benchmarks must be run from the conMOP root
+     * directory so that the data in resources/ is found.
+     */
+    public static synchronized void init() {
+        if (!initialized) {
+            Locale.setDefault(new Locale("en", "US"));
+            OrekitConfig.init(1);
+            initialized = true;
+        }
+    }
+
+    /**
+     * Creates the problem set up in Search
+     *
+     * @param properties the properties of the problem
+     * @return the problem
+     * @throws OrekitException
+     */
+    public static ConstellationOptimizer problem(Properties properties) throws OrekitException {
+        init();
+        TimeScale utc = TimeScalesFactory.getUTC();
+        AbsoluteDate startDate = new AbsoluteDate(2016, 1, 1, 00, 00, 00.000, utc);
+        AbsoluteDate endDate = new AbsoluteDate(2016, 1, 8, 00, 00, 00.000, utc);
+
+        PropagatorFactory pf = new PropagatorFactory(PropagatorType.J2);
+
+        Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
+        BodyShape earthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
+                Constants.WGS84_EARTH_FLATTENING, earthFrame);
+        CoverageDefinition cdef = new CoverageDefinition("cdef", 20.0, -30, 30, -180, 180, earthShape, CoverageDefinition.GridStyle.EQUAL_AREA);
+        Set<GeodeticPoint> points = new HashSet<>();
+        for (CoveragePoint pt : cdef.getPoints()) {
+            points.add(pt.getPoint());
+        }
+
+        return new ConstellationOptimizer("", startDate, endDate, pf,
+                points, FastMath.toRadians(51.),
+                T_BOUNDS, SMA_BOUNDS, INC_BOUNDS, groundStations(earthShape), properties);
+    }
+
+    /**
+     * Creates the properties used in Search
+     *
+     * @return the properties used in Search
+     */
+    public static Properties properties() {
+        Properties properties = new Properties();
+        properties.setProperty("raanTimeLimit", "604800");
+        properties.setProperty("dvLimit", "600");
+        return properties;
+    }
+
+    /**
+     * Creates the Wallops and Morehead ground stations
+     *
+     * @param earthShape the shape of the Earth
+     * @return the ground stations
+     * @throws OrekitException
+     */
+    public static ArrayList<GndStation> groundStations(BodyShape earthShape) throws OrekitException {
+        ArrayList<GndStation> gndStations = new ArrayList<>();
+        TopocentricFrame wallopsTopo = new TopocentricFrame(earthShape, new GeodeticPoint(FastMath.toRadians(37.94019444), FastMath.toRadians(-75.46638889), 0.), "Wallops");
+        HashSet<CommunicationBand> wallopsBands = new HashSet<>();
+        wallopsBands.add(CommunicationBand.UHF);
+        gndStations.add(new GndStation(wallopsTopo, new ReceiverAntenna(6., wallopsBands), new TransmitterAntenna(6., wallopsBands), FastMath.toRadians(10.)));
+        TopocentricFrame moreheadTopo = new TopocentricFrame(earthShape, new GeodeticPoint(FastMath.toRadians(38.19188139), FastMath.toRadians(-83.43861111), 0.), "Morehead");
+        HashSet<CommunicationBand> moreheadBands = new HashSet<>();
+        moreheadBands.add(CommunicationBand.UHF);
+        gndStations.add(new GndStation(moreheadTopo, new ReceiverAntenna(47., moreheadBands), new TransmitterAntenna(47., moreheadBands), FastMath.toRadians(6.)));
+        return gndStations;
+    }
+
+    /**
+     * Creates a constellation of N_SATELLITES satellites with random orbital
+     * elements within the bounds of the problem set up in Search
+     *
+     * @param seed the seed used to draw the orbital elements
+     * @return a constellation of N_SATELLITES satellites
+     */
+    public static ConstellationVariable constellation(long seed) {
+        PRNG.setSeed(seed);
+        ConstellationVariable constel = new ConstellationVariable(T_BOUNDS,
+                SMA_BOUNDS, new Bounds<>(0.0, 0.0), INC_BOUNDS,
+                new Bounds<>(0.0, 0.0), new Bounds<>(0.0, 2 * Math.PI), new Bounds<>(0.0, 2 * Math.PI));
+        ArrayList<SatelliteVariable> satellites = new ArrayList<>(N_SATELLITES);
+        for (int i = 0; i < N_SATELLITES; i++) {
+            SatelliteVariable sat = constel.createSatelliteVariable();
+            sat.randomize();
+            satellites.add(sat);
+        }
+        constel.setSatelliteVariables(satellites);
+        return constel;
+    }
+
+    /**
+     * Creates a solution with one constellation variable and three objectives
+     *
+     * @param constel the constellation
+     * @return a solution containing the constellation
+     */
+    public static Solution solution(ConstellationVariable constel) {
+        Solution solution = new Solution(1, 3);
+        solution.setVariable(0, constel);
+        return solution;
+    }
+
+}
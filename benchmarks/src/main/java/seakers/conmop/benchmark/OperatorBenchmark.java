@@ -0,0 +1,79 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.operator.CompoundVariation;
+import org.moeaframework.core.operator.real.SBX;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import seakers.conmop.operators.ArrayOrbitElementOperator;
+import seakers.conmop.operators.OrbitElementOperator;
+import seakers.conmop.operators.VariableLengthOnePointCrossover;
+import seakers.conmop.operators.VariablePM;
+
+/**
+ * Benchmarks the variation operators used in Search on two 20 satellite
+ * constellations. The parents are not modified by the operators, so the same
+ * parents are used in every invocation.
+ *
+ * @author nhitomi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OperatorBenchmark {
+
+    private Solution[] parents;
+
+    private Variation orbitElementOperator;
+
+    private Variation arrayOrbitElementOperator;
+
+    private Variation onePointCrossover;
+
+    @Setup
+    public void setup() {
+        parents = new Solution[]{
+            Fixtures.solution(Fixtures.constellation(Fixtures.SEED)),
+            Fixtures.solution(Fixtures.constellation(Fixtures.SEED + 1))};
+        orbitElementOperator = new OrbitElementOperator(
+                new CompoundVariation(new SBX(1, 20), new VariablePM(20)));
+        arrayOrbitElementOperator = new ArrayOrbitElementOperator(1, 20, 20);
+        onePointCrossover = new VariableLengthOnePointCrossover(1.0, Fixtures.T_BOUNDS);
+        PRNG.setSeed(Fixtures.SEED);
+    }
+
+    @Benchmark
+    public Solution[] orbitElementOperator() {
+        return orbitElementOperator.evolve(parents);
+    }
+
+    @Benchmark
+    public Solution[] arrayOrbitElementOperator() {
+        return arrayOrbitElementOperator.evolve(parents);
+    }
+
+    @Benchmark
+    public Solution[] variableLengthOnePointCrossover() {
+        return onePointCrossover.evolve(parents);
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import seakers.conmop.util.Bounds;
+import seakers.conmop.variable.WalkerVariable;
+
+/**
+ * Benchmarks building the satellites of a Walker constellation
+ *
+ * @author nhitomi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WalkerBenchmark {
+
+    /**
+     * The t/p/f of the Walker constellation
+     */
+    @Param({"20/4/1", "20/20/3"})
+    public String tpf;
+
+    private WalkerVariable walker;
+
+    private int t;
+
+    private int p;
+
+    private int f;
+
+    private double sma;
+
+    private double inc;
+
+    @Setup
+    public void setup() {
+        String[] args = tpf.split("/");
+        t = Integer.parseInt(args[0]);
+        p = Integer.parseInt(args[1]);
+        f = Integer.parseInt(args[2]);
+        walker = new WalkerVariable(Fixtures.SMA_BOUNDS, Fixtures.INC_BOUNDS,
+                Fixtures.T_BOUNDS, new Bounds<>(1, 20), new Bounds<>(0, 19));
+        sma = Fixtures.SMA_BOUNDS.getLowerBound();
+        inc = Fixtures.INC_BOUNDS.getUpperBound();
+    }
+
+    @Benchmark
+    public WalkerVariable setWalker() {
+        walker.setWalker(sma, inc, t, p, f);
+        return walker;
+    }
+
+}
@@ -6,10 +6,10 @@ path = '/Users/nozomihitomi/Dropbox/conMOP/results/';
 method1 = 'static_retest/';
 method2 = 'variable_retest/';
 
-files1 = dir(strcat(path,method1,'*all.obj'));
+files1 = dir(strcat(path,method1,'*all.sol'));
 ind1 = randi(length(files1),n_representatives);
 
-files2 = dir(strcat(path,method2,'*all.obj'));
+files2 = dir(strcat(path,method2,'*all.sol'));
 ind2 = randi(length(files2),n_representatives);
 
 %load refPop to show Pareto front
@@ -30,8 +30,10 @@ markers = {'o','+','s','>'};
 figure(1)
 for i=1:n_representatives
     subplot(1,n_representatives,i);
-    pop1 = dlmread(strcat(path,method1,files1(ind1(i)).name));
-    pop2 = dlmread(strcat(path,method2,files2(ind2(i)).name));
+    sol1 = readSolutionFile(strcat(path,method1,files1(ind1(i)).name));
+    sol2 = readSolutionFile(strcat(path,method2,files2(ind2(i)).name));
+    pop1 = sol1.objectives;
+    pop2 = sol2.objectives;
     scatter3(pop1(:,1)/60,pop1(:,2),pop1(:,3)/1000,20,colors{1}, markers{1})
     hold on
     scatter3(pop2(:,1)/60,pop2(:,2),pop2(:,3)/1000,20,colors{2}, markers{2})
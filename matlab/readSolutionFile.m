@@ -0,0 +1,66 @@
+function sol = readSolutionFile(filename)
+%Reads a solution file (*.sol) written by seakers.conmop.io.SolutionFileWriter.
+%The file is memory-mapped so only the bytes that are read are loaded. The
+%returned struct has the fields
+%   objectives  : nSolutions x nObjectives matrix
+%   constraints : nSolutions x nConstraints matrix
+%   nfe         : nSolutions x 1 vector of the NFE each solution was created at (-1 if unknown)
+%   nsats       : nSolutions x 1 vector of the number of manifested satellites
+%   oe          : nSolutions x 1 cell of nsats x 6 matrices with the columns
+%                 [sma ecc inc raan argper ta] (sma in m, angles in rad)
+%The numbers in the file are little-endian like the hosts MATLAB runs on
+
+m = memmapfile(filename, 'Format', 'uint8');
+data = m.Data;
+
+if length(data) < 32 || ~strcmp(char(data(1:4)'), 'CMOP')
+    error('%s is not a solution file', filename);
+end
+version = typecast(data(5:8), 'int32');
+if version ~= 1
+    error('Unsupported version %d of solution file %s', version, filename);
+end
+nObj = double(typecast(data(9:12), 'int32'));
+nCons = double(typecast(data(13:16), 'int32'));
+nSolutions = double(typecast(data(17:24), 'int64'));
+indexOffset = double(typecast(data(25:32), 'int64'));
+
+if indexOffset > 0
+    offsets = double(typecast(data(indexOffset + 1:indexOffset + 8 * nSolutions), 'int64'));
+else
+    %the writer was not closed so walk the complete records
+    offsets = zeros(1024, 1);
+    nSolutions = 0;
+    position = 32;
+    while position + 8 <= length(data)
+        n = double(typecast(data(position + 1:position + 4), 'int32'));
+        recordSize = 8 + 8 * (nObj + nCons + 6 * n);
+        if position + recordSize > length(data)
+            break
+        end
+        nSolutions = nSolutions + 1;
+        offsets(nSolutions) = position;
+        position = position + recordSize;
+    end
+    offsets = offsets(1:nSolutions);
+end
+
+sol.objectives = zeros(nSolutions, nObj);
+sol.constraints = zeros(nSolutions, nCons);
+sol.nfe = zeros(nSolutions, 1);
+sol.nsats = zeros(nSolutions, 1);
+sol.oe = cell(nSolutions, 1);
+for i = 1:nSolutions
+    p = offsets(i);
+    n = double(typecast(data(p + 1:p + 4), 'int32'));
+    sol.nsats(i) = n;
+    sol.nfe(i) = double(typecast(data(p + 5:p + 8), 'int32'));
+    p = p + 8;
+    values = typecast(data(p + 1:p + 8 * (nObj + nCons + 6 * n)), 'double');
+    sol.objectives(i, :) = values(1:nObj);
+    sol.constraints(i, :) = values(nObj + 1:nObj + nCons);
+    sol.oe{i} = reshape(values(nObj + nCons + 1:end), n, 6);
+end
+
+clear m
+end
@@ -6,56 +6,73 @@
 package seakers.conmop;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.hipparchus.stat.descriptive.DescriptiveStatistics;
 import org.hipparchus.util.FastMath;
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
 import org.moeaframework.core.Solution;
+import org.moeaframework.core.comparator.EpsilonBoxDominanceComparator;
 import org.moeaframework.problem.AbstractProblem;
-import org.moeaframework.util.Vector;
 import org.orekit.bodies.BodyShape;
 import org.orekit.bodies.GeodeticPoint;
 import org.orekit.bodies.OneAxisEllipsoid;
 import org.orekit.errors.OrekitException;
 import org.orekit.frames.Frame;
 import org.orekit.frames.FramesFactory;
+import org.orekit.frames.TopocentricFrame;
 import org.orekit.orbits.Orbit;
 import org.orekit.time.AbsoluteDate;
 import org.orekit.time.TimeScale;
 import org.orekit.time.TimeScalesFactory;
 import org.orekit.utils.Constants;
 import org.orekit.utils.IERSConventions;
-import seakers.conmop.deployment.ConstellationDeployment;
+import seakers.conmop.coverage.AccessCalculator;
+import seakers.conmop.coverage.AccessMerger;
+import seakers.conmop.coverage.FastCoverageAccessCalculator;
+import seakers.conmop.coverage.J2AccessCalculator;
+import seakers.conmop.deployment.DeploymentPlanner;
 import seakers.conmop.deployment.DeploymentStrategy;
-import seakers.conmop.deployment.Installment;
-import seakers.conmop.launch.DeltaV;
+import seakers.conmop.evaluation.AnalysisProduct;
+import seakers.conmop.evaluation.ConstellationFingerprint;
+import seakers.conmop.evaluation.ConstellationMetric;
+import seakers.conmop.evaluation.EvaluationCache;
+import seakers.conmop.evaluation.EvaluationMetrics;
+import seakers.conmop.evaluation.EvaluationPhase;
+import seakers.conmop.evaluation.EvaluationProducts;
+import seakers.conmop.evaluation.MetricConstraint;
+import seakers.conmop.evaluation.MetricRegistry;
+import seakers.conmop.evaluation.SatelliteAccessCache;
+import seakers.conmop.parallel.ScenarioRunner;
 import seakers.conmop.util.Bounds;
 import seakers.conmop.variable.BooleanSatelliteVariable;
 import seakers.conmop.variable.ConstellationVariable;
+import seakers.conmop.variable.PackedConstellationVariable;
 import seakers.conmop.variable.SatelliteVariable;
-import seakers.orekit.coverage.analysis.AnalysisMetric;
+import seakers.orekit.coverage.access.TimeIntervalArray;
 import seakers.orekit.coverage.analysis.FastCoverageAnalysis;
-import seakers.orekit.coverage.analysis.GroundEventAnalyzer;
 import seakers.orekit.event.EventAnalysis;
 import seakers.orekit.event.GndStationEventAnalysis;
 import seakers.orekit.object.CommunicationBand;
 import seakers.orekit.object.Constellation;
 import seakers.orekit.object.CoverageDefinition;
+import seakers.orekit.object.CoveragePoint;
 import seakers.orekit.object.GndStation;
+import seakers.orekit.object.Instrument;
 import seakers.orekit.object.Satellite;
 import seakers.orekit.object.communications.ReceiverAntenna;
 import seakers.orekit.object.communications.TransmitterAntenna;
 import seakers.orekit.propagation.PropagatorFactory;
 import seakers.orekit.scenario.Scenario;
-import seakers.orekit.util.Orbits;
 
 /**
  * Problem to optimize the number of satellites in a constellation and their
@@ -65,6 +82,21 @@ import seakers.orekit.util.Orbits;
  */
 public class ConstellationOptimizer extends AbstractProblem {
 
+    /**
+     * The attribute set on solutions that were not fully evaluated because
+     * their screening estimate could not enter the archive. When screening is
+     * enabled, the problem has one more constraint after those of the metric
+     * registry, which screened solutions violate. Fully evaluated solutions
+     * therefore always dominate screened solutions, so screened solutions
+     * never displace fully evaluated solutions from the population or the
+     * archive. The objectives of a screened solution are the estimates at the
+     * screening fidelity and are not comparable to those of fully evaluated
+     * solutions. Analyses of the solutions recorded by a run should drop the
+     * solutions that have this attribute or that violate the screening
+     * constraint, which is also kept in solution files.
+     */
+    public static final String SCREENED = "screened";
+
     private final Properties properties;
 
     /**
@@ -163,11 +195,131 @@ public class ConstellationOptimizer extends AbstractProblem {
      */
     private final double launchLatitude;
 
+    /**
+     * Finds the deployment strategy of each constellation
+     */
+    private final DeploymentPlanner deploymentPlanner;
+
+    /**
+     * The objectives in the order they are stored in a solution
+     */
+    private final List<ConstellationMetric> objectives;
+
+    /**
+     * The constraints in the order they are stored in a solution
+     */
+    private final List<MetricConstraint> constraints;
+
+    /**
+     * The analysis products needed by the objectives and constraints
+     */
+    private final Set<AnalysisProduct> products;
+
+    /**
+     * True if new solutions store their satellites in a
+     * PackedConstellationVariable
+     */
+    private final boolean packedConstellation;
+
     /**
      * The ground stations for downlink
      */
     private final Collection<GndStation> gndStations;
 
+    /**
+     * The ground stations assigned to every satellite. Shared by all
+     * evaluations. Null if there are no ground stations
+     */
+    private final Set<GndStation> stationAssignment;
+
+    /**
+     * The points of interest as coverage points. The topocentric frames are
+     * built once and shared by all evaluations. Null if there are no points
+     * of interest
+     */
+    private final Set<CoveragePoint> coveragePoints;
+
+    /**
+     * The receiver of every satellite. Shared by all evaluations
+     */
+    private final ReceiverAntenna satelliteReceiver;
+
+    /**
+     * The transmitter of every satellite. Shared by all evaluations
+     */
+    private final TransmitterAntenna satelliteTransmitter;
+
+    /**
+     * Cache of previously computed objectives. Null if caching is disabled
+     */
+    private final EvaluationCache cache;
+
+    /**
+     * The tolerance [m] on the semi-major axis used to fingerprint
+     * constellations for the cache
+     */
+    private final double cacheSmaTolerance;
+
+    /**
+     * The tolerance on the eccentricity used to fingerprint constellations for
+     * the cache
+     */
+    private final double cacheEccTolerance;
+
+    /**
+     * The tolerance [rad] on the angular orbital elements used to fingerprint
+     * constellations for the cache
+     */
+    private final double cacheAngleTolerance;
+
+    /**
+     * Calculator for the accesses of individual satellites. Null if the
+     * coverage is computed with a full scenario
+     */
+    private final AccessCalculator accessCalculator;
+
+    /**
+     * Cache of the accesses of previously simulated satellites. Null if
+     * satellite caching is disabled
+     */
+    private final SatelliteAccessCache satelliteCache;
+
+    /**
+     * Calculator for the accesses at the screening fidelity. Null if
+     * screening is disabled
+     */
+    private final AccessCalculator screeningCalculator;
+
+    /**
+     * Cache of the accesses of previously screened satellites. Null if
+     * screening or satellite caching is disabled
+     */
+    private final SatelliteAccessCache screeningCache;
+
+    /**
+     * The fraction by which the screened coverage objective is reduced before
+     * it is compared against the archive, to allow for the error of the
+     * screening fidelity
+     */
+    private final double screeningMargin;
+
+    /**
+     * The archive that screened solutions must be able to enter to receive a
+     * full evaluation. Null if no archive has been assigned
+     */
+    private volatile EpsilonBoxDominanceArchive screeningArchive;
+
+    /**
+     * The number of solutions that were not fully evaluated because they
+     * could not enter the archive
+     */
+    private final AtomicLong screenedCount;
+
+    /**
+     * The latency and allocation metrics of each phase of the evaluations
+     */
+    private final EvaluationMetrics metrics;
+
     /**
      * a dummy constructor for analyzing hypervolumes after the optimization
      */
@@ -206,7 +358,9 @@ public class ConstellationOptimizer extends AbstractProblem {
             Bounds<Double> sma, Bounds<Double> ecc, Bounds<Double> inc,
             Bounds<Double> raan, Bounds<Double> ap, Bounds<Double> ta,
             Collection<GndStation> gndStations, Properties properties) {
-        super(1, 3);
+        super(1, MetricRegistry.objectives(properties).size(),
+                MetricRegistry.constraints(properties).size()
+                + (Boolean.parseBoolean(properties.getProperty("screening", "false")) ? 1 : 0));
 
         try {
             this.startDate = startDate;
@@ -229,6 +383,24 @@ public class ConstellationOptimizer extends AbstractProblem {
             this.raanTimeLimit = Double.parseDouble(properties.getProperty("raanTimeLimit", "604800"));
             this.tugDvLimit = Double.parseDouble(properties.getProperty("dvLimit", "2200"));
             this.launchLatitude = Double.parseDouble(properties.getProperty("launchLatitude", "0"));
+            this.deploymentPlanner = new DeploymentPlanner(raanTimeLimit, tugDvLimit, launchLatitude);
+            this.objectives = MetricRegistry.objectives(properties);
+            this.constraints = MetricRegistry.constraints(properties);
+            this.products = EnumSet.noneOf(AnalysisProduct.class);
+            for (ConstellationMetric objective : objectives) {
+                products.addAll(objective.getProducts());
+            }
+            for (MetricConstraint constraint : constraints) {
+                products.addAll(constraint.getProducts());
+            }
+            this.packedConstellation = Boolean.parseBoolean(properties.getProperty("packedConstellation", "false"));
+
+            //a cache size of 0 disables the cache
+            int cacheSize = Integer.parseInt(properties.getProperty("cacheSize", "0"));
+            this.cache = cacheSize > 0 ? new EvaluationCache(cacheSize) : null;
+            this.cacheSmaTolerance = Double.parseDouble(properties.getProperty("cacheSmaTolerance", "1"));
+            this.cacheEccTolerance = Double.parseDouble(properties.getProperty("cacheEccTolerance", "1e-6"));
+            this.cacheAngleTolerance = Double.parseDouble(properties.getProperty("cacheAngleTolerance", "1e-6"));
 
             //must use IERS_2003 and EME2000 frames to be consistent with STK
             Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
@@ -237,6 +409,104 @@ public class ConstellationOptimizer extends AbstractProblem {
                     Constants.WGS84_EARTH_FLATTENING, earthFrame);
             this.earthMu = Constants.WGS84_EARTH_MU;
 
+            //the scaffolding that does not change between evaluations is
+            //built once and only read during the evaluations
+            if (poi != null) {
+                this.coveragePoints = Collections.unmodifiableSet(
+                        new CoverageDefinition("", poi, earthShape).getPoints());
+            } else {
+                this.coveragePoints = null;
+            }
+            if (gndStations != null) {
+                this.stationAssignment = Collections.unmodifiableSet(new HashSet<>(gndStations));
+            } else {
+                this.stationAssignment = null;
+            }
+            HashSet<CommunicationBand> comms = new HashSet<>();
+            comms.add(CommunicationBand.UHF);
+            this.satelliteReceiver = new ReceiverAntenna(1, comms);
+            this.satelliteTransmitter = new TransmitterAntenna(1, comms);
+
+            //select how the coverage is computed. "scenario" runs a full
+            //scenario, "fast" runs the FastCoverageAnalysis on individual
+            //satellites, and "j2" uses the analytic J2 access calculator
+            String coverageBackend = properties.getProperty("coverageBackend", "scenario");
+            //a satellite cache size of 0 disables the satellite cache
+            int satelliteCacheSize = Integer.parseInt(properties.getProperty("satelliteCacheSize", "0"));
+            switch (coverageBackend) {
+                case "scenario":
+                    //the satellite cache needs the accesses of individual satellites
+                    if (satelliteCacheSize > 0) {
+                        this.accessCalculator = new FastCoverageAccessCalculator(
+                                coveragePoints,
+                                startDate, endDate, inertialFrame, earthMu, halfAngle);
+                    } else {
+                        this.accessCalculator = null;
+                    }
+                    break;
+                case "fast":
+                    this.accessCalculator = new FastCoverageAccessCalculator(
+                            coveragePoints,
+                            startDate, endDate, inertialFrame, earthMu, halfAngle);
+                    break;
+                case "j2":
+                    this.accessCalculator = new J2AccessCalculator(
+                            coveragePoints,
+                            startDate, endDate, inertialFrame, earthMu, halfAngle,
+                            Integer.parseInt(properties.getProperty("j2StepsPerOrbit", "500")));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            String.format("Unknown coverage backend %s. Expected scenario, fast, or j2", coverageBackend));
+            }
+            if (satelliteCacheSize > 0) {
+                this.satelliteCache = new SatelliteAccessCache(accessCalculator,
+                        satelliteCacheSize, cacheSmaTolerance, cacheEccTolerance, cacheAngleTolerance);
+            } else {
+                this.satelliteCache = null;
+            }
+
+            //screening evaluates a coarser grid over a shorter time window with
+            //the analytic J2 access calculator. Solutions rejected by screening
+            //violate an extra constraint (see SCREENED)
+            if (Boolean.parseBoolean(properties.getProperty("screening", "false"))) {
+                double granularity = Double.parseDouble(properties.getProperty("screeningGranularity", "40"));
+                double duration = Double.parseDouble(properties.getProperty("screeningDuration", "86400"));
+                int stepsPerOrbit = Integer.parseInt(properties.getProperty("screeningStepsPerOrbit", "100"));
+                AbsoluteDate screeningEndDate = startDate.shiftedBy(
+                        FastMath.min(duration, endDate.durationFrom(startDate)));
+
+                //coarse grid covers the same region as the points of interest
+                double latMin = Double.POSITIVE_INFINITY;
+                double latMax = Double.NEGATIVE_INFINITY;
+                double lonMin = Double.POSITIVE_INFINITY;
+                double lonMax = Double.NEGATIVE_INFINITY;
+                for (GeodeticPoint pt : poi) {
+                    latMin = FastMath.min(latMin, FastMath.toDegrees(pt.getLatitude()));
+                    latMax = FastMath.max(latMax, FastMath.toDegrees(pt.getLatitude()));
+                    lonMin = FastMath.min(lonMin, FastMath.toDegrees(pt.getLongitude()));
+                    lonMax = FastMath.max(lonMax, FastMath.toDegrees(pt.getLongitude()));
+                }
+                CoverageDefinition coarse = new CoverageDefinition("", granularity,
+                        latMin, latMax, lonMin, lonMax, earthShape, CoverageDefinition.GridStyle.EQUAL_AREA);
+
+                this.screeningCalculator = new J2AccessCalculator(coarse.getPoints(),
+                        startDate, screeningEndDate, inertialFrame, earthMu, halfAngle, stepsPerOrbit);
+                if (satelliteCacheSize > 0) {
+                    this.screeningCache = new SatelliteAccessCache(screeningCalculator,
+                            satelliteCacheSize, cacheSmaTolerance, cacheEccTolerance, cacheAngleTolerance);
+                } else {
+                    this.screeningCache = null;
+                }
+            } else {
+                this.screeningCalculator = null;
+                this.screeningCache = null;
+            }
+            this.screeningMargin = Double.parseDouble(properties.getProperty("screeningMargin", "0.2"));
+            this.screeningArchive = null;
+            this.screenedCount = new AtomicLong();
+            this.metrics = EvaluationMetrics.create(properties);
+
         } catch (OrekitException ex) {
             Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
             throw new IllegalStateException("Failed to create a new problem");
@@ -245,11 +515,25 @@ public class ConstellationOptimizer extends AbstractProblem {
 
     @Override
     public void evaluate(Solution solution) {
+        EvaluationMetrics.Sample sample = metrics.start();
+        try {
+            evaluateConstellation(solution);
+        } finally {
+            sample.stop(EvaluationPhase.EVALUATION);
+        }
+    }
+
+    /**
+     * Evaluates the constellation in the given solution
+     *
+     * @param solution the solution to evaluate
+     */
+    private void evaluateConstellation(Solution solution) {
 
         ArrayList<Constellation> constellations = new ArrayList<>();
         ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
 
-        ArrayList<Satellite> satelliteList = new ArrayList<>();
+        ArrayList<SatelliteVariable> manifested = new ArrayList<>();
         for (SatelliteVariable var : constel.getSatelliteVariables()) {
             if (var instanceof BooleanSatelliteVariable) {
                 if (!((BooleanSatelliteVariable) var).getManifest()) {
@@ -260,286 +544,353 @@ public class ConstellationOptimizer extends AbstractProblem {
             if (FastMath.abs(var.getInc() - 1.1074628348333333) < 0.05) {
                 var.setInc(1.109208162611111);
             }
-            Orbit orb = var.toOrbit(inertialFrame, startDate, earthMu);
-            HashSet<CommunicationBand> comms = new HashSet<>();
-            comms.add(CommunicationBand.UHF);
-            satelliteList.add(new Satellite("sat", orb, null, new ArrayList<>(),
-                    new ReceiverAntenna(1, comms), new TransmitterAntenna(1, comms), 100, 100));
+            manifested.add(var);
         }
 
-        constellations.add(new Constellation("constel", satelliteList));
-
-        CoverageDefinition cdef = new CoverageDefinition("", poi, earthShape);
-        cdef.assignConstellation(constellations);
-        HashSet<CoverageDefinition> cdefSet = new HashSet<>();
-        cdefSet.add(cdef);
+        //the deployment strategy is cheap enough to find for every solution.
+        //offspring whose strategy was kept up to date by the operators that
+        //created them are not planned again
+        DeploymentStrategy deployment = null;
+        if (products.contains(AnalysisProduct.DEPLOYMENT)) {
+            EvaluationMetrics.Sample sample = metrics.start();
+            if (constel.isDeploymentStrategyCurrent()) {
+                deployment = constel.getDeploymentStrategy();
+            } else {
+                deployment = deploymentStrategy(constel.getSatelliteVariables());
+                constel.setDeploymentStrategy(deployment);
+            }
+            sample.stop(EvaluationPhase.DEPLOYMENT);
+        }
 
-        ArrayList<EventAnalysis> eventanalyses = new ArrayList<>();
-        FastCoverageAnalysis fca = new FastCoverageAnalysis(startDate, endDate,
-                inertialFrame, cdefSet, halfAngle);
-        eventanalyses.add(fca);
+        //reuse the objectives and constraints of a previously evaluated constellation
+        ConstellationFingerprint fingerprint = null;
+        if (cache != null) {
+            fingerprint = new ConstellationFingerprint(manifested,
+                    cacheSmaTolerance, cacheEccTolerance, cacheAngleTolerance);
+            double[] cached = cache.get(fingerprint);
+            if (cached != null) {
+                setMetrics(solution, cached, false);
+                return;
+            }
+        }
 
-        //declare ground access analysis
-        //assign each satellite to each ground station
-        Map<Satellite, Set<GndStation>> stationAssignment = new HashMap<>();
-        for (Satellite sat : satelliteList) {
-            stationAssignment.put(sat, new HashSet<>(gndStations));
+        //skip the full evaluation if even an optimistic screening estimate
+        //cannot enter the archive. The ground station accesses are not
+        //available at the screening fidelity
+        if (screeningCalculator != null && screeningArchive != null
+                && !products.contains(AnalysisProduct.GROUND_STATIONS)) {
+            EvaluationMetrics.Sample sample = metrics.start();
+            double[] screened = screen(manifested, deployment);
+            sample.stop(EvaluationPhase.SCREENING);
+            double[] optimistic = new double[objectives.size()];
+            for (int i = 0; i < objectives.size(); i++) {
+                optimistic[i] = screened[i];
+                if (objectives.get(i).getProducts().contains(AnalysisProduct.COVERAGE)) {
+                    optimistic[i] *= 1. - screeningMargin;
+                }
+            }
+            if (!canEnterArchive(optimistic, screeningArchive)) {
+                setMetrics(solution, screened, true);
+                screenedCount.incrementAndGet();
+                return;
+            }
         }
-        GndStationEventAnalysis gndStaEA = new GndStationEventAnalysis(startDate, endDate, inertialFrame, stationAssignment, propagatorFactory);
-        eventanalyses.add(gndStaEA);
 
-        Scenario scen = new Scenario("", startDate, endDate, timeScale,
-                inertialFrame, propagatorFactory, cdefSet, eventanalyses, new ArrayList<>(), properties);
-        try {
-            scen.call();
-        } catch (Exception ex) {
-            Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
-            throw new IllegalStateException("Evaluation failed");
+        boolean coverageNeeded = products.contains(AnalysisProduct.COVERAGE);
+        boolean groundStationsNeeded = products.contains(AnalysisProduct.GROUND_STATIONS);
+
+        //the orekit satellites are only needed to simulate the scenario or
+        //the ground station accesses
+        ArrayList<Satellite> satelliteList = new ArrayList<>();
+        if (groundStationsNeeded || (coverageNeeded && accessCalculator == null)) {
+            EvaluationMetrics.Sample sample = metrics.start();
+            for (SatelliteVariable var : manifested) {
+                Orbit orb = var.toOrbit(inertialFrame, startDate, earthMu);
+                satelliteList.add(new Satellite("sat", orb, null, Collections.<Instrument>emptyList(),
+                        satelliteReceiver, satelliteTransmitter, 100, 100));
+            }
+            sample.stop(EvaluationPhase.SATELLITES);
         }
 
-        GroundEventAnalyzer gea = new GroundEventAnalyzer(fca.getEvents(cdef));
-        Properties properties = new Properties();
-        properties.setProperty("threshold", "7200.0");
+        //declare ground access analysis only if a metric uses it
+        //assign each satellite to each ground station
+        GndStationEventAnalysis gndStaEA = null;
+        if (groundStationsNeeded) {
+            Map<Satellite, Set<GndStation>> assignment = new HashMap<>(satelliteList.size() * 2);
+            for (Satellite sat : satelliteList) {
+                assignment.put(sat, stationAssignment);
+            }
+            gndStaEA = new GndStationEventAnalysis(startDate, endDate, inertialFrame, assignment, propagatorFactory);
+        }
 
-        DescriptiveStatistics respStats = gea.getStatistics(AnalysisMetric.MEAN_TIME_TO_T, false, properties);
-        DescriptiveStatistics gapStats = gea.getStatistics(AnalysisMetric.DURATION, false, properties);
-        solution.setObjective(0, respStats.getMean());
-        solution.setObjective(1, satelliteList.size());
-//        solution.setObjective(1, gapStats.getPercentile(90));
+        Map<TopocentricFrame, TimeIntervalArray> events = null;
+        if (accessCalculator != null) {
+            if (coverageNeeded) {
+                EvaluationMetrics.Sample sample = metrics.start();
+                if (satelliteCache != null) {
+                    //only the satellites that were not simulated before are propagated
+                    events = satelliteCache.getEvents(manifested);
+                } else {
+                    events = AccessMerger.union(accessCalculator.getPoints(),
+                            accessCalculator.getAccesses(manifested), startDate, endDate);
+                }
+                sample.stop(EvaluationPhase.COVERAGE);
+            }
+            if (gndStaEA != null) {
+                EvaluationMetrics.Sample sample = metrics.start();
+                try {
+                    ScenarioRunner.call(gndStaEA);
+                } catch (Exception ex) {
+                    Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
+                    throw new IllegalStateException("Evaluation failed");
+                }
+                sample.stop(EvaluationPhase.GROUND_STATIONS);
+            }
+        } else if (coverageNeeded) {
+            constellations.add(new Constellation("constel", satelliteList));
+
+            CoverageDefinition cdef = new CoverageDefinition("", coveragePoints);
+            cdef.assignConstellation(constellations);
+            HashSet<CoverageDefinition> cdefSet = new HashSet<>();
+            cdefSet.add(cdef);
+
+            ArrayList<EventAnalysis> eventanalyses = new ArrayList<>();
+            FastCoverageAnalysis fca = new FastCoverageAnalysis(startDate, endDate,
+                    inertialFrame, cdefSet, halfAngle);
+            eventanalyses.add(fca);
+            if (gndStaEA != null) {
+                eventanalyses.add(gndStaEA);
+            }
 
-        //compute average semi-major axis
-        DescriptiveStatistics stats = new DescriptiveStatistics();
-        for (Satellite sat : satelliteList) {
-            stats.addValue(sat.getOrbit().getA());
+            Scenario scen = new Scenario("", startDate, endDate, timeScale,
+                    inertialFrame, propagatorFactory, cdefSet, eventanalyses, new ArrayList<>(), properties);
+            EvaluationMetrics.Sample sample = metrics.start();
+            try {
+                ScenarioRunner.call(scen);
+            } catch (Exception ex) {
+                Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
+                throw new IllegalStateException("Evaluation failed");
+            }
+            sample.stop(EvaluationPhase.SCENARIO);
+            events = fca.getEvents(cdef);
+        } else if (gndStaEA != null) {
+            EvaluationMetrics.Sample sample = metrics.start();
+            try {
+                ScenarioRunner.call(gndStaEA);
+            } catch (Exception ex) {
+                Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
+                throw new IllegalStateException("Evaluation failed");
+            }
+            sample.stop(EvaluationPhase.GROUND_STATIONS);
         }
-        solution.setObjective(2, stats.getMean());
-
-//        DeploymentStrategy deployment = deploymentStrategy(constel.getSatelliteVariables());
-//        constel.setDeploymentStrategy(deployment);
-//        solution.setObjective(2, deployment.getTotalDV());
-
-        //check ground sataion gap for each satellite
-//        double maxGndGap = Double.NEGATIVE_INFINITY;
-//        for (Satellite sat : satelliteList) {
-//            GroundEventAnalyzer gndStaAnalyzer = new GroundEventAnalyzer(gndStaEA.getEvents(sat));
-//            DescriptiveStatistics gndGapStats = gndStaAnalyzer.getStatistics(AnalysisMetric.DURATION, false, properties);
-//            maxGndGap = FastMath.max(maxGndGap, gndGapStats.getMax());
-//        }
-//
-//        solution.setObjective(3, maxGndGap);
 
+        EvaluationMetrics.Sample sample = metrics.start();
+        double[] values = evaluateMetrics(new EvaluationProducts(manifested, deployment,
+                events, satelliteList, gndStaEA, false));
+        setMetrics(solution, values, false);
+        sample.stop(EvaluationPhase.STATISTICS);
+
+        if (cache != null) {
+            cache.put(fingerprint, values);
+        }
     }
 
-    @Override
-    public Solution newSolution() {
-        Solution soln = new Solution(numberOfVariables, numberOfObjectives);
-        soln.setVariable(0, new ConstellationVariable(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
-//        soln.setVariable(0, new ConstellationMatrix(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
-        return soln;
+    /**
+     * Computes the objectives and the constraint violations from the
+     * analysis products of a constellation
+     *
+     * @param products the analysis products of the constellation
+     * @return the objectives followed by the constraint violations
+     */
+    private double[] evaluateMetrics(EvaluationProducts products) {
+        double[] values = new double[objectives.size() + constraints.size()];
+        for (int i = 0; i < objectives.size(); i++) {
+            values[i] = objectives.get(i).evaluate(products);
+        }
+        for (int i = 0; i < constraints.size(); i++) {
+            values[objectives.size() + i] = constraints.get(i).evaluate(products);
+        }
+        return values;
     }
 
     /**
-     * Computes the delta v required to deploy the entire constellation by
-     * checking to see if there are large groups that can be launched together
+     * Stores the objectives and the constraint violations in a solution. If
+     * screening is enabled, the screening constraint is violated and the
+     * SCREENED attribute is set if the solution was rejected by screening.
      *
-     * @param satellites
-     * @return
+     * @param solution the solution
+     * @param values the objectives followed by the constraint violations
+     * @param screened true if the values are estimates at the screening
+     * fidelity of a solution rejected by screening
      */
-    private DeploymentStrategy deploymentStrategy(Collection<SatelliteVariable> satellites) {
-        //check inclinations and raan first
-        Map<Double, Map<Double, List<SatelliteVariable>>> map = new HashMap<>();
-        for (SatelliteVariable sat : satellites) {
-            if (!map.containsKey(sat.getInc())) {
-                map.put(sat.getInc(), new HashMap<>());
-            }
-            if (!map.get(sat.getInc()).containsKey(sat.getRaan())) {
-                map.get(sat.getInc()).put(sat.getRaan(), new ArrayList<>());
-            }
-            map.get(sat.getInc()).get(sat.getRaan()).add(sat);
+    private void setMetrics(Solution solution, double[] values, boolean screened) {
+        for (int i = 0; i < objectives.size(); i++) {
+            solution.setObjective(i, values[i]);
         }
-        
-        Collection<SatelliteVariable> unassignedSats = new ArrayList<>();
-
-        //check for large groups
-        Collection<Collection<SatelliteVariable>> largeGroups = new ArrayList<>();
-        for (Double inc : map.keySet()) {
-            for (Double raan : map.get(inc).keySet()) {
-                if (map.get(inc).get(raan).size() > 5) {
-                    largeGroups.add(map.get(inc).get(raan));
-                }else{
-                    unassignedSats.addAll(map.get(inc).get(raan));
-                }
-            }
+        for (int i = 0; i < constraints.size(); i++) {
+            solution.setConstraint(i, values[objectives.size() + i]);
         }
+        if (screeningCalculator != null) {
+            solution.setConstraint(constraints.size(), screened ? 1.0 : 0.0);
+        }
+        if (screened) {
+            solution.setAttribute(SCREENED, Boolean.TRUE);
+        } else {
+            solution.removeAttribute(SCREENED);
+        }
+    }
 
-        //Check if the groups can be launched together
-        Collection<List<SatelliteVariable>> feasibleLargeDeployments = new ArrayList<>();
-        for (Collection<SatelliteVariable> satGroup : largeGroups) {
-            List<SatelliteVariable> satList = new ArrayList<>(satGroup);
-            boolean meetsConstraints = true;
-            for (int i = 1; i < satList.size(); i++) {
-                //check RAAN constraint with newly added satellite
-                if (!ConstellationDeployment.raanCompatitble(satList.get(i - 1), satList.get(i), raanTimeLimit)) {
-                    meetsConstraints = false;
-                    break;
-                }
-            }
-            if (ConstellationDeployment.deltaVCompatible(satGroup, tugDvLimit).isEmpty()) {
-                meetsConstraints = false;
-            }
-            if(meetsConstraints){
-                feasibleLargeDeployments.add(satList);
-            }else{
-                unassignedSats.addAll(satGroup);
+    /**
+     * Computes the objectives and the constraint violations at the screening
+     * fidelity. No metric may need the ground station accesses.
+     *
+     * @param satellites the satellites in the constellation
+     * @param deployment the deployment strategy of the constellation. Null if
+     * no metric needs it
+     * @return the objectives followed by the constraint violations at the
+     * screening fidelity
+     */
+    private double[] screen(List<SatelliteVariable> satellites, DeploymentStrategy deployment) {
+        Map<TopocentricFrame, TimeIntervalArray> events = null;
+        if (products.contains(AnalysisProduct.COVERAGE)) {
+            if (screeningCache != null) {
+                events = screeningCache.getEvents(satellites);
+            } else {
+                events = AccessMerger.union(screeningCalculator.getPoints(),
+                        screeningCalculator.getAccesses(satellites),
+                        screeningCalculator.getStartDate(), screeningCalculator.getEndDate());
             }
         }
-        
-        //find assignments for the other satellites
-        Collection<Collection<List<SatelliteVariable>>> feasibleDeployments = new ArrayList<>();
-        if(unassignedSats.isEmpty()){
-            feasibleDeployments.add(new ArrayList<>());
-        }else{
-            feasibleDeployments = enumeratePartitions(unassignedSats);
-        }
-        ArrayList<Installment> minLaunchDeployment = new ArrayList<>();
-        double minDV = Double.POSITIVE_INFINITY;
-        for (Collection<List<SatelliteVariable>> deployment : feasibleDeployments) {
-            //add the large groups
-            deployment.addAll(feasibleLargeDeployments);
-            
-            ArrayList<Installment> bestDeployment = new ArrayList<>();
-            double dv = 0.0;
-            int nSatAssinged = 0;
-
-            for (List<SatelliteVariable> launchGroup : deployment) {
-                List<SatelliteVariable> bestOrder = ConstellationDeployment.deltaVCompatible(launchGroup, tugDvLimit);
-                if (bestOrder.isEmpty()) {
-                    bestDeployment.clear();
+        return evaluateMetrics(new EvaluationProducts(satellites, deployment,
+                events, null, null, true));
+    }
+
+    /**
+     * Checks if a solution with the given objectives could be added to the
+     * archive. A solution is rejected only if its epsilon-box is dominated by
+     * the box of an archive member. Solutions that share a box with a member
+     * may still be added, so they are not rejected.
+     *
+     * @param objectives the objectives of the solution
+     * @param archive the archive
+     * @return true if the solution could be added to the archive
+     */
+    private static boolean canEnterArchive(double[] objectives, EpsilonBoxDominanceArchive archive) {
+        EpsilonBoxDominanceComparator comparator = archive.getComparator();
+        for (Solution member : archive) {
+            boolean dominates = false;
+            boolean dominated = false;
+            for (int i = 0; i < objectives.length; i++) {
+                double epsilon = comparator.getEpsilon(i);
+                double memberBox = FastMath.floor(member.getObjective(i) / epsilon);
+                double box = FastMath.floor(objectives[i] / epsilon);
+                if (memberBox < box) {
+                    dominates = true;
+                } else if (memberBox > box) {
+                    dominated = true;
                     break;
                 }
-
-                double tugDV = ConstellationDeployment.deploymentDV(bestOrder);
-
-                //add the dv required to get to first satellite in deployment order
-                double[][] v = DeltaV.launch(bestOrder.get(0).getInc(),
-                        launchLatitude,
-                        Orbits.circularOrbitVelocity(bestOrder.get(0).getSma()),
-                        0.0);
-                double launchDV = FastMath.min(Vector.magnitude(v[0]), Vector.magnitude(v[1]));
-
-                bestDeployment.add(new Installment(bestOrder, launchDV, tugDV));
-                nSatAssinged += bestOrder.size();
-
-                dv += tugDV + launchDV;
             }
-
-            if (nSatAssinged != satellites.size()) {
-                throw new IllegalStateException("All satellites not included in deployment strategy");
+            if (dominates && !dominated) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            if (minLaunchDeployment.isEmpty() || bestDeployment.size() < minLaunchDeployment.size()) {
-                minLaunchDeployment = bestDeployment;
-                minDV = dv;
-            } else if (bestDeployment.size() == minLaunchDeployment.size() && dv < minDV) {
-                minLaunchDeployment = bestDeployment;
-            }
+    /**
+     * Sets the archive that solutions must be able to enter, based on their
+     * screening estimate, to receive a full evaluation. Screening has no
+     * effect until an archive is assigned. The archive must not be modified
+     * while solutions are being evaluated.
+     *
+     * @param archive the archive
+     */
+    public void setScreeningArchive(EpsilonBoxDominanceArchive archive) {
+        this.screeningArchive = archive;
+    }
 
-        }
-        if (minLaunchDeployment.isEmpty()) {
-            throw new IllegalStateException("No deployment strategy found!");
-        }
-        return new DeploymentStrategy(minLaunchDeployment);
+    /**
+     * Gets the number of solutions that were not fully evaluated because their
+     * screening estimate could not enter the archive
+     *
+     * @return the number of solutions rejected by screening
+     */
+    public long getNumberOfScreenedSolutions() {
+        return screenedCount.get();
     }
 
-    private Collection<Collection<List<SatelliteVariable>>> enumeratePartitions(Collection<SatelliteVariable> satellites) {
-        ArrayList<SatelliteVariable> sats = new ArrayList<>(satellites);
+    /**
+     * Gets the metrics of the evaluations of this problem
+     *
+     * @return the metrics of the evaluations. EvaluationMetrics.DISABLED if
+     * the metrics are not enabled
+     */
+    public EvaluationMetrics getMetrics() {
+        return metrics;
+    }
 
-        //in implementation, we maintain the maximum partition number of the array in the 0th index
-        Collection<int[]> prev = new ArrayList<>();
-        prev.add(new int[]{0, 0});
-        Collection<Collection<List<SatelliteVariable>>> out;
-        ArrayList<int[]> curr = new ArrayList<>();
-        boolean trivial = false;
+    /**
+     * Writes the metrics one last time, if they are enabled
+     */
+    @Override
+    public void close() {
+        metrics.close();
+        super.close();
+    }
 
-        //handle trivial cases
-        if (sats.size() == 1) {
-            curr = new ArrayList<>(prev);
-            trivial = true;
-        }
+    /**
+     * Gets the planner that finds the deployment strategy of each
+     * constellation
+     *
+     * @return the planner that finds the deployment strategy of each
+     * constellation
+     */
+    public DeploymentPlanner getDeploymentPlanner() {
+        return deploymentPlanner;
+    }
 
-        while (!trivial) {
-            curr = new ArrayList<>();
-            for (int[] subPart : prev) {
-                for (int partNum = 0; partNum <= subPart[0] + 1; partNum++) {
-                    int[] extended = Arrays.copyOf(subPart, subPart.length + 1);
-                    extended[subPart.length] = partNum;
-
-                    //check to see if new member belongs to a new partition
-                    if (subPart[0] < partNum) {
-                        extended[0] = partNum;
-                        curr.add(extended);
-                    } else {
-                        boolean meetsConstraints = true;
-
-                        for (int i = 1; i < extended.length - 1; i++) {
-                            //check if newly added satellite belongs in the same partition as other satellite
-                            if (extended[extended.length - 1] == extended[i]) {
-
-                                //check RAAN constraint with newly added satellite (minus 2 because first index is max partition number)
-                                SatelliteVariable newSat = sats.get(extended.length - 2);
-                                if (!ConstellationDeployment.raanCompatitble(newSat, sats.get(i - 1), raanTimeLimit)) {
-                                    meetsConstraints = false;
-                                    break;
-                                }
-
-                                //check to see if all satellites in same parition as newly added satellite can be launched together
-                                ArrayList<SatelliteVariable> group = new ArrayList<>();
-                                group.add(newSat);
-                                for (int j = 1; j < extended.length - 1; j++) {
-                                    if (extended[j] == extended[extended.length - 1]) {
-                                        group.add(sats.get(j - 1));
-                                    }
-                                }
-
-                                if (ConstellationDeployment.deltaVCompatible(group, tugDvLimit).isEmpty()) {
-                                    meetsConstraints = false;
-                                    break;
-                                }
-                            }
-                        }
-                        if (meetsConstraints) {
-                            //add deployment strategy is constraints are met
-                            curr.add(extended);
-                        }
-                    }
-                }
-            }
+    /**
+     * Gets the cache of previously computed objectives
+     *
+     * @return the cache of previously computed objectives. Null if caching is
+     * disabled
+     */
+    public EvaluationCache getEvaluationCache() {
+        return cache;
+    }
 
-            //quite loop when all paritions are complete
-            if (curr.get(0).length == sats.size() + 1) {
-                break;
-            }
+    /**
+     * Gets the cache of the accesses of previously simulated satellites
+     *
+     * @return the cache of the accesses of previously simulated satellites.
+     * Null if satellite caching is disabled
+     */
+    public SatelliteAccessCache getSatelliteAccessCache() {
+        return satelliteCache;
+    }
 
-            prev = curr;
+    @Override
+    public Solution newSolution() {
+        Solution soln = new Solution(numberOfVariables, numberOfObjectives, numberOfConstraints);
+        if (packedConstellation) {
+            soln.setVariable(0, new PackedConstellationVariable(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
+        } else {
+            soln.setVariable(0, new ConstellationVariable(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
         }
+//        soln.setVariable(0, new ConstellationMatrix(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
+        return soln;
+    }
 
-        out = new ArrayList<>(curr.size());
-        for (int[] partition : curr) {
-            //map contains the launch groups (keys are partition numbers)
-            HashMap<Integer, ArrayList<SatelliteVariable>> map = new HashMap<>();
-            for (int i = 1; i < partition.length; i++) {
-                if (!map.containsKey(partition[i])) {
-                    map.put(partition[i], new ArrayList<>());
-                }
-                map.get(partition[i]).add(sats.get(i - 1));
-            }
-            ArrayList<List<SatelliteVariable>> deployment = new ArrayList<>();
-            for (Integer i : map.keySet()) {
-                deployment.add(map.get(i));
-            }
-            out.add(deployment);
-        }
-        return out;
+    /**
+     * Computes the delta v required to deploy the entire constellation by
+     * checking to see if there are large groups that can be launched together
+     *
+     * @param satellites
+     * @return
+     */
+    private DeploymentStrategy deploymentStrategy(Collection<SatelliteVariable> satellites) {
+        return deploymentPlanner.plan(satellites);
     }
 
 }
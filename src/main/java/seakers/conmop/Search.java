@@ -46,13 +46,19 @@ import org.orekit.time.TimeScale;
 import org.orekit.time.TimeScalesFactory;
 import org.orekit.utils.Constants;
 import org.orekit.utils.IERSConventions;
-import seakers.conmop.operators.OrbitElementOperator;
+import seakers.conmop.io.CheckpointWriter;
+import seakers.conmop.io.RunCheckpoint;
+import seakers.conmop.io.SolutionFileWriter;
+import seakers.conmop.operators.ArrayOrbitElementOperator;
 import seakers.conmop.operators.VariableLengthOnePointCrossover;
 import seakers.conmop.operators.VariablePM;
 import seakers.conmop.operators.knowledge.DecreasePlanes;
 import seakers.conmop.operators.knowledge.DistributeAnomaly;
 import seakers.conmop.operators.knowledge.DistributePlanes;
 import seakers.conmop.operators.knowledge.IncreasePlanes;
+import seakers.conmop.parallel.AsynchronousAOSVariation;
+import seakers.conmop.parallel.AsynchronousEpsilonMOEA;
+import seakers.conmop.parallel.ParallelEvaluator;
 import seakers.conmop.util.Bounds;
 import seakers.orekit.object.CommunicationBand;
 import seakers.orekit.object.CoverageDefinition;
@@ -64,7 +70,6 @@ import seakers.orekit.util.OrekitConfig;
 import seakers.aos.creditassignment.setimprovement.SetImprovementDominance;
 import seakers.aos.history.AOSHistoryIO;
 import seakers.aos.operator.AOSVariation;
-import seakers.aos.operator.AOSVariationSI;
 
 /**
  *
@@ -110,6 +115,14 @@ public class Search {
         problemProperty.setProperty("raanTimeLimit", "604800");
         problemProperty.setProperty("dvLimit", "600");
 
+        //coverage backend (scenario, fast, or j2) chosen with -DcoverageBackend.
+        //Only the analytic j2 backend computes the coverage on the worker
+        //threads. The scenario and fast backends and the ground station metrics
+        //run through the process-wide ScenarioRunner one evaluation at a time
+        String coverageBackend = System.getProperty("coverageBackend", "scenario");
+        problemProperty.setProperty("coverageBackend", coverageBackend);
+        Logger.getGlobal().info(String.format("Using the %s coverage backend", coverageBackend));
+
         Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
         BodyShape earthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
                 Constants.WGS84_EARTH_FLATTENING, earthFrame);
@@ -137,6 +150,19 @@ public class Search {
         //set up the search parameters
         int populationSize = 200;
         int maxNFE = 10000;
+
+        //a checkpoint of the run is written every checkpointFrequency NFE.
+        //Pass the path of a checkpoint file as the first argument to resume
+        //the run from that checkpoint
+        int checkpointFrequency = 500;
+        File resumeFile = args.length > 0 ? new File(args[0]) : null;
+
+        //offspring are evaluated asynchronously on one worker thread per core.
+        //Only the j2 backend evaluates them in parallel. With the scenario or
+        //fast backend the evaluations wait on the ScenarioRunner in turn
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        ParallelEvaluator evaluator = new ParallelEvaluator(nThreads);
+
 //        String mode = "static_";
         String mode = "variable_extra";
 //        String mode = "kd";
@@ -153,20 +179,17 @@ public class Search {
             EpsilonBoxDominanceArchive archive = new EpsilonBoxDominanceArchive(new double[]{10, 1, 1000});
 
             final TournamentSelection selection = new TournamentSelection(2, comparator);
-            EpsilonMOEA emoea = new EpsilonMOEA(problem, population, archive,
-                    selection, null, initialization, comparator);
 
 
             //set up variations
             //example of operators you might use
             ArrayList<Variation> operators = new ArrayList<>();
-            operators.add(new OrbitElementOperator(
-                    new CompoundVariation(new SBX(1, 20), new VariablePM(20))));
+            operators.add(new ArrayOrbitElementOperator(1, 20, 20));
             operators.add(new VariableLengthOnePointCrossover(1.0, tBounds));
-//            operators.add(new DecreasePlanes());
+//            operators.add(new DecreasePlanes(((ConstellationOptimizer) problem).getDeploymentPlanner()));
 //            operators.add(new DistributeAnomaly());
-//            operators.add(new DistributePlanes());
-//            operators.add(new IncreasePlanes());
+//            operators.add(new DistributePlanes(((ConstellationOptimizer) problem).getDeploymentPlanner()));
+//            operators.add(new IncreasePlanes(((ConstellationOptimizer) problem).getDeploymentPlanner()));
 //            operators.add(new CompoundVariation(
 //                    new StaticOrbitElementOperator(
 //                            new CompoundVariation(new SBX(1, 20),
@@ -186,13 +209,41 @@ public class Search {
             //create credit assignment
             SetImprovementDominance creditAssignment = new SetImprovementDominance(archive, 1, 0);
 
+            //create AOS strategy that credits offspring as their evaluations complete
+            AOSVariation aosStrategy = new AsynchronousAOSVariation(operatorSelector, creditAssignment, populationSize);
+
+            //keep one evaluation in flight per worker thread
+            EpsilonMOEA emoea = new AsynchronousEpsilonMOEA(problem, population, archive,
+                    selection, aosStrategy, initialization, comparator, nThreads, evaluator);
+
             //create AOS
-            AOSVariation aosStrategy = new AOSVariationSI(operatorSelector, creditAssignment, populationSize);
             AOSMOEA aos = new AOSMOEA(emoea, aosStrategy, true);
 
-            System.out.println(String.format("Initializing population... Size = %d", populationSize));
+            CheckpointWriter checkpointWriter = new CheckpointWriter(new File(mode + i + ".checkpoint"));
+            if (resumeFile != null) {
+                try {
+                    RunCheckpoint checkpoint = RunCheckpoint.read(resumeFile);
+                    checkpoint.restore(emoea, aosStrategy, aos);
+                    checkpointWriter.resume(checkpoint);
+                    System.out.println(String.format("Resuming from checkpoint at %d NFE", checkpoint.getNumberOfEvaluations()));
+                } catch (IOException ex) {
+                    Logger.getLogger(Search.class.getName()).log(Level.SEVERE, null, ex);
+                    throw new IllegalStateException("Failed to resume from checkpoint " + resumeFile);
+                }
+            } else {
+                System.out.println(String.format("Initializing population... Size = %d", populationSize));
+            }
+            int nextCheckpoint = (aos.getNumberOfEvaluations() / checkpointFrequency + 1) * checkpointFrequency;
             while (aos.getNumberOfEvaluations() < maxNFE) {
                 aos.step();
+                if (aos.getNumberOfEvaluations() >= nextCheckpoint) {
+                    try {
+                        checkpointWriter.write(RunCheckpoint.capture(emoea, aosStrategy, aos));
+                    } catch (IOException ex) {
+                        Logger.getLogger(Search.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                    nextCheckpoint = (aos.getNumberOfEvaluations() / checkpointFrequency + 1) * checkpointFrequency;
+                }
                 double currentTime = ((System.nanoTime() - startTime) / Math.pow(10, 9)) / 60.;
                 System.out.println(
                         String.format("%d NFE out of %d NFE: Time elapsed = %10f min."
@@ -200,6 +251,8 @@ public class Search {
                                 aos.getNumberOfEvaluations(), maxNFE, currentTime,
                                 currentTime / emoea.getNumberOfEvaluations() * (maxNFE - aos.getNumberOfEvaluations())));
             }
+            aos.terminate();
+            checkpointWriter.close();
             System.out.println(aos.getArchive().size());
 
             long endTime = System.nanoTime();
@@ -208,7 +261,10 @@ public class Search {
             try {
                 PopulationIO.write(new File(mode + i + "_all.pop"), aos.getAllSolutions());
                 PopulationIO.write(new File(mode + i + ".pop"), aos.getPopulation());
-                PopulationIO.writeObjectives(new File(mode + i + "_all.obj"), aos.getAllSolutions());
+                try (SolutionFileWriter solutionWriter = new SolutionFileWriter(new File(mode + i + "_all.sol"),
+                        problem.getNumberOfObjectives(), problem.getNumberOfConstraints())) {
+                    solutionWriter.writeAll(aos.getAllSolutions());
+                }
                 PopulationIO.writeObjectives(new File(mode + i + ".obj"), aos.getPopulation());
             } catch (IOException ex) {
                 Logger.getLogger(Search.class.getName()).log(Level.SEVERE, null, ex);
@@ -217,6 +273,7 @@ public class Search {
             AOSHistoryIO.saveSelectionHistory(aos.getSelectionHistory(), new File(mode + i + ".select"), ",");
         }
 
+        evaluator.shutdown();
         OrekitConfig.end();
     }
 }
@@ -0,0 +1,553 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop;
+
+import seakers.aos.aos.AOSMOEA;
+import seakers.aos.operatorselectors.AdaptivePursuit;
+import seakers.aos.operatorselectors.OperatorSelector;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.hipparchus.util.FastMath;
+import org.moeaframework.algorithm.EpsilonMOEA;
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
+import org.moeaframework.core.Initialization;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.PopulationIO;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.comparator.DominanceComparator;
+import org.moeaframework.core.comparator.ParetoDominanceComparator;
+import org.moeaframework.core.operator.RandomInitialization;
+import org.moeaframework.core.operator.TournamentSelection;
+import org.orekit.bodies.BodyShape;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.bodies.OneAxisEllipsoid;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScale;
+import org.orekit.time.TimeScalesFactory;
+import org.orekit.utils.Constants;
+import org.orekit.utils.IERSConventions;
+import seakers.aos.creditassignment.setimprovement.SetImprovementDominance;
+import seakers.aos.history.AOSHistoryIO;
+import seakers.aos.operator.AOSVariation;
+import seakers.aos.operator.AOSVariationSI;
+import seakers.conmop.io.CheckpointWriter;
+import seakers.conmop.io.RunCheckpoint;
+import seakers.conmop.io.SolutionFileWriter;
+import seakers.conmop.operators.ArrayOrbitElementOperator;
+import seakers.conmop.operators.VariableLengthOnePointCrossover;
+import seakers.conmop.operators.knowledge.DecreasePlanes;
+import seakers.conmop.operators.knowledge.DistributeAnomaly;
+import seakers.conmop.operators.knowledge.DistributePlanes;
+import seakers.conmop.operators.knowledge.IncreasePlanes;
+import seakers.conmop.parallel.AsynchronousAOSVariation;
+import seakers.conmop.parallel.AsynchronousEpsilonMOEA;
+import seakers.conmop.parallel.ParallelEpsilonMOEA;
+import seakers.conmop.parallel.ParallelEvaluator;
+import seakers.conmop.parallel.PerThreadRandom;
+import seakers.conmop.util.Bounds;
+import seakers.orekit.object.CommunicationBand;
+import seakers.orekit.object.CoverageDefinition;
+import seakers.orekit.object.CoveragePoint;
+import seakers.orekit.object.GndStation;
+import seakers.orekit.object.communications.ReceiverAntenna;
+import seakers.orekit.object.communications.TransmitterAntenna;
+import seakers.orekit.propagation.PropagatorFactory;
+import seakers.orekit.propagation.PropagatorType;
+import seakers.orekit.util.OrekitConfig;
+
+/**
+ * Runs the search of Search for many seeds concurrently in one JVM. The Orekit
+ * data, the coverage points and the ground stations are loaded once and
+ * shared by all seeds. Each seed runs on its own thread with its own problem,
+ * algorithm and random number generator, and its evaluations are run on a
+ * pool of worker threads shared by all seeds. The results of each seed are
+ * written to their own directory.
+ *
+ * The path of the configuration file is the first argument. The configuration
+ * is a properties file with the keys
+ *
+ * "seeds" the number of seeds (default 30)
+ *
+ * "firstSeed" the seed of the first run. The runs use consecutive seeds
+ * (default 0)
+ *
+ * "concurrentSeeds" the number of seeds run at the same time (default the
+ * number of cores)
+ *
+ * "threads" the number of worker threads that evaluate the solutions of all
+ * seeds (default the number of cores)
+ *
+ * "algorithm" the epsilon-MOEA of each seed. "parallel" evaluates batches of
+ * offspring with the ParallelEpsilonMOEA and inserts them in the order they
+ * were created. "asynchronous" keeps evaluations in flight with the
+ * AsynchronousEpsilonMOEA and inserts them in the order they complete
+ * (default parallel)
+ *
+ * "batchSize" the number of variations per iteration of the parallel
+ * algorithm (default 1)
+ *
+ * "maxInFlight" the number of evaluations each seed keeps in flight with the
+ * asynchronous algorithm (default 1)
+ *
+ * "populationSize" the population size (default 200)
+ *
+ * "maxNFE" the number of evaluations of each seed (default 10000)
+ *
+ * "epsilon" the comma-separated epsilons of the archive (default 10,1,1000)
+ *
+ * "operators" the comma-separated operators. Any of orbitElement,
+ * variableLengthCrossover, decreasePlanes, distributeAnomaly, distributePlanes
+ * and increasePlanes (default orbitElement,variableLengthCrossover)
+ *
+ * "checkpointFrequency" the number of evaluations between checkpoints
+ * (default 500)
+ *
+ * "resume" resumes each seed from the checkpoint in its directory if there is
+ * one (default false)
+ *
+ * "outputDirectory" the directory the directory of each seed is created in
+ * (default experiment)
+ *
+ * "name" the prefix of the files written for each seed (default search)
+ *
+ * "screening" screens offspring at a coarse fidelity and only fully
+ * evaluates those whose estimate could enter the archive of their seed. The
+ * screening keys of the ConstellationOptimizer (e.g. "screeningGranularity")
+ * set the fidelity. Screening requires the parallel algorithm, which does not
+ * modify the archive while offspring are evaluated (default false)
+ *
+ * "coverageBackend" the coverage backend of the ConstellationOptimizer. One of
+ * scenario, fast or j2 (default scenario). The properties each problem was
+ * created with, including the backend, are written to the directory of the
+ * seed
+ *
+ * With the parallel algorithm, a seed only depends on its own generator and is
+ * not affected by the other seeds running at the same time. The adaptive
+ * operator selection orders the operators by their identity hash codes,
+ * which depend on the threads the JVM has started, so a seed with more than
+ * one operator is not always reproduced exactly.
+ *
+ * All the keys are also given to the ConstellationOptimizer, so the problem
+ * properties (e.g. "dvLimit" or "coverageBackend") can be set in the same
+ * file. The metrics of each seed are written to its own directory. Only the
+ * j2 backend evaluates solutions in parallel on the worker threads. The
+ * scenario and fast backends and the ground station metrics run through the
+ * process-wide ScenarioRunner one evaluation at a time, so with them the
+ * seeds do not run faster with more threads than OrekitConfig.init is given.
+ *
+ * @author nhitomi
+ */
+public class SearchExperiment {
+
+    private static final double DEG_TO_RAD = Math.PI / 180.;
+
+    /**
+     * @param args the command line arguments. The first argument is the path
+     * of the configuration file
+     * @throws org.orekit.errors.OrekitException
+     */
+    public static void main(String[] args) throws OrekitException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Expected the path of a configuration file as the first argument.");
+        }
+        Properties config = new Properties();
+        try (InputStream in = new FileInputStream(args[0])) {
+            config.load(in);
+        } catch (IOException ex) {
+            Logger.getLogger(SearchExperiment.class.getName()).log(Level.SEVERE, null, ex);
+            throw new IllegalStateException("Failed to read configuration file " + args[0]);
+        }
+
+        //setup logger
+        Level level = Level.INFO;
+        Logger.getGlobal().setLevel(level);
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(level);
+        Logger.getGlobal().addHandler(handler);
+
+        //if running on a non-US machine, need the line below
+        Locale.setDefault(new Locale("en", "US"));
+
+        OrekitConfig.init(3);
+
+        TimeScale utc = TimeScalesFactory.getUTC();
+        AbsoluteDate startDate = new AbsoluteDate(2016, 1, 1, 00, 00, 00.000, utc);
+        AbsoluteDate endDate = new AbsoluteDate(2016, 1, 8, 00, 00, 00.000, utc);
+
+        //Enter satellite orbital parameters
+        double a = Constants.WGS84_EARTH_EQUATORIAL_RADIUS;
+
+        PropagatorFactory pf = new PropagatorFactory(PropagatorType.J2);
+
+        Bounds<Integer> tBounds = new Bounds<>(1, 20);
+        Bounds<Double> smaBounds = new Bounds<>(a + 400000, a + 1000000);
+        Bounds<Double> incBounds = new Bounds<>(30. * DEG_TO_RAD, 100. * DEG_TO_RAD);
+
+        Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
+        BodyShape earthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
+                Constants.WGS84_EARTH_FLATTENING, earthFrame);
+        CoverageDefinition cdef = new CoverageDefinition("cdef", 20.0, -30, 30, -180, 180, earthShape, CoverageDefinition.GridStyle.EQUAL_AREA);
+        Set<GeodeticPoint> points = new HashSet<>();
+        for (CoveragePoint pt : cdef.getPoints()) {
+            points.add(pt.getPoint());
+        }
+
+        //define ground stations
+        ArrayList<GndStation> gndStations = new ArrayList<>();
+        TopocentricFrame wallopsTopo = new TopocentricFrame(earthShape, new GeodeticPoint(FastMath.toRadians(37.94019444), FastMath.toRadians(-75.46638889), 0.), "Wallops");
+        HashSet<CommunicationBand> wallopsBands = new HashSet<>();
+        wallopsBands.add(CommunicationBand.UHF);
+        gndStations.add(new GndStation(wallopsTopo, new ReceiverAntenna(6., wallopsBands), new TransmitterAntenna(6., wallopsBands), FastMath.toRadians(10.)));
+        TopocentricFrame moreheadTopo = new TopocentricFrame(earthShape, new GeodeticPoint(FastMath.toRadians(38.19188139), FastMath.toRadians(-83.43861111), 0.), "Mroehead");
+        HashSet<CommunicationBand> moreheadBands = new HashSet<>();
+        moreheadBands.add(CommunicationBand.UHF);
+        gndStations.add(new GndStation(moreheadTopo, new ReceiverAntenna(47., moreheadBands), new TransmitterAntenna(47., moreheadBands), FastMath.toRadians(6.)));
+
+        int nSeeds = Integer.parseInt(config.getProperty("seeds", "30"));
+        long firstSeed = Long.parseLong(config.getProperty("firstSeed", "0"));
+        int nCores = Runtime.getRuntime().availableProcessors();
+        int concurrentSeeds = Integer.parseInt(config.getProperty("concurrentSeeds", String.valueOf(nCores)));
+        int nThreads = Integer.parseInt(config.getProperty("threads", String.valueOf(nCores)));
+        if (nSeeds < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected at least one seed. Found %d", nSeeds));
+        }
+        if (concurrentSeeds < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected at least one concurrent seed. Found %d", concurrentSeeds));
+        }
+        //the asynchronous algorithm inserts solutions into the archive while
+        //others are being evaluated, so they cannot be screened against it
+        if (Boolean.parseBoolean(config.getProperty("screening", "false"))
+                && !config.getProperty("algorithm", "parallel").equals("parallel")) {
+            throw new IllegalArgumentException(
+                    String.format("Screening requires the parallel algorithm. Found %s", config.getProperty("algorithm")));
+        }
+
+        Logger.getGlobal().info(String.format("Using the %s coverage backend",
+                config.getProperty("coverageBackend", "scenario")));
+
+        //keep a copy of the configuration with the results
+        File outputDirectory = new File(config.getProperty("outputDirectory", "experiment"));
+        outputDirectory.mkdirs();
+        try (OutputStream out = new FileOutputStream(new File(outputDirectory, "experiment.properties"))) {
+            config.store(out, null);
+        } catch (IOException ex) {
+            Logger.getLogger(SearchExperiment.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        //the PRNG is shared by the JVM so each seed draws from the generator of its own thread
+        PerThreadRandom random = PerThreadRandom.install();
+
+        ParallelEvaluator evaluator = new ParallelEvaluator(nThreads);
+        ExecutorService seedExecutor = Executors.newFixedThreadPool(concurrentSeeds);
+
+        long startTime = System.nanoTime();
+        ArrayList<Future<Integer>> futures = new ArrayList<>(nSeeds);
+        for (int i = 0; i < nSeeds; i++) {
+            long seed = firstSeed + i;
+            File directory = new File(outputDirectory, "seed" + seed);
+            futures.add(seedExecutor.submit(new SeedRun(seed, directory, config, random,
+                    startDate, endDate, pf, points, gndStations, tBounds, smaBounds, incBounds, evaluator)));
+        }
+
+        //a failed seed does not stop the other seeds
+        int nFailed = 0;
+        for (int i = 0; i < nSeeds; i++) {
+            try {
+                int archiveSize = futures.get(i).get();
+                System.out.println(String.format("Seed %d finished with %d solutions in the archive",
+                        firstSeed + i, archiveSize));
+            } catch (InterruptedException | ExecutionException ex) {
+                Logger.getLogger(SearchExperiment.class.getName()).log(Level.SEVERE,
+                        String.format("Seed %d failed", firstSeed + i), ex);
+                nFailed++;
+            }
+        }
+        long endTime = System.nanoTime();
+        System.out.println(String.format("Ran %d seeds (%d failed) in %.4f min",
+                nSeeds, nFailed, (endTime - startTime) / Math.pow(10, 9) / 60.));
+
+        seedExecutor.shutdown();
+        evaluator.shutdown();
+        OrekitConfig.end();
+    }
+
+    /**
+     * Creates the operators named in a comma-separated list
+     *
+     * @param names the comma-separated names of the operators
+     * @param problem the problem the operators are applied to
+     * @param tBounds the bounds on the number of satellites
+     * @return the operators
+     */
+    private static List<Variation> operators(String names, ConstellationOptimizer problem, Bounds<Integer> tBounds) {
+        ArrayList<Variation> operators = new ArrayList<>();
+        for (String name : names.split(",")) {
+            switch (name.trim()) {
+                case "orbitElement":
+                    operators.add(new ArrayOrbitElementOperator(1, 20, 20));
+                    break;
+                case "variableLengthCrossover":
+                    operators.add(new VariableLengthOnePointCrossover(1.0, tBounds));
+                    break;
+                case "decreasePlanes":
+                    operators.add(new DecreasePlanes(problem.getDeploymentPlanner()));
+                    break;
+                case "distributeAnomaly":
+                    operators.add(new DistributeAnomaly());
+                    break;
+                case "distributePlanes":
+                    operators.add(new DistributePlanes(problem.getDeploymentPlanner()));
+                    break;
+                case "increasePlanes":
+                    operators.add(new IncreasePlanes(problem.getDeploymentPlanner()));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            String.format("Unknown operator %s. Expected orbitElement, variableLengthCrossover,"
+                                    + " decreasePlanes, distributeAnomaly, distributePlanes or increasePlanes", name));
+            }
+        }
+        return operators;
+    }
+
+    /**
+     * Parses comma-separated numbers
+     *
+     * @param values the comma-separated numbers
+     * @return the numbers
+     */
+    private static double[] parseDoubles(String values) {
+        String[] tokens = values.split(",");
+        double[] out = new double[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            out[i] = Double.parseDouble(tokens[i].trim());
+        }
+        return out;
+    }
+
+    /**
+     * The search for one seed
+     */
+    private static class SeedRun implements Callable<Integer> {
+
+        private final long seed;
+
+        /**
+         * The directory the results of this seed are written to
+         */
+        private final File directory;
+
+        private final Properties config;
+
+        private final PerThreadRandom random;
+
+        private final AbsoluteDate startDate;
+
+        private final AbsoluteDate endDate;
+
+        private final PropagatorFactory pf;
+
+        private final Set<GeodeticPoint> points;
+
+        private final Collection<GndStation> gndStations;
+
+        private final Bounds<Integer> tBounds;
+
+        private final Bounds<Double> smaBounds;
+
+        private final Bounds<Double> incBounds;
+
+        private final ParallelEvaluator evaluator;
+
+        SeedRun(long seed, File directory, Properties config, PerThreadRandom random,
+                AbsoluteDate startDate, AbsoluteDate endDate, PropagatorFactory pf,
+                Set<GeodeticPoint> points, Collection<GndStation> gndStations,
+                Bounds<Integer> tBounds, Bounds<Double> smaBounds, Bounds<Double> incBounds,
+                ParallelEvaluator evaluator) {
+            this.seed = seed;
+            this.directory = directory;
+            this.config = config;
+            this.random = random;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.pf = pf;
+            this.points = points;
+            this.gndStations = gndStations;
+            this.tBounds = tBounds;
+            this.smaBounds = smaBounds;
+            this.incBounds = incBounds;
+            this.evaluator = evaluator;
+        }
+
+        /**
+         * Runs the search
+         *
+         * @return the number of solutions in the archive at the end of the
+         * search
+         */
+        @Override
+        public Integer call() {
+            random.setRandom(new Random(seed));
+            directory.mkdirs();
+
+            int populationSize = Integer.parseInt(config.getProperty("populationSize", "200"));
+            int maxNFE = Integer.parseInt(config.getProperty("maxNFE", "10000"));
+            String algorithm = config.getProperty("algorithm", "parallel");
+            int checkpointFrequency = Integer.parseInt(config.getProperty("checkpointFrequency", "500"));
+            boolean resume = Boolean.parseBoolean(config.getProperty("resume", "false"));
+            String name = config.getProperty("name", "search");
+
+            //each seed writes its metrics to its own directory
+            Properties problemProperty = new Properties();
+            problemProperty.putAll(config);
+            problemProperty.setProperty("coverageBackend", config.getProperty("coverageBackend", "scenario"));
+            problemProperty.setProperty("metricsFile",
+                    new File(directory, config.getProperty("metricsFile", "metrics.csv")).getPath());
+
+            //keep the properties the problem was created with, including the coverage backend
+            try (OutputStream out = new FileOutputStream(new File(directory, name + ".properties"))) {
+                problemProperty.store(out, null);
+            } catch (IOException ex) {
+                Logger.getLogger(SearchExperiment.class.getName()).log(Level.SEVERE, null, ex);
+            }
+
+            ConstellationOptimizer problem = new ConstellationOptimizer("", startDate, endDate, pf,
+                    points, FastMath.toRadians(51.),
+                    tBounds, smaBounds, incBounds, gndStations, problemProperty);
+            try {
+                long startTime = System.nanoTime();
+                Initialization initialization = new RandomInitialization(problem,
+                        populationSize);
+
+                Population population = new Population();
+                DominanceComparator comparator = new ParetoDominanceComparator();
+                EpsilonBoxDominanceArchive archive = new EpsilonBoxDominanceArchive(
+                        parseDoubles(config.getProperty("epsilon", "10,1,1000")));
+                if (Boolean.parseBoolean(config.getProperty("screening", "false"))) {
+                    problem.setScreeningArchive(archive);
+                }
+
+                final TournamentSelection selection = new TournamentSelection(2, comparator);
+
+                List<Variation> operators = operators(
+                        config.getProperty("operators", "orbitElement,variableLengthCrossover"), problem, tBounds);
+
+                //create operator selector
+                OperatorSelector operatorSelector = new AdaptivePursuit(operators, 0.8, 0.8, 0.03);
+
+                //create credit assignment
+                SetImprovementDominance creditAssignment = new SetImprovementDominance(archive, 1, 0);
+
+                //the seeds already keep the workers busy, so by default each
+                //seed evaluates its offspring in the order they were created
+                AOSVariation aosStrategy;
+                EpsilonMOEA emoea;
+                switch (algorithm) {
+                    case "parallel":
+                        aosStrategy = new AOSVariationSI(operatorSelector, creditAssignment, populationSize);
+                        emoea = new ParallelEpsilonMOEA(problem, population, archive,
+                                selection, aosStrategy, initialization, comparator,
+                                Integer.parseInt(config.getProperty("batchSize", "1")), evaluator);
+                        break;
+                    case "asynchronous":
+                        aosStrategy = new AsynchronousAOSVariation(operatorSelector, creditAssignment, populationSize);
+                        emoea = new AsynchronousEpsilonMOEA(problem, population, archive,
+                                selection, aosStrategy, initialization, comparator,
+                                Integer.parseInt(config.getProperty("maxInFlight", "1")), evaluator);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(
+                                String.format("Unknown algorithm %s. Expected parallel or asynchronous", algorithm));
+                }
+
+                //create AOS
+                AOSMOEA aos = new AOSMOEA(emoea, aosStrategy, true);
+
+                File checkpointFile = new File(directory, name + ".checkpoint");
+                CheckpointWriter checkpointWriter = new CheckpointWriter(checkpointFile);
+                if (resume && checkpointFile.exists()) {
+                    try {
+                        RunCheckpoint checkpoint = RunCheckpoint.read(checkpointFile);
+                        checkpoint.restore(emoea, aosStrategy, aos);
+                        checkpointWriter.resume(checkpoint);
+                        System.out.println(String.format("Seed %d: resuming from checkpoint at %d NFE",
+                                seed, checkpoint.getNumberOfEvaluations()));
+                    } catch (IOException ex) {
+                        Logger.getLogger(SearchExperiment.class.getName()).log(Level.SEVERE, null, ex);
+                        throw new IllegalStateException("Failed to resume from checkpoint " + checkpointFile);
+                    }
+                }
+
+                //progress is reported at each checkpoint to keep the output of many seeds readable
+                int nextCheckpoint = (aos.getNumberOfEvaluations() / checkpointFrequency + 1) * checkpointFrequency;
+                while (aos.getNumberOfEvaluations() < maxNFE) {
+                    aos.step();
+                    if (aos.getNumberOfEvaluations() >= nextCheckpoint) {
+                        try {
+                            checkpointWriter.write(RunCheckpoint.capture(emoea, aosStrategy, aos));
+                        } catch (IOException ex) {
+                            Logger.getLogger(SearchExperiment.class.getName()).log(Level.SEVERE, null, ex);
+                        }
+                        nextCheckpoint = (aos.getNumberOfEvaluations() / checkpointFrequency + 1) * checkpointFrequency;
+                        double currentTime = ((System.nanoTime() - startTime) / Math.pow(10, 9)) / 60.;
+                        System.out.println(
+                                String.format("Seed %d: %d NFE out of %d NFE: Time elapsed = %10f min.",
+                                        seed, aos.getNumberOfEvaluations(), maxNFE, currentTime));
+                    }
+                }
+                aos.terminate();
+                checkpointWriter.close();
+                if (Boolean.parseBoolean(config.getProperty("screening", "false"))) {
+                    System.out.println(String.format("Seed %d: %d solutions rejected by screening",
+                            seed, problem.getNumberOfScreenedSolutions()));
+                }
+
+                try {
+                    PopulationIO.write(new File(directory, name + "_all.pop"), aos.getAllSolutions());
+                    PopulationIO.write(new File(directory, name + ".pop"), aos.getPopulation());
+                    try (SolutionFileWriter solutionWriter = new SolutionFileWriter(new File(directory, name + "_all.sol"),
+                            problem.getNumberOfObjectives(), problem.getNumberOfConstraints())) {
+                        solutionWriter.writeAll(aos.getAllSolutions());
+                    }
+                    PopulationIO.writeObjectives(new File(directory, name + ".obj"), aos.getPopulation());
+                } catch (IOException ex) {
+                    Logger.getLogger(SearchExperiment.class.getName()).log(Level.SEVERE, null, ex);
+                }
+                AOSHistoryIO.saveCreditHistory(aos.getCreditHistory(), new File(directory, name + ".credit"), ",");
+                AOSHistoryIO.saveSelectionHistory(aos.getSelectionHistory(), new File(directory, name + ".select"), ",");
+                return aos.getArchive().size();
+            } finally {
+                problem.close();
+            }
+        }
+    }
+}
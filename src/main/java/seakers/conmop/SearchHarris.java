@@ -33,11 +33,15 @@ import seakers.aos.operator.AOSVariation;
 import seakers.aos.operator.AOSVariationSI;
 import seakers.aos.operatorselectors.AdaptivePursuit;
 import seakers.aos.operatorselectors.OperatorSelector;
-import seakers.conmop.operators.OrbitElementOperator;
+import seakers.conmop.io.CheckpointWriter;
+import seakers.conmop.io.RunCheckpoint;
+import seakers.conmop.operators.ArrayOrbitElementOperator;
 import seakers.conmop.operators.VariableLengthOnePointCrossover;
 import seakers.conmop.operators.VariablePM;
+import seakers.conmop.parallel.ParallelEpsilonMOEA;
+import seakers.conmop.parallel.ParallelEvaluator;
 import seakers.conmop.util.Bounds;
-import seakers.conmop.io.SatelliteVariableWriter;
+import seakers.conmop.io.SolutionFileWriter;
 import seakers.orekit.object.CommunicationBand;
 import seakers.orekit.object.CoverageDefinition;
 import seakers.orekit.object.CoveragePoint;
@@ -106,6 +110,26 @@ public class SearchHarris {
         problemProperty.setProperty("raanTimeLimit", "604800");
         problemProperty.setProperty("dvLimit", "600");
 
+        //reuse objectives of constellations and accesses of satellites that were already evaluated
+        problemProperty.setProperty("cacheSize", "10000");
+        problemProperty.setProperty("satelliteCacheSize", "20000");
+
+        //compute coverage with the analytic J2 access calculator instead of a full scenario
+//        problemProperty.setProperty("coverageBackend", "j2");
+
+        //screen offspring before evaluating them fully (enabled with -Dscreening=true).
+        //The two stages use different coverage models: screening estimates the
+        //coverage with the analytic J2 calculator on a 40 deg grid over one day
+        //with a 0.2 margin, while the archive holds solutions evaluated with
+        //the 7-day scenario backend on the full grid
+        String screening = System.getProperty("screening", "false");
+        problemProperty.setProperty("screening", screening);
+        problemProperty.setProperty("screeningGranularity", "40");
+        problemProperty.setProperty("screeningDuration", "86400");
+        problemProperty.setProperty("screeningMargin", "0.2");
+        Logger.getGlobal().info(String.format("Screening %s",
+                Boolean.parseBoolean(screening) ? "enabled" : "disabled"));
+
         Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
         BodyShape earthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
                 Constants.WGS84_EARTH_FLATTENING, earthFrame);
@@ -134,6 +158,21 @@ public class SearchHarris {
         int populationSize = 100;
         int maxNFE = 10000;
 
+        //a checkpoint of the run is written every checkpointFrequency NFE.
+        //Pass the path of a checkpoint file as the first argument to resume
+        //the run from that checkpoint
+        int checkpointFrequency = 500;
+        File resumeFile = args.length > 0 ? new File(args[0]) : null;
+
+        //offspring created per iteration are evaluated concurrently. The
+        //batch size changes the run, so it is fixed rather than set by the
+        //number of cores to give the same run for a seed on every machine
+        int batchSize = 8;
+        //only the j2 backend evaluates the batch in parallel. With the
+        //scenario backend the evaluations run through the ScenarioRunner in turn
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        ParallelEvaluator evaluator = new ParallelEvaluator(nThreads);
+
         // Set run name
         StringJoiner runName = new StringJoiner("_");
 
@@ -161,19 +200,19 @@ public class SearchHarris {
             DominanceComparator comparator = new ParetoDominanceComparator();
 //            EpsilonBoxDominanceArchive archive = new EpsilonBoxDominanceArchive(new double[]{30, 1, 100, 30});
             EpsilonBoxDominanceArchive archive = new EpsilonBoxDominanceArchive(new double[]{10, 1, 1000});
+            ((ConstellationOptimizer) problem).setScreeningArchive(archive);
 
             final TournamentSelection selection = new TournamentSelection(2, comparator);
 
             //set up variations
             //example of operators you might use
             ArrayList<Variation> operators = new ArrayList<>();
-            operators.add(new OrbitElementOperator(
-                    new CompoundVariation(new SBX(1, 20), new VariablePM(20))));
+            operators.add(new ArrayOrbitElementOperator(1, 20, 20));
             operators.add(new VariableLengthOnePointCrossover(1.0, tBounds));
-//            operators.add(new DecreasePlanes());
+//            operators.add(new DecreasePlanes(((ConstellationOptimizer) problem).getDeploymentPlanner()));
 //            operators.add(new DistributeAnomaly());
-//            operators.add(new DistributePlanes());
-//            operators.add(new IncreasePlanes());
+//            operators.add(new DistributePlanes(((ConstellationOptimizer) problem).getDeploymentPlanner()));
+//            operators.add(new IncreasePlanes(((ConstellationOptimizer) problem).getDeploymentPlanner()));
 //            operators.add(new CompoundVariation(
 //                    new StaticOrbitElementOperator(
 //                            new CompoundVariation(new SBX(1, 20),
@@ -197,18 +236,40 @@ public class SearchHarris {
             AOSVariation aosStrategy = new AOSVariationSI(operatorSelector, creditAssignment, populationSize);
 
             // create EpsilonMOEA
-            EpsilonMOEA emoea = new EpsilonMOEA(problem, population, archive,
-                    selection, aosStrategy, initialization, comparator);
+            EpsilonMOEA emoea = new ParallelEpsilonMOEA(problem, population, archive,
+                    selection, aosStrategy, initialization, comparator, batchSize, evaluator);
 
             // create AOS
             AOSMOEA aos = new AOSMOEA(emoea, aosStrategy, true);
 
-            System.out.println(String.format("Initializing population... Size = %d", populationSize));
+            CheckpointWriter checkpointWriter = new CheckpointWriter(new File(baseFilename + ".checkpoint"));
+            if (resumeFile != null) {
+                try {
+                    RunCheckpoint checkpoint = RunCheckpoint.read(resumeFile);
+                    checkpoint.restore(emoea, aosStrategy, aos);
+                    checkpointWriter.resume(checkpoint);
+                    System.out.println(String.format("Resuming from checkpoint at %d NFE", checkpoint.getNumberOfEvaluations()));
+                } catch (IOException ex) {
+                    Logger.getLogger(SearchHarris.class.getName()).log(Level.SEVERE, null, ex);
+                    throw new IllegalStateException("Failed to resume from checkpoint " + resumeFile);
+                }
+            } else {
+                System.out.println(String.format("Initializing population... Size = %d", populationSize));
+            }
+            int nextCheckpoint = (aos.getNumberOfEvaluations() / checkpointFrequency + 1) * checkpointFrequency;
 
             int popIndex = 0;
             while (aos.getNumberOfEvaluations() < maxNFE) {
 
                 aos.step();
+                if (aos.getNumberOfEvaluations() >= nextCheckpoint) {
+                    try {
+                        checkpointWriter.write(RunCheckpoint.capture(emoea, aosStrategy, aos));
+                    } catch (IOException ex) {
+                        Logger.getLogger(SearchHarris.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                    nextCheckpoint = (aos.getNumberOfEvaluations() / checkpointFrequency + 1) * checkpointFrequency;
+                }
                 double currentTime = ((System.nanoTime() - startTime) / Math.pow(10, 9)) / 60.;
                 System.out.println(
                         String.format("%d NFE out of %d NFE: Time elapsed = %10f min."
@@ -224,7 +285,12 @@ public class SearchHarris {
 //                }
             }
 
+            checkpointWriter.close();
             System.out.println(aos.getArchive().size());
+            System.out.println(((ConstellationOptimizer) problem).getEvaluationCache());
+            System.out.println(((ConstellationOptimizer) problem).getSatelliteAccessCache());
+            System.out.println(String.format("Screened %d solutions",
+                    ((ConstellationOptimizer) problem).getNumberOfScreenedSolutions()));
 
             long endTime = System.nanoTime();
             Logger.getGlobal().finest(String.format("Took %.4f sec", (endTime - startTime) / Math.pow(10, 9)));
@@ -232,22 +298,23 @@ public class SearchHarris {
             try {
                 PopulationIO.write(new File(baseFilename + "_all.pop"), aos.getAllSolutions());
                 PopulationIO.write(new File(baseFilename + ".pop"), aos.getPopulation());
-                PopulationIO.writeObjectives(new File(baseFilename + "_all.obj"), aos.getAllSolutions());
                 PopulationIO.writeObjectives(new File(baseFilename + ".obj"), aos.getPopulation());
+                try (SolutionFileWriter solutionWriter = new SolutionFileWriter(new File(baseFilename + "_archive.sol"),
+                        problem.getNumberOfObjectives(), problem.getNumberOfConstraints())) {
+                    solutionWriter.writeAll(aos.getArchive());
+                }
+                try (SolutionFileWriter solutionWriter = new SolutionFileWriter(new File(baseFilename + "_all.sol"),
+                        problem.getNumberOfObjectives(), problem.getNumberOfConstraints())) {
+                    solutionWriter.writeAll(aos.getAllSolutions());
+                }
             } catch (IOException ex) {
                 Logger.getLogger(SearchHarris.class.getName()).log(Level.SEVERE, null, ex);
             }
             AOSHistoryIO.saveCreditHistory(aos.getCreditHistory(), new File(baseFilename + ".credit"), ",");
             AOSHistoryIO.saveSelectionHistory(aos.getSelectionHistory(), new File(baseFilename + ".select"), ",");
-
-            // Initialize population writer
-            SatelliteVariableWriter writer = new SatelliteVariableWriter();
-
-            // Save solutions in a csv file
-            writer.write(baseFilename + "_archive.csv", aos.getArchive().iterator());
-            writer.write(baseFilename + "_allSolutions.csv", aos.getAllSolutions().iterator());
         }
 
+        evaluator.shutdown();
         OrekitConfig.end();
     }
 }
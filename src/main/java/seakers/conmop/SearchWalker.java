@@ -0,0 +1,155 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.core.NondominatedPopulation;
+import org.moeaframework.core.PopulationIO;
+import org.moeaframework.core.Problem;
+import org.orekit.bodies.BodyShape;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.bodies.OneAxisEllipsoid;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScale;
+import org.orekit.time.TimeScalesFactory;
+import org.orekit.utils.Constants;
+import org.orekit.utils.IERSConventions;
+import seakers.conmop.io.SolutionFileWriter;
+import seakers.conmop.parallel.ParallelEvaluator;
+import seakers.conmop.parallel.WalkerSweep;
+import seakers.conmop.util.Bounds;
+import seakers.orekit.object.CoverageDefinition;
+import seakers.orekit.object.CoveragePoint;
+import seakers.orekit.propagation.PropagatorFactory;
+import seakers.orekit.propagation.PropagatorType;
+import seakers.orekit.util.OrekitConfig;
+
+/**
+ * Sweeps every Walker constellation over a grid of semi-major axes and
+ * inclinations to find the Pareto surface of the Walker problem. The surface
+ * is a baseline for the results of the genetic algorithm.
+ *
+ * @author nhitomi
+ */
+public class SearchWalker {
+
+    private static final double DEG_TO_RAD = Math.PI / 180.;
+
+    /**
+     * @param args the command line arguments
+     * @throws org.orekit.errors.OrekitException
+     */
+    public static void main(String[] args) throws OrekitException {
+        //setup logger
+        Level level = Level.FINEST;
+        Logger.getGlobal().setLevel(level);
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(level);
+        Logger.getGlobal().addHandler(handler);
+
+        //if running on a non-US machine, need the line below
+        Locale.setDefault(new Locale("en", "US"));
+
+        OrekitConfig.init(3);
+
+        TimeScale utc = TimeScalesFactory.getUTC();
+        AbsoluteDate startDate = new AbsoluteDate(2016, 1, 1, 00, 00, 00.000, utc);
+        AbsoluteDate endDate = new AbsoluteDate(2016, 1, 8, 00, 00, 00.000, utc);
+
+        //Enter satellite orbital parameters
+        double a = Constants.WGS84_EARTH_EQUATORIAL_RADIUS;
+
+        PropagatorFactory pf = new PropagatorFactory(PropagatorType.J2);
+
+        //the Walker constellations are evaluated from one reference orbit
+        Properties problemProperty = new Properties();
+        problemProperty.setProperty("coverageBackend", "j2");
+
+        Bounds<Integer> tBounds = new Bounds<>(1, 20);
+        Bounds<Integer> pBounds = new Bounds<>(1, 20);
+        Bounds<Integer> fBounds = new Bounds<>(0, 19);
+        Bounds<Double> smaBounds = new Bounds<>(a + 400000, a + 1000000);
+        Bounds<Double> incBounds = new Bounds<>(30. * DEG_TO_RAD, 100. * DEG_TO_RAD);
+
+        //grid of semi-major axes and inclinations swept for each t/p/f
+        double smaStep = 100000;
+        double incStep = 10. * DEG_TO_RAD;
+        double[] smaGrid = grid(smaBounds, smaStep);
+        double[] incGrid = grid(incBounds, incStep);
+
+        Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
+        BodyShape earthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
+                Constants.WGS84_EARTH_FLATTENING, earthFrame);
+        CoverageDefinition cdef = new CoverageDefinition("cdef", 20.0, -30, 30, -180, 180, earthShape, CoverageDefinition.GridStyle.EQUAL_AREA);
+        Set<GeodeticPoint> points = new HashSet<>();
+        for (CoveragePoint pt : cdef.getPoints()) {
+            points.add(pt.getPoint());
+        }
+
+        Problem problem = new WalkerOptimizer("", startDate, endDate, pf,
+                points, tBounds, pBounds, fBounds, smaBounds, incBounds, problemProperty);
+
+        //designs are evaluated on one worker thread per core. They run in
+        //parallel because the j2 backend does not use the ScenarioRunner
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        ParallelEvaluator evaluator = new ParallelEvaluator(nThreads);
+
+        String baseFilename = "walker_sweep";
+
+        long startTime = System.nanoTime();
+        WalkerSweep sweep = new WalkerSweep(problem, tBounds, pBounds, fBounds,
+                smaGrid, incGrid, evaluator);
+        NondominatedPopulation archive = sweep.run(new NondominatedPopulation());
+        long endTime = System.nanoTime();
+
+        System.out.println(String.format("Evaluated %d designs and pruned %d designs in %.4f min",
+                sweep.getNumberOfEvaluations(), sweep.getNumberOfPruned(),
+                (endTime - startTime) / Math.pow(10, 9) / 60.));
+        System.out.println(archive.size());
+
+        try {
+            PopulationIO.write(new File(baseFilename + ".pop"), archive);
+            PopulationIO.writeObjectives(new File(baseFilename + ".obj"), archive);
+            try (SolutionFileWriter solutionWriter = new SolutionFileWriter(new File(baseFilename + "_all.sol"),
+                    problem.getNumberOfObjectives(), problem.getNumberOfConstraints())) {
+                solutionWriter.writeAll(sweep.getEvaluated());
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(SearchWalker.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        evaluator.shutdown();
+        problem.close();
+        OrekitConfig.end();
+    }
+
+    /**
+     * Creates evenly spaced values from the lower bound to the upper bound
+     *
+     * @param bounds the bounds of the grid
+     * @param step the spacing of the values
+     * @return the values from the lower bound to the upper bound
+     */
+    private static double[] grid(Bounds<Double> bounds, double step) {
+        int n = (int) Math.floor((bounds.getUpperBound() - bounds.getLowerBound()) / step + 1e-9) + 1;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = bounds.getLowerBound() + i * step;
+        }
+        return values;
+    }
+}
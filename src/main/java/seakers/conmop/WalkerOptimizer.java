@@ -6,15 +6,15 @@
 package seakers.conmop;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.hipparchus.stat.descriptive.DescriptiveStatistics;
 import org.hipparchus.util.FastMath;
 import org.moeaframework.core.Solution;
-import org.moeaframework.core.variable.RealVariable;
 import org.moeaframework.problem.AbstractProblem;
 import org.orekit.bodies.BodyShape;
 import org.orekit.bodies.GeodeticPoint;
@@ -22,22 +22,32 @@ import org.orekit.bodies.OneAxisEllipsoid;
 import org.orekit.errors.OrekitException;
 import org.orekit.frames.Frame;
 import org.orekit.frames.FramesFactory;
+import org.orekit.frames.TopocentricFrame;
 import org.orekit.time.AbsoluteDate;
 import org.orekit.time.TimeScale;
 import org.orekit.time.TimeScalesFactory;
 import org.orekit.utils.Constants;
 import org.orekit.utils.IERSConventions;
+import seakers.conmop.coverage.AccessMerger;
+import seakers.conmop.coverage.J2AccessCalculator;
+import seakers.conmop.evaluation.EvaluationMetrics;
+import seakers.conmop.evaluation.EvaluationPhase;
+import seakers.conmop.evaluation.StreamingGapAnalyzer;
+import seakers.conmop.evaluation.StreamingSummary;
+import seakers.conmop.parallel.ScenarioRunner;
 import seakers.conmop.util.Bounds;
+import seakers.conmop.variable.SatelliteVariable;
 import seakers.conmop.variable.WalkerVariable;
 import seakers.orekit.constellations.Walker;
+import seakers.orekit.coverage.access.TimeIntervalArray;
 import seakers.orekit.coverage.analysis.AnalysisMetric;
-import seakers.orekit.coverage.analysis.GroundEventAnalyzer;
 import seakers.orekit.event.EventAnalysis;
 import seakers.orekit.event.EventAnalysisEnum;
 import seakers.orekit.event.EventAnalysisFactory;
 import seakers.orekit.event.FieldOfViewEventAnalysis;
 import seakers.orekit.object.Constellation;
 import seakers.orekit.object.CoverageDefinition;
+import seakers.orekit.object.CoveragePoint;
 import seakers.orekit.object.Instrument;
 import seakers.orekit.object.fieldofview.NadirSimpleConicalFOV;
 import seakers.orekit.propagation.PropagatorFactory;
@@ -57,6 +67,13 @@ public class WalkerOptimizer extends AbstractProblem {
      * The points of interest for the coverage study
      */
     private final Set<GeodeticPoint> poi;
+
+    /**
+     * The points of interest as coverage points. The topocentric frames are
+     * built once and shared by all evaluations. Null if there are no points
+     * of interest
+     */
+    private final Set<CoveragePoint> coveragePoints;
     
     /**
      * The propagator factory to create the propagators for each satellite
@@ -83,6 +100,11 @@ public class WalkerOptimizer extends AbstractProblem {
      */
     private final AbsoluteDate startDate;
 
+    /**
+     * Half angle for a simple conical field of view sensor [rad]
+     */
+    private final double halfAngle;
+
     /**
      * The bounds allowable on the total number of satellites
      */
@@ -123,6 +145,18 @@ public class WalkerOptimizer extends AbstractProblem {
      */
     private final double earthMu;
 
+    /**
+     * The analytic J2 access calculator that computes the accesses of all
+     * the satellites of a Walker constellation from one reference orbit. Null
+     * if the coverage is computed by running a scenario
+     */
+    private final J2AccessCalculator accessCalculator;
+
+    /**
+     * The latency and allocation metrics of each phase of the evaluations
+     */
+    private final EvaluationMetrics metrics;
+
     /**
      * Constructor for that allows all feasible values for p and f.
      *
@@ -156,6 +190,7 @@ public class WalkerOptimizer extends AbstractProblem {
             OrekitConfig.init();
             this.startDate = startDate;
             this.endDate = endDate;
+            this.halfAngle = FastMath.toRadians(45);
             this.timeScale = TimeScalesFactory.getUTC();
             this.inertialFrame = FramesFactory.getEME2000();
             this.propagatorFactory = propagatorFactory;
@@ -174,8 +209,38 @@ public class WalkerOptimizer extends AbstractProblem {
                     Constants.WGS84_EARTH_FLATTENING, earthFrame);
             this.earthMu = Constants.WGS84_EARTH_MU;
             
-            NadirSimpleConicalFOV fov = new NadirSimpleConicalFOV(FastMath.toRadians(45), earthShape);
+            NadirSimpleConicalFOV fov = new NadirSimpleConicalFOV(halfAngle, earthShape);
             this.view = new Instrument("view", fov, 100, 100);
+            if (poi != null) {
+                this.coveragePoints = Collections.unmodifiableSet(
+                        new CoverageDefinition("", poi, earthShape).getPoints());
+            } else {
+                this.coveragePoints = null;
+            }
+
+            //select how the coverage is computed. "scenario" runs a full
+            //scenario with every satellite propagated, and "j2" derives the
+            //accesses of every satellite from one reference orbit with the
+            //analytic J2 access calculator
+            String coverageBackend = properties.getProperty("coverageBackend", "scenario");
+            switch (coverageBackend) {
+                case "scenario":
+                    this.accessCalculator = null;
+                    break;
+                case "j2":
+                    if (coveragePoints == null) {
+                        throw new IllegalArgumentException("The j2 coverage backend needs points of interest");
+                    }
+                    this.accessCalculator = new J2AccessCalculator(
+                            coveragePoints,
+                            startDate, endDate, inertialFrame, earthMu, halfAngle,
+                            Integer.parseInt(properties.getProperty("j2StepsPerOrbit", "500")));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            String.format("Unknown coverage backend %s. Expected scenario or j2", coverageBackend));
+            }
+            this.metrics = EvaluationMetrics.create(properties);
 
         } catch (OrekitException ex) {
             Logger.getLogger(WalkerOptimizer.class.getName()).log(Level.SEVERE, null, ex);
@@ -185,22 +250,57 @@ public class WalkerOptimizer extends AbstractProblem {
 
     @Override
     public void evaluate(Solution solution) {
+        EvaluationMetrics.Sample sample = metrics.start();
+        try {
+            evaluateWalker(solution);
+        } finally {
+            sample.stop(EvaluationPhase.EVALUATION);
+        }
+    }
+
+    /**
+     * Evaluates the Walker constellation in the given solution
+     *
+     * @param solution the solution to evaluate
+     */
+    private void evaluateWalker(Solution solution) {
         
+        WalkerVariable wv = (WalkerVariable) solution.getVariable(0);
+        //the anchor satellite is the first satellite of the first plane
+        SatelliteVariable anchor = wv.getSatelliteVariables().iterator().next();
+        if (accessCalculator != null) {
+            EvaluationMetrics.Sample sample = metrics.start();
+            Map<TopocentricFrame, TimeIntervalArray> events = AccessMerger.union(
+                    accessCalculator.getPoints(),
+                    accessCalculator.getWalkerAccesses(wv.getSma(), wv.getInc(),
+                            wv.getT(), wv.getP(), wv.getF(), anchor.getRaan(), anchor.getTrueAnomaly()),
+                    startDate, endDate);
+            sample.stop(EvaluationPhase.COVERAGE);
+
+            sample = metrics.start();
+            StreamingSummary gapStats = new StreamingGapAnalyzer(events).getStatistics(AnalysisMetric.DURATION);
+            //a constellation with continuous coverage has no gaps
+            solution.setObjective(0, gapStats.getN() == 0 ? 0. : gapStats.getMean());
+            solution.setObjective(1, wv.getT());
+            sample.stop(EvaluationPhase.STATISTICS);
+            return;
+        }
+
+        EvaluationMetrics.Sample sample = metrics.start();
         ArrayList<Constellation> constellations = new ArrayList<>();
         
-        RealVariable sma = (RealVariable) solution.getVariable(0);
-        RealVariable inc = (RealVariable) solution.getVariable(1);
-        WalkerVariable wv = (WalkerVariable) solution.getVariable(2);
         ArrayList<Instrument> payload = new ArrayList<>();
         payload.add(view);
-        Walker walker = new Walker("", payload, sma.getValue(), inc.getValue(), 
-                wv.getT(), wv.getP(), wv.getF(), inertialFrame, startDate, earthMu);
+        Walker walker = new Walker("", payload, wv.getSma(), wv.getInc(), 
+                wv.getT(), wv.getP(), wv.getF(), inertialFrame, startDate, earthMu,
+                anchor.getRaan(), anchor.getTrueAnomaly());
         constellations.add(walker);
 
-        CoverageDefinition cdef = new CoverageDefinition("", poi, earthShape);
+        CoverageDefinition cdef = new CoverageDefinition("", coveragePoints);
         cdef.assignConstellation(constellations);
         HashSet<CoverageDefinition> cdefSet = new HashSet<>();
         cdefSet.add(cdef);
+        sample.stop(EvaluationPhase.SATELLITES);
 
         EventAnalysisFactory eaf = new EventAnalysisFactory(startDate, endDate, inertialFrame, propagatorFactory);
         ArrayList<EventAnalysis> eventanalyses = new ArrayList<>();
@@ -208,18 +308,42 @@ public class WalkerOptimizer extends AbstractProblem {
         eventanalyses.add(fovEvent);
 
         Scenario scen = new Scenario("", startDate, endDate, timeScale,
-                inertialFrame, propagatorFactory, cdefSet, eventanalyses, null, properties);
+                inertialFrame, propagatorFactory, cdefSet, eventanalyses, new ArrayList<>(), properties);
+        sample = metrics.start();
         try {
-            scen.call();
+            ScenarioRunner.call(scen);
         } catch (Exception ex) {
             Logger.getLogger(WalkerOptimizer.class.getName()).log(Level.SEVERE, null, ex);
             throw new IllegalStateException("Evaluation failed");
         }
+        sample.stop(EvaluationPhase.SCENARIO);
 
-        GroundEventAnalyzer gea = new GroundEventAnalyzer(fovEvent.getEvents(cdef));
-        DescriptiveStatistics gapStats = gea.getStatistics(AnalysisMetric.DURATION, false, new Properties());
-        solution.setObjective(0, gapStats.getMean());
+        sample = metrics.start();
+        StreamingGapAnalyzer gea = new StreamingGapAnalyzer(fovEvent.getEvents(cdef));
+        StreamingSummary gapStats = gea.getStatistics(AnalysisMetric.DURATION);
+        //a constellation with continuous coverage has no gaps
+        solution.setObjective(0, gapStats.getN() == 0 ? 0. : gapStats.getMean());
         solution.setObjective(1, walker.getSatellites().size());
+        sample.stop(EvaluationPhase.STATISTICS);
+    }
+
+    /**
+     * Gets the metrics of the evaluations of this problem
+     *
+     * @return the metrics of the evaluations. EvaluationMetrics.DISABLED if
+     * the metrics are not enabled
+     */
+    public EvaluationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the metrics one last time, if they are enabled
+     */
+    @Override
+    public void close() {
+        metrics.close();
+        super.close();
     }
 
     @Override
@@ -29,17 +29,17 @@ public class SatelliteComparator implements Comparator<SatelliteVariable>{
     public int compare(SatelliteVariable o1, SatelliteVariable o2) {
         switch(elementType){
             case SMA:
-                return o1.getSma().compareTo(o2.getSma());
+                return Double.compare(o1.getSma(), o2.getSma());
             case ECC:
-                return o1.getEcc().compareTo(o2.getEcc());
+                return Double.compare(o1.getEcc(), o2.getEcc());
             case INC:
-                return o1.getInc().compareTo(o2.getInc());
+                return Double.compare(o1.getInc(), o2.getInc());
             case RAAN:
-                return o1.getRaan().compareTo(o2.getRaan());
+                return Double.compare(o1.getRaan(), o2.getRaan());
             case AP:
-                return o1.getArgPer().compareTo(o2.getArgPer());
+                return Double.compare(o1.getArgPer(), o2.getArgPer());
             case TA:
-                return o1.getTrueAnomaly().compareTo(o2.getTrueAnomaly());
+                return Double.compare(o1.getTrueAnomaly(), o2.getTrueAnomaly());
             default:
                     throw new UnsupportedOperationException("Orbital element type unknown");
         }
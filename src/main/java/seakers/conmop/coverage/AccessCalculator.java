@@ -0,0 +1,56 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.coverage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.time.AbsoluteDate;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+import seakers.orekit.object.CoveragePoint;
+
+/**
+ * Computes the time intervals when individual satellites have access to a
+ * fixed set of points of interest over a fixed time window.
+ *
+ * @author nhitomi
+ */
+public interface AccessCalculator {
+
+    /**
+     * Computes the accesses of each given satellite. Each returned map
+     * contains an entry for every point of interest. The times in the
+     * intervals are measured in seconds from the start date.
+     *
+     * @param satellites the satellites to compute accesses for
+     * @return the accesses of each satellite in the same order as the given
+     * satellites
+     */
+    public List<Map<TopocentricFrame, TimeIntervalArray>> getAccesses(List<SatelliteVariable> satellites);
+
+    /**
+     * Gets the points of interest
+     *
+     * @return the points of interest
+     */
+    public Collection<CoveragePoint> getPoints();
+
+    /**
+     * Gets the start date of the time window
+     *
+     * @return the start date of the time window
+     */
+    public AbsoluteDate getStartDate();
+
+    /**
+     * Gets the end date of the time window
+     *
+     * @return the end date of the time window
+     */
+    public AbsoluteDate getEndDate();
+}
@@ -0,0 +1,103 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.coverage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.time.AbsoluteDate;
+import seakers.orekit.coverage.access.RiseSetTime;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+
+/**
+ * Combines the accesses of individual satellites into the accesses of a
+ * constellation. Unlike the TimeIntervalMerger from seakers.orekit, this
+ * handles intervals from different satellites that rise or set at exactly the
+ * same time (e.g. several satellites in view at the start of the simulation).
+ *
+ * @author nhitomi
+ */
+public final class AccessMerger {
+
+    private AccessMerger() {
+    }
+
+    /**
+     * Computes the union of the accesses of the given satellites at each point
+     * of interest
+     *
+     * @param points the points of interest
+     * @param accesses the accesses of each satellite. Each map must contain
+     * every point of interest
+     * @param startDate the start date of the time window
+     * @param endDate the end date of the time window
+     * @return the times when at least one satellite has access to each point
+     */
+    public static Map<TopocentricFrame, TimeIntervalArray> union(
+            Collection<? extends TopocentricFrame> points,
+            Collection<Map<TopocentricFrame, TimeIntervalArray>> accesses,
+            AbsoluteDate startDate, AbsoluteDate endDate) {
+        HashMap<TopocentricFrame, TimeIntervalArray> events = new HashMap<>(points.size());
+        for (TopocentricFrame point : points) {
+            ArrayList<TimeIntervalArray> intervals = new ArrayList<>(accesses.size());
+            for (Map<TopocentricFrame, TimeIntervalArray> access : accesses) {
+                intervals.add(access.get(point));
+            }
+            events.put(point, union(intervals, startDate, endDate));
+        }
+        return events;
+    }
+
+    /**
+     * Computes the union of the given intervals. The rise and set times are
+     * swept in chronological order while counting the number of open
+     * intervals. Rises are swept before sets that occur at the same time so
+     * that intervals that touch are joined.
+     *
+     * @param intervals the intervals to combine
+     * @param startDate the start date of the time window
+     * @param endDate the end date of the time window
+     * @return the union of the given intervals
+     */
+    public static TimeIntervalArray union(Collection<TimeIntervalArray> intervals,
+            AbsoluteDate startDate, AbsoluteDate endDate) {
+        ArrayList<RiseSetTime> times = new ArrayList<>();
+        for (TimeIntervalArray array : intervals) {
+            times.addAll(array.getRiseSetTimes());
+        }
+        Collections.sort(times, new Comparator<RiseSetTime>() {
+            @Override
+            public int compare(RiseSetTime o1, RiseSetTime o2) {
+                int c = Double.compare(o1.getTime(), o2.getTime());
+                if (c != 0) {
+                    return c;
+                }
+                return Boolean.compare(o2.isRise(), o1.isRise());
+            }
+        });
+
+        TimeIntervalArray out = new TimeIntervalArray(startDate, endDate);
+        int open = 0;
+        for (RiseSetTime time : times) {
+            if (time.isRise()) {
+                if (open == 0) {
+                    out.addRiseTime(time.getTime());
+                }
+                open++;
+            } else {
+                open--;
+                if (open == 0) {
+                    out.addSetTime(time.getTime());
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.coverage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.orekit.frames.Frame;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.time.AbsoluteDate;
+import seakers.conmop.parallel.ScenarioRunner;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+import seakers.orekit.coverage.analysis.FastCoverageAnalysis;
+import seakers.orekit.object.Constellation;
+import seakers.orekit.object.CoverageDefinition;
+import seakers.orekit.object.CoveragePoint;
+import seakers.orekit.object.Satellite;
+
+/**
+ * Computes accesses with the FastCoverageAnalysis from seakers.orekit. All
+ * the given satellites are simulated in one analysis, which is run through the
+ * ScenarioRunner because it relies on the process-wide ParallelRoutine. The
+ * accesses are therefore computed for one evaluation at a time, however many
+ * threads evaluate solutions.
+ *
+ * @author nhitomi
+ */
+public class FastCoverageAccessCalculator implements AccessCalculator {
+
+    /**
+     * The points of interest
+     */
+    private final Collection<CoveragePoint> points;
+
+    /**
+     * The start date of the simulation
+     */
+    private final AbsoluteDate startDate;
+
+    /**
+     * The end date of the simulation
+     */
+    private final AbsoluteDate endDate;
+
+    /**
+     * The inertial frame used to create the orbits
+     */
+    private final Frame inertialFrame;
+
+    /**
+     * The standard gravitational constant used to create the orbits
+     */
+    private final double mu;
+
+    /**
+     * Half angle for a simple conical field of view sensor [rad]
+     */
+    private final double halfAngle;
+
+    /**
+     * Creates a new calculator
+     *
+     * @param points the points of interest
+     * @param startDate the start date of the simulation
+     * @param endDate the end date of the simulation
+     * @param inertialFrame the inertial frame used to create the orbits
+     * @param mu the standard gravitational constant used to create the orbits
+     * @param halfAngle half angle for a simple conical field of view sensor
+     * [rad]
+     */
+    public FastCoverageAccessCalculator(Collection<CoveragePoint> points,
+            AbsoluteDate startDate, AbsoluteDate endDate, Frame inertialFrame,
+            double mu, double halfAngle) {
+        this.points = Collections.unmodifiableList(new ArrayList<>(points));
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.inertialFrame = inertialFrame;
+        this.mu = mu;
+        this.halfAngle = halfAngle;
+    }
+
+    @Override
+    public List<Map<TopocentricFrame, TimeIntervalArray>> getAccesses(List<SatelliteVariable> satellites) {
+        ArrayList<Satellite> satelliteList = new ArrayList<>(satellites.size());
+        for (SatelliteVariable var : satellites) {
+            satelliteList.add(new Satellite("sat", var.toOrbit(inertialFrame, startDate, mu)));
+        }
+
+        CoverageDefinition cdef = new CoverageDefinition("", points);
+        cdef.assignConstellation(new Constellation("constel", satelliteList));
+        HashSet<CoverageDefinition> cdefSet = new HashSet<>();
+        cdefSet.add(cdef);
+        FastCoverageAnalysis fca = new FastCoverageAnalysis(startDate, endDate,
+                inertialFrame, cdefSet, halfAngle);
+        try {
+            ScenarioRunner.call(fca);
+        } catch (Exception ex) {
+            Logger.getLogger(FastCoverageAccessCalculator.class.getName()).log(Level.SEVERE, null, ex);
+            throw new IllegalStateException("Coverage analysis failed");
+        }
+
+        ArrayList<Map<TopocentricFrame, TimeIntervalArray>> out = new ArrayList<>(satellites.size());
+        for (Satellite sat : satelliteList) {
+            out.add(fca.getSatelliteAccesses(cdef, sat));
+        }
+        return out;
+    }
+
+    @Override
+    public Collection<CoveragePoint> getPoints() {
+        return points;
+    }
+
+    @Override
+    public AbsoluteDate getStartDate() {
+        return startDate;
+    }
+
+    @Override
+    public AbsoluteDate getEndDate() {
+        return endDate;
+    }
+
+}
@@ -0,0 +1,532 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.coverage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.Constants;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+import seakers.orekit.object.CoveragePoint;
+
+/**
+ * Computes accesses analytically for circular orbits. The orbits are
+ * propagated with the secular J2 drift of the right ascension of the ascending
+ * node and the argument of latitude, and the Earth is rotated at a constant
+ * rate about the inertial z-axis. At each time step, the satellite is rotated
+ * into the frame that the points of interest are fixed in and a conical field
+ * of view and a line of sight test are applied to arrays of point coordinates.
+ * Rise and set times are found by linear interpolation of the visibility
+ * margin between time steps. Points that can never be seen because their
+ * latitude is beyond the reach of the orbit are skipped. The satellites of a
+ * Walker delta pattern can be computed from the ground track of one reference
+ * orbit with getWalkerAccesses.
+ *
+ * Unlike the FastCoverageAnalysis, this calculator does not use the
+ * process-wide ParallelRoutine, so it is safe to call from several threads at
+ * once.
+ *
+ * @author nhitomi
+ */
+public class J2AccessCalculator implements AccessCalculator {
+
+    /**
+     * The largest eccentricity accepted as a circular orbit
+     */
+    private static final double MAX_ECCENTRICITY = 1e-3;
+
+    /**
+     * Margin [rad] added to the reachable latitude when screening points
+     */
+    private static final double LATITUDE_MARGIN = 0.01;
+
+    /**
+     * The points of interest
+     */
+    private final List<CoveragePoint> points;
+
+    /**
+     * The x-coordinates [m] of the points in the inertial frame at the start
+     * date
+     */
+    private final double[] px;
+
+    /**
+     * The y-coordinates [m] of the points in the inertial frame at the start
+     * date
+     */
+    private final double[] py;
+
+    /**
+     * The z-coordinates [m] of the points in the inertial frame at the start
+     * date
+     */
+    private final double[] pz;
+
+    /**
+     * The distance [m] of the points from the center of the Earth
+     */
+    private final double[] pNorm;
+
+    /**
+     * The geocentric latitude [rad] of the points
+     */
+    private final double[] pLat;
+
+    /**
+     * The start date of the simulation
+     */
+    private final AbsoluteDate startDate;
+
+    /**
+     * The end date of the simulation
+     */
+    private final AbsoluteDate endDate;
+
+    /**
+     * The duration [s] of the simulation
+     */
+    private final double duration;
+
+    /**
+     * The standard gravitational constant used to propagate the orbits
+     */
+    private final double mu;
+
+    /**
+     * The cosine of the half angle of the conical field of view sensor
+     */
+    private final double cosHalfAngle;
+
+    /**
+     * The number of time steps taken per orbital period
+     */
+    private final int stepsPerOrbit;
+
+    /**
+     * Creates a new calculator
+     *
+     * @param points the points of interest
+     * @param startDate the start date of the simulation
+     * @param endDate the end date of the simulation
+     * @param inertialFrame the inertial frame that the orbital elements are
+     * defined in
+     * @param mu the standard gravitational constant used to propagate the
+     * orbits
+     * @param halfAngle half angle for a simple conical field of view sensor
+     * [rad]
+     * @param stepsPerOrbit the number of time steps taken per orbital period
+     */
+    public J2AccessCalculator(Collection<CoveragePoint> points,
+            AbsoluteDate startDate, AbsoluteDate endDate, Frame inertialFrame,
+            double mu, double halfAngle, int stepsPerOrbit) {
+        if (stepsPerOrbit < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a positive number of steps per orbit. Found %d", stepsPerOrbit));
+        }
+        this.points = Collections.unmodifiableList(new ArrayList<>(points));
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.duration = endDate.durationFrom(startDate);
+        this.mu = mu;
+        this.cosHalfAngle = FastMath.cos(halfAngle);
+        this.stepsPerOrbit = stepsPerOrbit;
+
+        int nPoints = this.points.size();
+        this.px = new double[nPoints];
+        this.py = new double[nPoints];
+        this.pz = new double[nPoints];
+        this.pNorm = new double[nPoints];
+        this.pLat = new double[nPoints];
+        try {
+            for (int i = 0; i < nPoints; i++) {
+                Vector3D pos = this.points.get(i).getPVCoordinates(startDate, inertialFrame).getPosition();
+                px[i] = pos.getX();
+                py[i] = pos.getY();
+                pz[i] = pos.getZ();
+                pNorm[i] = pos.getNorm();
+                pLat[i] = FastMath.asin(pz[i] / pNorm[i]);
+            }
+        } catch (OrekitException ex) {
+            Logger.getLogger(J2AccessCalculator.class.getName()).log(Level.SEVERE, null, ex);
+            throw new IllegalStateException("Failed to compute the positions of the points of interest");
+        }
+    }
+
+    @Override
+    public List<Map<TopocentricFrame, TimeIntervalArray>> getAccesses(List<SatelliteVariable> satellites) {
+        ArrayList<Map<TopocentricFrame, TimeIntervalArray>> out = new ArrayList<>(satellites.size());
+        for (SatelliteVariable sat : satellites) {
+            out.add(getAccesses(sat));
+        }
+        return out;
+    }
+
+    /**
+     * Computes the accesses of one satellite
+     *
+     * @param sat the satellite
+     * @return the accesses of the satellite to each point of interest
+     */
+    private Map<TopocentricFrame, TimeIntervalArray> getAccesses(SatelliteVariable sat) {
+        if (sat.getEcc() > MAX_ECCENTRICITY) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a circular orbit. Found eccentricity %f", sat.getEcc()));
+        }
+
+        HashMap<TopocentricFrame, TimeIntervalArray> accesses = new HashMap<>(points.size());
+        for (CoveragePoint point : points) {
+            accesses.put(point, new TimeIntervalArray(startDate, endDate));
+        }
+
+        //secular J2 rates for a circular orbit
+        double a = sat.getSma();
+        double cosInc = FastMath.cos(sat.getInc());
+        double sinInc = FastMath.sin(sat.getInc());
+        double n = FastMath.sqrt(mu / (a * a * a));
+        double k = -1.5 * Constants.WGS84_EARTH_C20
+                * (Constants.WGS84_EARTH_EQUATORIAL_RADIUS / a)
+                * (Constants.WGS84_EARTH_EQUATORIAL_RADIUS / a);
+        double raanDot = -k * n * cosInc;
+        double argLatDot = n * (1 + k * (4 * cosInc * cosInc - 1));
+        double raan0 = sat.getRaan();
+        double argLat0 = sat.getArgPer() + sat.getTrueAnomaly();
+
+        //screen out the points that the satellite can never see
+        int[] candidates = getCandidates(a, sat.getInc());
+        int nCandidates = candidates.length;
+        if (nCandidates == 0) {
+            return accesses;
+        }
+
+        TimeIntervalArray[] arrays = new TimeIntervalArray[nCandidates];
+        for (int j = 0; j < nCandidates; j++) {
+            arrays[j] = accesses.get(points.get(candidates[j]));
+        }
+
+        double step = 2. * FastMath.PI / argLatDot / stepsPerOrbit;
+        int nSteps = (int) FastMath.ceil(duration / step);
+        double[] prevMargin = new double[nCandidates];
+        double prevTime = 0;
+        for (int s = 0; s <= nSteps; s++) {
+            double t = FastMath.min(s * step, duration);
+
+            //satellite position in the inertial frame
+            double raan = raan0 + raanDot * t;
+            double argLat = argLat0 + argLatDot * t;
+            double cosRaan = FastMath.cos(raan);
+            double sinRaan = FastMath.sin(raan);
+            double cosArgLat = FastMath.cos(argLat);
+            double sinArgLat = FastMath.sin(argLat);
+            double xi = a * (cosRaan * cosArgLat - sinRaan * sinArgLat * cosInc);
+            double yi = a * (sinRaan * cosArgLat + cosRaan * sinArgLat * cosInc);
+            double sz = a * sinArgLat * sinInc;
+
+            //rotate the satellite back by the rotation of the Earth since the start date
+            double theta = Constants.WGS84_EARTH_ANGULAR_VELOCITY * t;
+            double cosTheta = FastMath.cos(theta);
+            double sinTheta = FastMath.sin(theta);
+            double sx = cosTheta * xi + sinTheta * yi;
+            double sy = -sinTheta * xi + cosTheta * yi;
+
+            for (int j = 0; j < nCandidates; j++) {
+                double margin = margin(candidates[j], sx, sy, sz, a);
+
+                if (s == 0) {
+                    if (margin >= 0) {
+                        arrays[j].addRiseTime(0.);
+                    }
+                } else if ((margin >= 0) != (prevMargin[j] >= 0)) {
+                    double crossing = prevTime + (t - prevTime) * prevMargin[j] / (prevMargin[j] - margin);
+                    if (margin >= 0) {
+                        arrays[j].addRiseTime(crossing);
+                    } else {
+                        arrays[j].addSetTime(crossing);
+                    }
+                }
+                prevMargin[j] = margin;
+            }
+            prevTime = t;
+        }
+
+        //close the accesses that are still open at the end of the simulation
+        for (int j = 0; j < nCandidates; j++) {
+            if (arrays[j].isAccessing()) {
+                arrays[j].addSetTime(duration);
+            }
+        }
+        return accesses;
+    }
+
+    /**
+     * Computes the accesses of the satellites of a Walker delta pattern t/p/f
+     * from a single reference orbit. With the secular J2 model, every
+     * satellite of the pattern flies the ground track of the anchor satellite
+     * shifted in time by its offset in argument of latitude and rotated in
+     * longitude by its offset in right ascension of the ascending node, less
+     * the drift of the node and plus the rotation of the Earth over that time
+     * shift. The ground track of the anchor satellite is propagated once over
+     * the time window plus one orbit, with a number of steps per orbit that
+     * is a multiple of t so that each satellite is shifted by a whole number
+     * of steps. The accesses of each satellite are then found from the
+     * rotated, shifted ground track without propagating it again. A point
+     * that is out of view is not checked again until the satellite could have
+     * moved within reach of it, so each satellite only checks the points near
+     * its ground track.
+     *
+     * @param sma the semi-major axis of the constellation [m]
+     * @param inc the inclination of the constellation [rad]
+     * @param t the total number of satellites in the constellation
+     * @param p the number of planes in the constellation. p must be a divisor
+     * of t
+     * @param f the phasing value. f must be in the range [0,p-1]
+     * @param refRaan the right ascension of the ascending node [rad] of the
+     * anchor satellite
+     * @param refAnom the true anomaly [rad] of the anchor satellite
+     * @return the accesses of each satellite in the order of
+     * WalkerVariable.setWalker, that is plane by plane
+     */
+    public List<Map<TopocentricFrame, TimeIntervalArray>> getWalkerAccesses(
+            double sma, double inc, int t, int p, int f, double refRaan, double refAnom) {
+        if (t < 1 || p < 1 || t % p != 0 || f < 0 || f >= p) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a feasible Walker pattern. Found %d/%d/%d", t, p, f));
+        }
+
+        //secular J2 rates for a circular orbit
+        double a = sma;
+        double cosInc = FastMath.cos(inc);
+        double sinInc = FastMath.sin(inc);
+        double n = FastMath.sqrt(mu / (a * a * a));
+        double k = -1.5 * Constants.WGS84_EARTH_C20
+                * (Constants.WGS84_EARTH_EQUATORIAL_RADIUS / a)
+                * (Constants.WGS84_EARTH_EQUATORIAL_RADIUS / a);
+        double raanDot = -k * n * cosInc;
+        double argLatDot = n * (1 + k * (4 * cosInc * cosInc - 1));
+
+        //each pattern unit of 2pi/t in argument of latitude is a whole number of steps
+        int stepsPerUnit = (int) FastMath.ceil(stepsPerOrbit / (double) t);
+        double step = 2. * FastMath.PI / argLatDot / (stepsPerUnit * t);
+        int nSteps = (int) FastMath.ceil(duration / step);
+        int maxShift = (t - 1) * stepsPerUnit;
+
+        //ground track of the anchor satellite in the frame that the points are fixed in
+        double[] rx = new double[nSteps + maxShift + 1];
+        double[] ry = new double[nSteps + maxShift + 1];
+        double[] rz = new double[nSteps + maxShift + 1];
+        for (int s = 0; s < rx.length; s++) {
+            double time = s * step;
+            double raan = refRaan + raanDot * time;
+            double argLat = refAnom + argLatDot * time;
+            double cosRaan = FastMath.cos(raan);
+            double sinRaan = FastMath.sin(raan);
+            double cosArgLat = FastMath.cos(argLat);
+            double sinArgLat = FastMath.sin(argLat);
+            double xi = a * (cosRaan * cosArgLat - sinRaan * sinArgLat * cosInc);
+            double yi = a * (sinRaan * cosArgLat + cosRaan * sinArgLat * cosInc);
+            double theta = Constants.WGS84_EARTH_ANGULAR_VELOCITY * time;
+            double cosTheta = FastMath.cos(theta);
+            double sinTheta = FastMath.sin(theta);
+            rx[s] = cosTheta * xi + sinTheta * yi;
+            ry[s] = -sinTheta * xi + cosTheta * yi;
+            rz[s] = a * sinArgLat * sinInc;
+        }
+
+        //all satellites share the inclination so they can see the same points
+        int[] candidates = getCandidates(a, inc);
+        int nCandidates = candidates.length;
+
+        //largest central angle between a satellite and a point that it sees,
+        //limited by the horizon and by the edge of the field of view
+        double sinHalfAngle = FastMath.sqrt(1 - cosHalfAngle * cosHalfAngle);
+        double halfAngle = FastMath.acos(cosHalfAngle);
+        double[] reach = new double[nCandidates];
+        for (int j = 0; j < nCandidates; j++) {
+            double r = pNorm[candidates[j]];
+            double horizon = FastMath.acos(r / a);
+            double edge = a * sinHalfAngle / r;
+            reach[j] = (edge < 1 ? FastMath.min(horizon, FastMath.asin(edge) - halfAngle) : horizon)
+                    + LATITUDE_MARGIN;
+        }
+        //bound on the angle the satellite moves per step relative to the points
+        double stepAngle = (argLatDot + FastMath.abs(raanDot) + Constants.WGS84_EARTH_ANGULAR_VELOCITY) * step;
+
+        //the points waiting to be checked at each step, as linked lists
+        int[] head = new int[nSteps + 1];
+        int[] next = new int[nCandidates];
+        int[] lastChecked = new int[nCandidates];
+
+        ArrayList<Map<TopocentricFrame, TimeIntervalArray>> out = new ArrayList<>(t);
+        int satsPerPlane = t / p;
+        for (int plane = 0; plane < p; plane++) {
+            for (int slot = 0; slot < satsPerPlane; slot++) {
+                HashMap<TopocentricFrame, TimeIntervalArray> accesses = new HashMap<>(points.size());
+                for (CoveragePoint point : points) {
+                    accesses.put(point, new TimeIntervalArray(startDate, endDate));
+                }
+                out.add(accesses);
+                if (nCandidates == 0) {
+                    continue;
+                }
+                TimeIntervalArray[] arrays = new TimeIntervalArray[nCandidates];
+                for (int j = 0; j < nCandidates; j++) {
+                    arrays[j] = accesses.get(points.get(candidates[j]));
+                }
+
+                int shift = ((slot * p + plane * f) % t) * stepsPerUnit;
+                double dt = shift * step;
+                double alpha = plane * 2. * FastMath.PI / p
+                        + (Constants.WGS84_EARTH_ANGULAR_VELOCITY - raanDot) * dt;
+                double cosAlpha = FastMath.cos(alpha);
+                double sinAlpha = FastMath.sin(alpha);
+
+                //points far from the satellite are not checked again until the
+                //satellite could have moved close enough to see them
+                double[] prevMargin = new double[nCandidates];
+                Arrays.fill(head, -1);
+                for (int j = nCandidates - 1; j >= 0; j--) {
+                    next[j] = head[0];
+                    head[0] = j;
+                }
+                for (int s = 0; s <= nSteps; s++) {
+                    double time = s * step;
+                    double sx = cosAlpha * rx[s + shift] - sinAlpha * ry[s + shift];
+                    double sy = sinAlpha * rx[s + shift] + cosAlpha * ry[s + shift];
+                    double sz = rz[s + shift];
+
+                    int j = head[s];
+                    while (j >= 0) {
+                        int following = next[j];
+                        int i = candidates[j];
+                        double margin = margin(i, sx, sy, sz, a);
+
+                        if (s == 0) {
+                            if (margin >= 0) {
+                                arrays[j].addRiseTime(0.);
+                            }
+                        } else {
+                            double previous = prevMargin[j];
+                            if (lastChecked[j] != s - 1 && margin >= 0) {
+                                //the point was not seen in the previous step
+                                previous = margin(i,
+                                        cosAlpha * rx[s - 1 + shift] - sinAlpha * ry[s - 1 + shift],
+                                        sinAlpha * rx[s - 1 + shift] + cosAlpha * ry[s - 1 + shift],
+                                        rz[s - 1 + shift], a);
+                            }
+                            if ((margin >= 0) != (previous >= 0)) {
+                                double crossing = time - step * margin / (margin - previous);
+                                //the last step may end after the end of the simulation
+                                if (crossing < duration) {
+                                    if (margin >= 0) {
+                                        arrays[j].addRiseTime(crossing);
+                                    } else {
+                                        arrays[j].addSetTime(crossing);
+                                    }
+                                }
+                            }
+                        }
+                        prevMargin[j] = margin;
+                        lastChecked[j] = s;
+
+                        int wait = 1;
+                        if (margin < 0) {
+                            double cosAngle = (sx * px[i] + sy * py[i] + sz * pz[i]) / (a * pNorm[i]);
+                            double angle = FastMath.acos(FastMath.max(-1, FastMath.min(1, cosAngle)));
+                            wait = FastMath.max(1, (int) ((angle - reach[j]) / stepAngle));
+                        }
+                        if (s + wait <= nSteps) {
+                            next[j] = head[s + wait];
+                            head[s + wait] = j;
+                        }
+                        j = following;
+                    }
+                }
+
+                //close the accesses that are still open at the end of the simulation
+                for (int j = 0; j < nCandidates; j++) {
+                    if (arrays[j].isAccessing()) {
+                        arrays[j].addSetTime(duration);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Screens out the points that a satellite on a circular orbit can never
+     * see because their latitude is beyond the reach of the orbit
+     *
+     * @param a the semi-major axis of the orbit [m]
+     * @param inc the inclination of the orbit [rad]
+     * @return the indices of the points that the satellite may see
+     */
+    private int[] getCandidates(double a, double inc) {
+        double maxLat = FastMath.min(inc, FastMath.PI - inc);
+        int[] candidates = new int[points.size()];
+        int nCandidates = 0;
+        for (int i = 0; i < points.size(); i++) {
+            if (pNorm[i] < a && FastMath.abs(pLat[i]) <= maxLat + FastMath.acos(pNorm[i] / a) + LATITUDE_MARGIN) {
+                candidates[nCandidates] = i;
+                nCandidates++;
+            }
+        }
+        return Arrays.copyOf(candidates, nCandidates);
+    }
+
+    /**
+     * Computes the visibility margin of a point from a satellite. The margin
+     * is non-negative when the point is above the horizon of the satellite
+     * and inside the field of view.
+     *
+     * @param i the index of the point
+     * @param sx the x-coordinate [m] of the satellite in the frame that the
+     * points are fixed in
+     * @param sy the y-coordinate [m] of the satellite
+     * @param sz the z-coordinate [m] of the satellite
+     * @param a the distance [m] of the satellite from the center of the Earth
+     * @return the visibility margin
+     */
+    private double margin(int i, double sx, double sy, double sz, double a) {
+        double sp = sx * px[i] + sy * py[i] + sz * pz[i];
+        double pp = pNorm[i] * pNorm[i];
+
+        //point must be above the horizon and inside the cone
+        double horizonMargin = (sp - pp) / (a * pNorm[i]);
+        double range = FastMath.sqrt(a * a - 2 * sp + pp);
+        double coneMargin = (a * a - sp) / (a * range) - cosHalfAngle;
+        return FastMath.min(horizonMargin, coneMargin);
+    }
+
+    @Override
+    public Collection<CoveragePoint> getPoints() {
+        return points;
+    }
+
+    @Override
+    public AbsoluteDate getStartDate() {
+        return startDate;
+    }
+
+    @Override
+    public AbsoluteDate getEndDate() {
+        return endDate;
+    }
+
+}
@@ -6,14 +6,12 @@
 package seakers.conmop.deployment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.hipparchus.util.FastMath;
-import seakers.architecture.enumeration.FullFactorial;
-import seakers.conmop.comparators.SatelliteComparator;
 import seakers.conmop.launch.DeltaV;
-import seakers.conmop.util.OrbitalElementEnum;
 import seakers.conmop.variable.SatelliteVariable;
 import seakers.orekit.util.Orbits;
 
@@ -24,6 +22,12 @@ import seakers.orekit.util.Orbits;
  */
 public class ConstellationDeployment {
 
+    /**
+     * The largest launch group for which the minimal deltaV deployment order
+     * is searched exactly
+     */
+    public static final int MAX_EXACT_GROUP_SIZE = 12;
+
     /**
      * Checks to see if a given group of satellites can be deployed together
      * using a space tug that deploys each satellite at their proper orbits. The
@@ -42,61 +46,439 @@ public class ConstellationDeployment {
      * then an empty list is returned
      */
     public static List<SatelliteVariable> deltaVCompatible(Collection<SatelliteVariable> satellites, double deltaVLimit) {
+        return deltaVCompatible(satellites, deltaVLimit, MAX_EXACT_GROUP_SIZE);
+    }
+
+    /**
+     * Checks to see if a given group of satellites can be deployed together
+     * using a space tug. The minimal deltaV order is found exactly with a
+     * branch and bound for groups with up to maxExactSize satellites. Larger
+     * groups use a heuristic that may not find the minimal order and may
+     * therefore reject a group that could be deployed within the limit.
+     *
+     * @param satellites the satellites to be deployed
+     * @param deltaVLimit the limited delta V [m/s]
+     * @param maxExactSize the largest group that is searched exactly
+     * @return a list defining the order in which to deploy the satellites with
+     * a minimal deltaV. If the required deltaV exceeds the specified limit,
+     * then an empty list is returned
+     */
+    public static List<SatelliteVariable> deltaVCompatible(Collection<SatelliteVariable> satellites, double deltaVLimit, int maxExactSize) {
         //handle the trivial case
         if (satellites.size() <= 1) {
             return new ArrayList<>(satellites);
         }
 
+        ArrayList<SatelliteVariable> satList = new ArrayList<>(satellites);
+        int n = satList.size();
+        double[] sma = new double[n];
+        double[] inc = new double[n];
+        double[] raan = new double[n];
+        int[] members = new int[n];
+        for (int i = 0; i < n; i++) {
+            sma[i] = satList.get(i).getSma();
+            inc[i] = satList.get(i).getInc();
+            raan[i] = satList.get(i).getRaan();
+            members[i] = i;
+        }
+
+        int[] order = deltaVCompatible(members, sma, inc, raan,
+                deploymentDVMatrix(satList), deltaVLimit, maxExactSize);
+        ArrayList<SatelliteVariable> minDVOrder = new ArrayList<>(order.length);
+        for (int i : order) {
+            minDVOrder.add(satList.get(i));
+        }
+        return minDVOrder;
+    }
+
+    /**
+     * Checks to see if a group of satellites in a deployment matrix can be
+     * deployed together using a space tug
+     *
+     * @param matrix the deployment matrix
+     * @param members the indices of the satellites to be deployed
+     * @param deltaVLimit the limited delta V [m/s]
+     * @return the indices of the satellites in the order with a minimal
+     * deltaV. If the required deltaV exceeds the specified limit, then an
+     * empty array is returned
+     */
+    public static int[] deltaVCompatible(DeploymentMatrix matrix, int[] members, double deltaVLimit) {
+        return deltaVCompatible(matrix, members, deltaVLimit, MAX_EXACT_GROUP_SIZE);
+    }
+
+    /**
+     * Checks to see if a group of satellites in a deployment matrix can be
+     * deployed together using a space tug. The transfer delta V between the
+     * satellites is looked up in the matrix instead of being recomputed. The
+     * order found is the same as the one found by deltaVCompatible for the
+     * same satellites in the same order.
+     *
+     * @param matrix the deployment matrix
+     * @param members the indices of the satellites to be deployed
+     * @param deltaVLimit the limited delta V [m/s]
+     * @param maxExactSize the largest group that is searched exactly
+     * @return the indices of the satellites in the order with a minimal
+     * deltaV. If the required deltaV exceeds the specified limit, then an
+     * empty array is returned
+     */
+    public static int[] deltaVCompatible(DeploymentMatrix matrix, int[] members, double deltaVLimit, int maxExactSize) {
+        double[] sma = new double[members.length];
+        double[] inc = new double[members.length];
+        double[] raan = new double[members.length];
+        double[][] dv = new double[members.length][members.length];
+        int[] local = new int[members.length];
+        for (int i = 0; i < members.length; i++) {
+            sma[i] = matrix.getSma(members[i]);
+            inc[i] = matrix.getInc(members[i]);
+            raan[i] = matrix.getRaan(members[i]);
+            for (int j = 0; j < members.length; j++) {
+                dv[i][j] = matrix.getDV(members[i], members[j]);
+            }
+            local[i] = i;
+        }
+
+        int[] order = deltaVCompatible(local, sma, inc, raan, dv, deltaVLimit, maxExactSize);
+        for (int i = 0; i < order.length; i++) {
+            order[i] = members[order[i]];
+        }
+        return order;
+    }
+
+    /**
+     * Finds the deployment order with minimal delta v of a group of
+     * satellites given as arrays of their orbital elements
+     *
+     * @param members the indices of the satellites to be deployed
+     * @param sma the semi-major axis [m] of each satellite
+     * @param inc the inclination [rad] of each satellite
+     * @param raan the right ascension of the ascending node [rad] of each
+     * satellite
+     * @param dvMatrix the delta v [m/s] between each pair of satellites
+     * @param deltaVLimit the limited delta V [m/s]
+     * @param maxExactSize the largest group that is searched exactly
+     * @return the indices of the satellites in the order with a minimal
+     * deltaV, or an empty array if the deltaV exceeds the limit
+     */
+    private static int[] deltaVCompatible(int[] members, final double[] sma, final double[] inc,
+            double[] raan, double[][] dvMatrix, double deltaVLimit, int maxExactSize) {
+        //handle the trivial case
+        if (members.length <= 1) {
+            return members.clone();
+        }
+
         //find highest altitude satellite
         double maxSma = Double.NEGATIVE_INFINITY;
-        for (SatelliteVariable sat : satellites) {
-            maxSma = FastMath.max(maxSma, sat.getSma());
+        for (int i : members) {
+            maxSma = FastMath.max(maxSma, sma[i]);
         }
 
         //make a list ascedning in inclination
-        ArrayList<SatelliteVariable> satIncList = new ArrayList<>(satellites);
-        Collections.sort(satIncList, new SatelliteComparator(OrbitalElementEnum.INC));
+        Integer[] satIncList = new Integer[members.length];
+        for (int i = 0; i < members.length; i++) {
+            satIncList[i] = members[i];
+        }
+        Arrays.sort(satIncList, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(inc[o1], inc[o2]);
+            }
+        });
 
         //Find best case deltaV for all the plane changes conducted at highest altitude
         double minDVPlaneChange = 0;
         double vel = Orbits.meanMotion(maxSma) * maxSma;
-        for (int i = 1; i < satIncList.size(); i++) {
-            minDVPlaneChange += DeltaV.simplePlaneChange(vel, satIncList.get(i).getInc() - satIncList.get(i - 1).getInc());
+        for (int i = 1; i < satIncList.length; i++) {
+            minDVPlaneChange += DeltaV.simplePlaneChange(vel, inc[satIncList[i]] - inc[satIncList[i - 1]]);
             if (minDVPlaneChange > deltaVLimit) {
-                return new ArrayList<>();
+                return new int[0];
             }
         }
-        
+
         //if all satellites have same inclination and raan, just order by altitude
         boolean samePlane = true;
-        for(int i=1; i<satIncList.size(); i++){
-            if(!satIncList.get(i).getInc().equals(satIncList.get(0).getInc())
-                    || !satIncList.get(i).getRaan().equals(satIncList.get(0).getRaan())){
+        for (int i = 1; i < satIncList.length; i++) {
+            if (Double.compare(inc[satIncList[i]], inc[satIncList[0]]) != 0
+                    || Double.compare(raan[satIncList[i]], raan[satIncList[0]]) != 0) {
                 samePlane = false;
                 break;
             }
         }
-        if(samePlane){
-            Collections.sort(satIncList, new SatelliteComparator(OrbitalElementEnum.SMA));
-            return satIncList;
+        if (samePlane) {
+            Arrays.sort(satIncList, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Double.compare(sma[o1], sma[o2]);
+                }
+            });
+            int[] order = new int[satIncList.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = satIncList[i];
+            }
+            if (pathDV(dvMatrix, order) > deltaVLimit) {
+                return new int[0];
+            }
+            return order;
         }
 
-        double minDV = Double.POSITIVE_INFINITY;
-        ArrayList<SatelliteVariable> minDVOrder = new ArrayList<>();
-        Collection<int[]> orderings = FullFactorial.ffPermuting(satellites.size());
-        for (int[] permutation : orderings) {
-            ArrayList<SatelliteVariable> order = new ArrayList<>();
-            for (int i = 0; i < satellites.size(); i++) {
-                order.add(satIncList.get(permutation[i]));
+        double[][] dv = new double[satIncList.length][satIncList.length];
+        for (int i = 0; i < satIncList.length; i++) {
+            for (int j = 0; j < satIncList.length; j++) {
+                dv[i][j] = dvMatrix[satIncList[i]][satIncList[j]];
             }
-            double dv = deploymentDV(order);
-            if (dv < minDV) {
-                minDV = dv;
-                minDVOrder = order;
+        }
+        int[] order;
+        if (satIncList.length <= maxExactSize) {
+            order = minDVOrder(dv, deltaVLimit);
+        } else {
+            order = greedyDVOrder(dv, deltaVLimit);
+        }
+        if (order == null) {
+            return new int[0];
+        }
+        for (int i = 0; i < order.length; i++) {
+            order[i] = satIncList[order[i]];
+        }
+        return order;
+    }
+
+    /**
+     * Computes the delta v [m/s] required to transfer a tug between the orbits
+     * of each pair of satellites. Entry [i][j] is the delta v to go from
+     * satellite i to satellite j as computed in deploymentDV
+     *
+     * @param satellites the satellites
+     * @return the matrix of delta v [m/s] between each pair of satellites
+     */
+    public static double[][] deploymentDVMatrix(List<SatelliteVariable> satellites) {
+        int n = satellites.size();
+        double[][] dv = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            double sma1 = satellites.get(i).getSma();
+            double inc1 = satellites.get(i).getInc();
+            double vel1 = Orbits.circularOrbitVelocity(sma1);
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
+                    continue;
+                }
+                double sma2 = satellites.get(j).getSma();
+                double inc2 = satellites.get(j).getInc();
+                dv[i][j] = DeltaV.combinedPlaneChange(vel1,
+                        vel1 + DeltaV.hohmannFirstBurn(sma1, sma2),
+                        FastMath.toRadians(inc1 - inc2))
+                        + DeltaV.hohmannSecondBurn(sma1, sma2);
             }
         }
+        return dv;
+    }
 
-        return minDVOrder;
+    /**
+     * Finds the deployment order with the minimal delta v by a depth-first
+     * branch and bound. Orderings are explored in the same order as
+     * FullFactorial.ffPermuting and only strict improvements are kept, so the
+     * order found is the same as the one found by enumerating all
+     * permutations. Partial orders are pruned once their delta v, plus a lower
+     * bound on the delta v to deploy the remaining satellites, exceeds the
+     * delta v limit or cannot improve on the best order found so far.
+     *
+     * @param dv the matrix of delta v [m/s] between each pair of satellites
+     * @param deltaVLimit the limited delta V [m/s]
+     * @return the indices of the satellites in the order with minimal delta v,
+     * or null if no order is within the delta v limit
+     */
+    private static int[] minDVOrder(double[][] dv, double deltaVLimit) {
+        int n = dv.length;
+
+        //cheapest way to arrive at each satellite
+        double[] minIn = new double[n];
+        for (int j = 0; j < n; j++) {
+            minIn[j] = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (i != j) {
+                    minIn[j] = FastMath.min(minIn[j], dv[i][j]);
+                }
+            }
+        }
+
+        BranchAndBound search = new BranchAndBound(dv, minIn, deltaVLimit);
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+        search.permute(perm, 0, 0.0);
+        return search.bestOrder;
+    }
+
+    /**
+     * Depth-first branch and bound over the swap-based permutation order used
+     * by FullFactorial.ffPermuting
+     */
+    private static class BranchAndBound {
+
+        /**
+         * Relative slack applied to the lower bound so that rounding in the
+         * bound never prunes an order that would have been selected
+         */
+        private static final double BOUND_SLACK = 1e-9;
+
+        private final double[][] dv;
+
+        private final double[] minIn;
+
+        private final double deltaVLimit;
+
+        private double bestDV;
+
+        private int[] bestOrder;
+
+        BranchAndBound(double[][] dv, double[] minIn, double deltaVLimit) {
+            this.dv = dv;
+            this.minIn = minIn;
+            this.deltaVLimit = deltaVLimit;
+            this.bestDV = Double.POSITIVE_INFINITY;
+            this.bestOrder = null;
+        }
+
+        /**
+         * Extends the partial order fixed in positions 0 to l-1
+         *
+         * @param perm the permutation being built
+         * @param l the first position that is not yet fixed
+         * @param partialDV the delta v [m/s] to deploy the satellites in
+         * positions 0 to l-1
+         */
+        void permute(int[] perm, int l, double partialDV) {
+            int r = perm.length - 1;
+            for (int i = l; i <= r; i++) {
+                swap(perm, l, i);
+                double extended = l == 0 ? partialDV : partialDV + dv[perm[l - 1]][perm[l]];
+                if (l == r) {
+                    if (extended < bestDV && extended <= deltaVLimit) {
+                        bestDV = extended;
+                        bestOrder = perm.clone();
+                    }
+                } else {
+                    double bound = 0;
+                    for (int j = l + 1; j <= r; j++) {
+                        bound += minIn[perm[j]];
+                    }
+                    bound = extended + bound * (1. - BOUND_SLACK);
+                    if (bound < bestDV && bound <= deltaVLimit) {
+                        permute(perm, l + 1, extended);
+                    }
+                }
+                swap(perm, l, i);
+            }
+        }
+
+        private static void swap(int[] perm, int i, int j) {
+            int temp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = temp;
+        }
+    }
+
+    /**
+     * Finds a deployment order with a low delta v for groups too large to
+     * search exhaustively. A nearest neighbor order is built from each
+     * starting satellite and improved by moving single satellites to other
+     * positions until no move reduces the delta v. The result is not
+     * guaranteed to be minimal.
+     *
+     * @param dv the matrix of delta v [m/s] between each pair of satellites
+     * @param deltaVLimit the limited delta V [m/s]
+     * @return the indices of the satellites in the order found, or null if
+     * the order found is not within the delta v limit
+     */
+    private static int[] greedyDVOrder(double[][] dv, double deltaVLimit) {
+        int n = dv.length;
+        int[] bestOrder = null;
+        double bestDV = Double.POSITIVE_INFINITY;
+        for (int start = 0; start < n; start++) {
+            //nearest neighbor
+            int[] order = new int[n];
+            boolean[] used = new boolean[n];
+            order[0] = start;
+            used[start] = true;
+            for (int k = 1; k < n; k++) {
+                int next = -1;
+                for (int j = 0; j < n; j++) {
+                    if (!used[j] && (next < 0 || dv[order[k - 1]][j] < dv[order[k - 1]][next])) {
+                        next = j;
+                    }
+                }
+                order[k] = next;
+                used[next] = true;
+            }
+
+            //relocate single satellites while it improves the order
+            double orderDV = pathDV(dv, order);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int from = 0; from < n && !improved; from++) {
+                    for (int to = 0; to < n && !improved; to++) {
+                        if (from == to) {
+                            continue;
+                        }
+                        int[] candidate = relocate(order, from, to);
+                        double candidateDV = pathDV(dv, candidate);
+                        if (candidateDV < orderDV) {
+                            order = candidate;
+                            orderDV = candidateDV;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+
+            if (orderDV < bestDV) {
+                bestDV = orderDV;
+                bestOrder = order;
+            }
+        }
+        return bestDV <= deltaVLimit ? bestOrder : null;
+    }
+
+    /**
+     * Moves the element at one position of an order to another position
+     *
+     * @param order the order
+     * @param from the position of the element to move
+     * @param to the new position of the element
+     * @return a new order with the element moved
+     */
+    private static int[] relocate(int[] order, int from, int to) {
+        int[] out = new int[order.length];
+        int moved = order[from];
+        int k = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i == from) {
+                continue;
+            }
+            if (k == to) {
+                out[k++] = moved;
+            }
+            out[k++] = order[i];
+        }
+        if (k == to) {
+            out[k] = moved;
+        }
+        return out;
+    }
+
+    /**
+     * Computes the delta v of deploying satellites in the given order
+     *
+     * @param dv the matrix of delta v [m/s] between each pair of satellites
+     * @param order the indices of the satellites in deployment order
+     * @return the delta v [m/s] of deploying satellites in the given order
+     */
+    private static double pathDV(double[][] dv, int[] order) {
+        double sum = 0;
+        for (int i = 1; i < order.length; i++) {
+            sum += dv[order[i - 1]][order[i]];
+        }
+        return sum;
     }
 
     /**
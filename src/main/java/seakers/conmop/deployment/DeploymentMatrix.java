@@ -0,0 +1,232 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.hipparchus.util.FastMath;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.util.Orbits;
+
+/**
+ * The pairwise deployment properties of the satellites in a constellation. The
+ * delta V to transfer a tug between each pair of satellites and whether each
+ * pair of satellites is RAAN compatible are computed once when the matrix is
+ * created, so that deployment routines that check many groups of the same
+ * satellites look them up instead of recomputing them. The orbital elements
+ * are copied when the matrix is created, so the matrix must be recreated if
+ * the satellites are modified.
+ *
+ * @author nhitomi
+ */
+public class DeploymentMatrix {
+
+    /**
+     * The satellites in the order they are indexed in the matrix
+     */
+    private final List<SatelliteVariable> satellites;
+
+    /**
+     * The semi-major axis [m] of each satellite
+     */
+    private final double[] sma;
+
+    /**
+     * The inclination [rad] of each satellite
+     */
+    private final double[] inc;
+
+    /**
+     * The right ascension of the ascending node [rad] of each satellite
+     */
+    private final double[] raan;
+
+    /**
+     * Entry [i][j] is the delta V [m/s] to transfer a tug from satellite i to
+     * satellite j
+     */
+    private final double[][] dv;
+
+    /**
+     * Bit j of entry i is set if satellites i and j are RAAN compatible
+     */
+    private final BitSet[] raanCompatible;
+
+    /**
+     * The time limit [s] for right ascensions to line up of any two orbital
+     * planes
+     */
+    private final double raanTimeLimit;
+
+    /**
+     * Creates the deployment matrix of the given satellites
+     *
+     * @param satellites the satellites
+     * @param raanTimeLimit the time limit [s] for right ascensions to line up
+     * of any two orbital planes
+     */
+    public DeploymentMatrix(List<SatelliteVariable> satellites, double raanTimeLimit) {
+        int n = satellites.size();
+        this.satellites = Collections.unmodifiableList(new ArrayList<>(satellites));
+        this.raanTimeLimit = raanTimeLimit;
+        this.sma = new double[n];
+        this.inc = new double[n];
+        this.raan = new double[n];
+        double[] precession = new double[n];
+        for (int i = 0; i < n; i++) {
+            SatelliteVariable sat = this.satellites.get(i);
+            sma[i] = sat.getSma();
+            inc[i] = sat.getInc();
+            raan[i] = sat.getRaan();
+            precession[i] = Orbits.nodalPrecession(sat.getSma(), sat.getEcc(), sat.getInc());
+        }
+
+        this.dv = ConstellationDeployment.deploymentDVMatrix(this.satellites);
+
+        //same test as ConstellationDeployment.raanCompatitble
+        this.raanCompatible = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            raanCompatible[i] = new BitSet(n);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                double deltaRaan = FastMath.abs(raan[i] - raan[j]);
+                double relativePrecessionRate = FastMath.abs(precession[i] - precession[j]);
+                if (deltaRaan <= relativePrecessionRate * raanTimeLimit) {
+                    raanCompatible[i].set(j);
+                    raanCompatible[j].set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of satellites in the matrix
+     *
+     * @return the number of satellites in the matrix
+     */
+    public int size() {
+        return satellites.size();
+    }
+
+    /**
+     * Gets the satellites in the order they are indexed in the matrix
+     *
+     * @return the satellites in the order they are indexed in the matrix
+     */
+    public List<SatelliteVariable> getSatellites() {
+        return satellites;
+    }
+
+    /**
+     * Gets the satellite at the given index
+     *
+     * @param i the index of the satellite
+     * @return the satellite at the given index
+     */
+    public SatelliteVariable getSatellite(int i) {
+        return satellites.get(i);
+    }
+
+    /**
+     * Gets the semi-major axis [m] of a satellite when the matrix was created
+     *
+     * @param i the index of the satellite
+     * @return the semi-major axis [m] of the satellite
+     */
+    public double getSma(int i) {
+        return sma[i];
+    }
+
+    /**
+     * Gets the inclination [rad] of a satellite when the matrix was created
+     *
+     * @param i the index of the satellite
+     * @return the inclination [rad] of the satellite
+     */
+    public double getInc(int i) {
+        return inc[i];
+    }
+
+    /**
+     * Gets the right ascension of the ascending node [rad] of a satellite when
+     * the matrix was created
+     *
+     * @param i the index of the satellite
+     * @return the right ascension of the ascending node [rad] of the satellite
+     */
+    public double getRaan(int i) {
+        return raan[i];
+    }
+
+    /**
+     * Gets the delta V [m/s] to transfer a tug from one satellite to another
+     * as computed in ConstellationDeployment.deploymentDV
+     *
+     * @param i the index of the satellite the tug departs from
+     * @param j the index of the satellite the tug arrives at
+     * @return the delta V [m/s] to transfer a tug from satellite i to j
+     */
+    public double getDV(int i, int j) {
+        return dv[i][j];
+    }
+
+    /**
+     * Computes the delta V [m/s] to deploy satellites in the given order with
+     * a single tug. The result is the same as
+     * ConstellationDeployment.deploymentDV of the same satellites
+     *
+     * @param order the indices of the satellites in deployment order
+     * @return the required deltaV [m/s]
+     */
+    public double deploymentDV(int[] order) {
+        double deltaV = 0;
+        for (int i = 1; i < order.length; i++) {
+            deltaV += dv[order[i - 1]][order[i]];
+        }
+        return deltaV;
+    }
+
+    /**
+     * Checks if two satellites are RAAN compatible as defined by
+     * ConstellationDeployment.raanCompatitble
+     *
+     * @param i the index of a satellite
+     * @param j the index of another satellite
+     * @return true if the two satellites are RAAN compatible
+     */
+    public boolean isRaanCompatible(int i, int j) {
+        return raanCompatible[i].get(j);
+    }
+
+    /**
+     * Checks if a satellite is RAAN compatible with every satellite in a
+     * group
+     *
+     * @param i the index of the satellite
+     * @param group the indices of the satellites in the group
+     * @return true if the satellite is RAAN compatible with every satellite in
+     * the group
+     */
+    public boolean isRaanCompatible(int i, BitSet group) {
+        BitSet incompatible = (BitSet) group.clone();
+        incompatible.andNot(raanCompatible[i]);
+        return incompatible.isEmpty();
+    }
+
+    /**
+     * Gets the time limit [s] for right ascensions to line up that was used
+     * to check RAAN compatibility
+     *
+     * @return the time limit [s] for right ascensions to line up
+     */
+    public double getRaanTimeLimit() {
+        return raanTimeLimit;
+    }
+
+}
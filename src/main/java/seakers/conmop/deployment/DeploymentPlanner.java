@@ -0,0 +1,505 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.deployment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hipparchus.util.FastMath;
+import org.moeaframework.util.Vector;
+import seakers.conmop.launch.DeltaV;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.util.Orbits;
+
+/**
+ * Finds the deployment strategy that uses the fewest launches and, among
+ * those, the least total delta V. Satellites that share the same inclination
+ * and right ascension of the ascending node are launched together if there
+ * are more than five of them and they can be deployed by one tug. The
+ * remaining satellites are partitioned into launch groups by a depth-first
+ * search that assigns one satellite at a time to an existing group or to a
+ * new group. A group is only extended if the new satellite is RAAN compatible
+ * with every member and the extended group can be deployed within the tug
+ * delta V limit, so the search visits the same feasible partitions as an
+ * exhaustive enumeration. The feasibility and best deployment order of each
+ * group are memoized by the set of satellites in the group, and branches that
+ * cannot beat the best strategy found so far in the number of launches or
+ * total delta V are pruned. The transfer delta V and RAAN compatibility of
+ * each pair of satellites are looked up in a DeploymentMatrix.
+ *
+ * @author nhitomi
+ */
+public class DeploymentPlanner {
+
+    /**
+     * Groups of satellites in the same plane that are larger than this are
+     * considered for launch as a whole before the partition search
+     */
+    private static final int LARGE_GROUP_SIZE = 5;
+
+    /**
+     * The largest number of satellites that can be partitioned by the search
+     */
+    private static final int MAX_PARTITIONED_SATELLITES = 63;
+
+    /**
+     * Relative slack applied to the lower bound so that rounding in the bound
+     * never prunes a strategy that would have been selected
+     */
+    private static final double BOUND_SLACK = 1e-9;
+
+    /**
+     * The time limit [s] for right ascensions to line up of any two orbital
+     * planes
+     */
+    private final double raanTimeLimit;
+
+    /**
+     * The delta V [m/s] for deploying multiple satellites with one space tug
+     */
+    private final double tugDvLimit;
+
+    /**
+     * The latitude [rad] of the launch site
+     */
+    private final double launchLatitude;
+
+    /**
+     * Creates a new deployment planner
+     *
+     * @param raanTimeLimit the time limit [s] for right ascensions to line up
+     * of any two orbital planes
+     * @param tugDvLimit the delta V [m/s] for deploying multiple satellites
+     * with one space tug
+     * @param launchLatitude the latitude [rad] of the launch site
+     */
+    public DeploymentPlanner(double raanTimeLimit, double tugDvLimit, double launchLatitude) {
+        this.raanTimeLimit = raanTimeLimit;
+        this.tugDvLimit = tugDvLimit;
+        this.launchLatitude = launchLatitude;
+    }
+
+    /**
+     * Finds the deployment strategy with the fewest launches and the least
+     * total delta V for the given satellites
+     *
+     * @param satellites the satellites to deploy
+     * @return the deployment strategy with the fewest launches and the least
+     * total delta V
+     */
+    public DeploymentStrategy plan(Collection<SatelliteVariable> satellites) {
+        return plan(new DeploymentMatrix(new ArrayList<>(satellites), raanTimeLimit));
+    }
+
+    /**
+     * Plans the deployment of some satellites while keeping the installments
+     * of the other satellites. A kept installment with a satellite that is
+     * RAAN compatible with one of the satellites to plan is planned again with
+     * them, since they may be launched together, and so on for the kept
+     * installments that are RAAN compatible with those. Launch groups never
+     * span satellites that are not connected by RAAN compatibility, so if the
+     * kept installments were planned with the fewest launches and the least
+     * total delta V, the result uses as many launches and as much delta V as
+     * a strategy planned from scratch.
+     *
+     * @param installments the installments to keep
+     * @param satellites the satellites to deploy that are not in any of the
+     * kept installments
+     * @return the deployment strategy made of the kept installments and the
+     * installments with the fewest launches and the least total delta V for
+     * the affected satellites
+     */
+    public DeploymentStrategy replan(Collection<Installment> installments, Collection<SatelliteVariable> satellites) {
+        if (satellites.isEmpty()) {
+            return new DeploymentStrategy(new ArrayList<>(installments));
+        }
+
+        //index the satellites to plan first and then the kept installments
+        ArrayList<Installment> kept = new ArrayList<>(installments);
+        ArrayList<SatelliteVariable> all = new ArrayList<>(satellites);
+        int[] firstIndex = new int[kept.size() + 1];
+        for (int k = 0; k < kept.size(); k++) {
+            firstIndex[k] = all.size();
+            all.addAll(kept.get(k).getSatellites());
+        }
+        firstIndex[kept.size()] = all.size();
+        DeploymentMatrix matrix = new DeploymentMatrix(all, raanTimeLimit);
+
+        //grow the affected satellites with every kept installment that is
+        //RAAN compatible with one of them
+        ArrayList<SatelliteVariable> affected = new ArrayList<>(satellites);
+        boolean[] replanned = new boolean[kept.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < satellites.size(); i++) {
+            queue.add(i);
+        }
+        while (!queue.isEmpty()) {
+            int i = queue.poll();
+            for (int k = 0; k < kept.size(); k++) {
+                if (replanned[k]) {
+                    continue;
+                }
+                for (int j = firstIndex[k]; j < firstIndex[k + 1]; j++) {
+                    if (matrix.isRaanCompatible(i, j)) {
+                        replanned[k] = true;
+                        affected.addAll(kept.get(k).getSatellites());
+                        for (int m = firstIndex[k]; m < firstIndex[k + 1]; m++) {
+                            queue.add(m);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        ArrayList<Installment> deployment = new ArrayList<>();
+        for (int k = 0; k < kept.size(); k++) {
+            if (!replanned[k]) {
+                deployment.add(kept.get(k));
+            }
+        }
+        deployment.addAll(plan(affected).getInstallments());
+        return new DeploymentStrategy(deployment);
+    }
+
+    /**
+     * Finds the deployment strategy with the fewest launches and the least
+     * total delta V for the satellites in a deployment matrix. The matrix must
+     * have been created with the same RAAN time limit as this planner.
+     *
+     * @param matrix the deployment matrix of the satellites to deploy
+     * @return the deployment strategy with the fewest launches and the least
+     * total delta V
+     */
+    public DeploymentStrategy plan(DeploymentMatrix matrix) {
+        if (matrix.getRaanTimeLimit() != raanTimeLimit) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected a deployment matrix with a RAAN time limit of %f s. Found %f s",
+                    raanTimeLimit, matrix.getRaanTimeLimit()));
+        }
+
+        //check inclinations and raan first
+        Map<Double, Map<Double, List<Integer>>> map = new HashMap<>();
+        for (int i = 0; i < matrix.size(); i++) {
+            Double inc = matrix.getInc(i);
+            Double raan = matrix.getRaan(i);
+            if (!map.containsKey(inc)) {
+                map.put(inc, new HashMap<>());
+            }
+            if (!map.get(inc).containsKey(raan)) {
+                map.get(inc).put(raan, new ArrayList<>());
+            }
+            map.get(inc).get(raan).add(i);
+        }
+
+        //launch the large groups together if they can be deployed by one tug
+        ArrayList<Integer> unassignedSats = new ArrayList<>();
+        ArrayList<Installment> largeDeployments = new ArrayList<>();
+        for (Map<Double, List<Integer>> raanMap : map.values()) {
+            for (List<Integer> satGroup : raanMap.values()) {
+                if (satGroup.size() <= LARGE_GROUP_SIZE) {
+                    unassignedSats.addAll(satGroup);
+                    continue;
+                }
+                boolean meetsConstraints = true;
+                for (int i = 1; i < satGroup.size(); i++) {
+                    if (!matrix.isRaanCompatible(satGroup.get(i - 1), satGroup.get(i))) {
+                        meetsConstraints = false;
+                        break;
+                    }
+                }
+                int[] members = new int[satGroup.size()];
+                for (int i = 0; i < members.length; i++) {
+                    members[i] = satGroup.get(i);
+                }
+                int[] bestOrder = ConstellationDeployment.deltaVCompatible(matrix, members, tugDvLimit);
+                if (meetsConstraints && bestOrder.length > 0) {
+                    largeDeployments.add(new Installment(satellites(matrix, bestOrder),
+                            launchDV(matrix.getSatellite(bestOrder[0])),
+                            matrix.deploymentDV(bestOrder)));
+                } else {
+                    unassignedSats.addAll(satGroup);
+                }
+            }
+        }
+
+        //find assignments for the other satellites
+        ArrayList<Installment> deployment = new ArrayList<>();
+        if (!unassignedSats.isEmpty()) {
+            if (unassignedSats.size() > MAX_PARTITIONED_SATELLITES) {
+                throw new IllegalArgumentException(String.format(
+                        "Expected at most %d satellites to partition. Found %d",
+                        MAX_PARTITIONED_SATELLITES, unassignedSats.size()));
+            }
+            PartitionSearch search = new PartitionSearch(matrix, unassignedSats);
+            search.assign(0, 0);
+            if (search.bestGroups == null) {
+                throw new IllegalStateException("No deployment strategy found!");
+            }
+            for (int g = 0; g < search.bestGroups.length; g++) {
+                GroupPlan plan = search.memo.get(search.bestGroups[g]);
+                deployment.add(new Installment(satellites(matrix, plan.order), plan.launchDV, plan.tugDV));
+            }
+        }
+        deployment.addAll(largeDeployments);
+
+        if (deployment.isEmpty()) {
+            throw new IllegalStateException("No deployment strategy found!");
+        }
+        return new DeploymentStrategy(deployment);
+    }
+
+    /**
+     * Gets the satellites at the given indices of a deployment matrix
+     *
+     * @param matrix the deployment matrix
+     * @param indices the indices of the satellites
+     * @return the satellites at the given indices
+     */
+    private static List<SatelliteVariable> satellites(DeploymentMatrix matrix, int[] indices) {
+        ArrayList<SatelliteVariable> out = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            out.add(matrix.getSatellite(i));
+        }
+        return out;
+    }
+
+    /**
+     * Computes the launch delta V [m/s] to insert the first satellite of a
+     * launch group into its orbit
+     *
+     * @param first the first satellite deployed from the launch group
+     * @return the launch delta V [m/s]
+     */
+    private double launchDV(SatelliteVariable first) {
+        double[][] v = DeltaV.launch(first.getInc(),
+                launchLatitude,
+                Orbits.circularOrbitVelocity(first.getSma()),
+                0.0);
+        return FastMath.min(Vector.magnitude(v[0]), Vector.magnitude(v[1]));
+    }
+
+    /**
+     * The deployment of one launch group
+     */
+    private static class GroupPlan {
+
+        /**
+         * The indices of the satellites in the deployment matrix in the order
+         * with minimal tug delta V. Null if the group cannot be deployed
+         * together
+         */
+        private final int[] order;
+
+        /**
+         * The launch delta V [m/s] of the group
+         */
+        private final double launchDV;
+
+        /**
+         * The tug delta V [m/s] of the group
+         */
+        private final double tugDV;
+
+        GroupPlan(int[] order, double launchDV, double tugDV) {
+            this.order = order;
+            this.launchDV = launchDV;
+            this.tugDV = tugDV;
+        }
+    }
+
+    /**
+     * Depth-first search over the partitions of the satellites into launch
+     * groups. Each group is identified by a bitmask of the indices of its
+     * satellites.
+     */
+    private class PartitionSearch {
+
+        private final DeploymentMatrix matrix;
+
+        /**
+         * The indices in the deployment matrix of the satellites to partition
+         */
+        private final int[] sats;
+
+        /**
+         * The launch delta V [m/s] if each satellite is deployed first
+         */
+        private final double[] firstLaunchDV;
+
+        /**
+         * The smallest launch delta V [m/s] of the satellites at index k and
+         * above
+         */
+        private final double[] suffixMinLaunchDV;
+
+        /**
+         * The memoized deployment of each group that has been checked
+         */
+        private final HashMap<Long, GroupPlan> memo;
+
+        /**
+         * The groups of the current partial assignment
+         */
+        private final long[] groups;
+
+        /**
+         * The smallest launch delta V [m/s] of the members of each group of
+         * the current partial assignment
+         */
+        private final double[] groupMinLaunchDV;
+
+        private long[] bestGroups;
+
+        private double bestDV;
+
+        PartitionSearch(DeploymentMatrix matrix, List<Integer> sats) {
+            int n = sats.size();
+            this.matrix = matrix;
+            this.sats = new int[n];
+            this.firstLaunchDV = new double[n];
+            this.suffixMinLaunchDV = new double[n + 1];
+            for (int i = 0; i < n; i++) {
+                this.sats[i] = sats.get(i);
+                firstLaunchDV[i] = launchDV(matrix.getSatellite(sats.get(i)));
+            }
+            suffixMinLaunchDV[n] = Double.POSITIVE_INFINITY;
+            for (int i = n - 1; i >= 0; i--) {
+                suffixMinLaunchDV[i] = FastMath.min(firstLaunchDV[i], suffixMinLaunchDV[i + 1]);
+            }
+            this.memo = new HashMap<>();
+            this.groups = new long[n];
+            this.groupMinLaunchDV = new double[n];
+            this.bestGroups = null;
+            this.bestDV = Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Assigns the satellite at index k and all satellites after it
+         *
+         * @param k the index of the next satellite to assign
+         * @param nGroups the number of groups in the current partial
+         * assignment
+         */
+        void assign(int k, int nGroups) {
+            if (k == sats.length) {
+                double dv = 0;
+                for (int g = 0; g < nGroups; g++) {
+                    GroupPlan plan = memo.get(groups[g]);
+                    dv += plan.launchDV + plan.tugDV;
+                }
+                if (bestGroups == null || nGroups < bestGroups.length
+                        || (nGroups == bestGroups.length && dv < bestDV)) {
+                    bestGroups = Arrays.copyOf(groups, nGroups);
+                    bestDV = dv;
+                }
+                return;
+            }
+
+            //add the satellite to an existing group
+            long bit = 1L << k;
+            for (int g = 0; g < nGroups; g++) {
+                if (!canJoin(k, groups[g])) {
+                    continue;
+                }
+                long prevGroup = groups[g];
+                double prevMin = groupMinLaunchDV[g];
+                groups[g] = prevGroup | bit;
+                groupMinLaunchDV[g] = FastMath.min(prevMin, firstLaunchDV[k]);
+                if (!prune(k + 1, nGroups)) {
+                    assign(k + 1, nGroups);
+                }
+                groups[g] = prevGroup;
+                groupMinLaunchDV[g] = prevMin;
+            }
+
+            //open a new group with the satellite
+            if (bestGroups == null || nGroups + 1 <= bestGroups.length) {
+                groups[nGroups] = bit;
+                groupMinLaunchDV[nGroups] = firstLaunchDV[k];
+                if (!memo.containsKey(bit)) {
+                    memo.put(bit, plan(bit));
+                }
+                if (!prune(k + 1, nGroups + 1)) {
+                    assign(k + 1, nGroups + 1);
+                }
+            }
+        }
+
+        /**
+         * Checks if the satellite at index k can join a group
+         *
+         * @param k the index of the satellite
+         * @param group the group
+         * @return true if the satellite is RAAN compatible with every member
+         * and the extended group can be deployed by one tug
+         */
+        private boolean canJoin(int k, long group) {
+            for (int i = 0; i < k; i++) {
+                if ((group & (1L << i)) != 0 && !matrix.isRaanCompatible(sats[k], sats[i])) {
+                    return false;
+                }
+            }
+            long extended = group | (1L << k);
+            GroupPlan plan = memo.get(extended);
+            if (plan == null) {
+                plan = plan(extended);
+                memo.put(extended, plan);
+            }
+            return plan.order != null;
+        }
+
+        /**
+         * Checks if a partial assignment cannot improve on the best strategy.
+         * The final group of every current group contains one of its members
+         * or one of the unassigned satellites, so the launch delta V of each
+         * group is at least the smallest of their launch delta V.
+         *
+         * @param k the index of the next satellite to assign
+         * @param nGroups the number of groups in the partial assignment
+         * @return true if the partial assignment can be pruned
+         */
+        private boolean prune(int k, int nGroups) {
+            if (bestGroups == null || nGroups < bestGroups.length) {
+                return false;
+            }
+            if (nGroups > bestGroups.length) {
+                return true;
+            }
+            double bound = 0;
+            for (int g = 0; g < nGroups; g++) {
+                bound += FastMath.min(groupMinLaunchDV[g], suffixMinLaunchDV[k]);
+            }
+            return bound * (1. - BOUND_SLACK) >= bestDV;
+        }
+
+        /**
+         * Finds the deployment of a group
+         *
+         * @param group the group
+         * @return the deployment of the group
+         */
+        private GroupPlan plan(long group) {
+            int[] members = new int[Long.bitCount(group)];
+            int m = 0;
+            for (int i = 0; i < sats.length; i++) {
+                if ((group & (1L << i)) != 0) {
+                    members[m++] = sats[i];
+                }
+            }
+            int[] bestOrder = ConstellationDeployment.deltaVCompatible(matrix, members, tugDvLimit);
+            if (bestOrder.length == 0) {
+                return new GroupPlan(null, Double.NaN, Double.NaN);
+            }
+            return new GroupPlan(bestOrder, launchDV(matrix.getSatellite(bestOrder[0])),
+                    matrix.deploymentDV(bestOrder));
+        }
+    }
+}
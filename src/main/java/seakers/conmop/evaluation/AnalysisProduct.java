@@ -0,0 +1,32 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+/**
+ * The analysis products that metrics of a constellation can be computed from.
+ * An evaluation only computes the products that its metrics need, and each
+ * product is computed once no matter how many metrics use it.
+ *
+ * @author nhitomi
+ */
+public enum AnalysisProduct {
+
+    /**
+     * The accesses of the constellation to the points of interest. Available
+     * at the screening fidelity
+     */
+    COVERAGE,
+    /**
+     * The accesses of each satellite to the ground stations. Not available at
+     * the screening fidelity
+     */
+    GROUND_STATIONS,
+    /**
+     * The deployment strategy of the constellation
+     */
+    DEPLOYMENT;
+
+}
@@ -0,0 +1,136 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import org.hipparchus.util.FastMath;
+import org.hipparchus.util.MathUtils;
+import seakers.conmop.variable.SatelliteVariable;
+
+/**
+ * A canonical fingerprint of a constellation. Each orbital element of each
+ * satellite is quantized to a tolerance and the satellites are sorted, so two
+ * constellations that contain the same satellites within the tolerance have
+ * equal fingerprints regardless of the order of their satellites. The
+ * argument of perigee, right ascension of the ascending node and true anomaly
+ * are normalized to [0, 2pi) and quantized around the circle, so angles just
+ * below 2pi and just above 0 fall into the same bucket.
+ *
+ * @author nhitomi
+ */
+public class ConstellationFingerprint {
+
+    /**
+     * The number of quantized elements stored per satellite
+     */
+    private static final int N_ELEMENTS = 6;
+
+    /**
+     * The quantized orbital elements of the satellites in canonical order
+     */
+    private final long[] elements;
+
+    /**
+     * The hash code of the quantized elements
+     */
+    private final int hash;
+
+    /**
+     * Creates a fingerprint of the given satellites
+     *
+     * @param satellites the satellites in the constellation
+     * @param smaTolerance the tolerance [m] on the semi-major axis
+     * @param eccTolerance the tolerance on the eccentricity
+     * @param angleTolerance the tolerance [rad] on the inclination, argument of
+     * perigee, right ascension of the ascending node, and true anomaly
+     */
+    public ConstellationFingerprint(Collection<SatelliteVariable> satellites,
+            double smaTolerance, double eccTolerance, double angleTolerance) {
+        long[][] sats = new long[satellites.size()][];
+        int i = 0;
+        for (SatelliteVariable sat : satellites) {
+            sats[i] = new long[]{
+                quantize(sat.getSma(), smaTolerance),
+                quantize(sat.getEcc(), eccTolerance),
+                quantize(sat.getInc(), angleTolerance),
+                quantizeAngle(sat.getArgPer(), angleTolerance),
+                quantizeAngle(sat.getRaan(), angleTolerance),
+                quantizeAngle(sat.getTrueAnomaly(), angleTolerance)};
+            i++;
+        }
+        Arrays.sort(sats, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] o1, long[] o2) {
+                for (int j = 0; j < N_ELEMENTS; j++) {
+                    int c = Long.compare(o1[j], o2[j]);
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return 0;
+            }
+        });
+
+        this.elements = new long[sats.length * N_ELEMENTS];
+        for (int j = 0; j < sats.length; j++) {
+            System.arraycopy(sats[j], 0, elements, j * N_ELEMENTS, N_ELEMENTS);
+        }
+        this.hash = Arrays.hashCode(elements);
+    }
+
+    private static long quantize(double value, double tolerance) {
+        return Math.round(value / tolerance);
+    }
+
+    /**
+     * Quantizes an angle that wraps around at 2pi. The bucket at 2pi is the
+     * same as the bucket at 0.
+     *
+     * @param value the angle [rad]
+     * @param tolerance the tolerance [rad]
+     * @return the bucket of the angle
+     */
+    private static long quantizeAngle(double value, double tolerance) {
+        long buckets = Math.round(MathUtils.TWO_PI / tolerance);
+        long bucket = quantize(MathUtils.normalizeAngle(value, FastMath.PI), tolerance);
+        return buckets > 0 ? Math.floorMod(bucket, buckets) : bucket;
+    }
+
+    /**
+     * Gets the number of satellites in the fingerprinted constellation
+     *
+     * @return the number of satellites in the fingerprinted constellation
+     */
+    public int getNumberOfSatellites() {
+        return elements.length / N_ELEMENTS;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final ConstellationFingerprint other = (ConstellationFingerprint) obj;
+        if (this.hash != other.hash) {
+            return false;
+        }
+        return Arrays.equals(this.elements, other.elements);
+    }
+
+}
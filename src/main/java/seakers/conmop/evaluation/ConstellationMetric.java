@@ -0,0 +1,35 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.Set;
+
+/**
+ * A value computed from the analysis products of a constellation, used as an
+ * objective or as a constraint. Metrics are created by the MetricRegistry
+ * from the problem properties.
+ *
+ * @author nhitomi
+ */
+public interface ConstellationMetric {
+
+    /**
+     * Gets the analysis products this metric is computed from
+     *
+     * @return the analysis products this metric is computed from
+     */
+    public Set<AnalysisProduct> getProducts();
+
+    /**
+     * Computes the metric. Only the products returned by getProducts are
+     * guaranteed to be available.
+     *
+     * @param products the analysis products of the constellation
+     * @return the value of the metric
+     */
+    public double evaluate(EvaluationProducts products);
+
+}
@@ -0,0 +1,142 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of objective values keyed on constellation fingerprints.
+ * When the cache is full, the least recently used entry is evicted. The cache
+ * is safe to use from multiple threads.
+ *
+ * @author nhitomi
+ */
+public class EvaluationCache {
+
+    /**
+     * The maximum number of entries stored in the cache
+     */
+    private final int capacity;
+
+    /**
+     * The cached objectives in least recently used order
+     */
+    private final LinkedHashMap<ConstellationFingerprint, double[]> map;
+
+    /**
+     * The number of lookups that found an entry
+     */
+    private long hits;
+
+    /**
+     * The number of lookups that did not find an entry
+     */
+    private long misses;
+
+    /**
+     * Creates a new cache
+     *
+     * @param capacity the maximum number of entries stored in the cache
+     */
+    public EvaluationCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a positive cache capacity. Found %d", capacity));
+        }
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<ConstellationFingerprint, double[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2154335462547166428L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ConstellationFingerprint, double[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Gets the objectives stored for the given fingerprint
+     *
+     * @param fingerprint the fingerprint of the constellation
+     * @return a copy of the stored objectives or null if no objectives are
+     * stored for the given fingerprint
+     */
+    public synchronized double[] get(ConstellationFingerprint fingerprint) {
+        double[] objectives = map.get(fingerprint);
+        if (objectives == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return objectives.clone();
+    }
+
+    /**
+     * Stores the objectives for the given fingerprint
+     *
+     * @param fingerprint the fingerprint of the constellation
+     * @param objectives the objectives of the constellation
+     */
+    public synchronized void put(ConstellationFingerprint fingerprint, double[] objectives) {
+        map.put(fingerprint, objectives.clone());
+    }
+
+    /**
+     * Gets the number of lookups that found an entry
+     *
+     * @return the number of lookups that found an entry
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that did not find an entry
+     *
+     * @return the number of lookups that did not find an entry
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the fraction of lookups that found an entry
+     *
+     * @return the fraction of lookups that found an entry. NaN if there were no
+     * lookups
+     */
+    public synchronized double getHitRate() {
+        return (double) hits / (hits + misses);
+    }
+
+    /**
+     * Gets the number of entries stored in the cache
+     *
+     * @return the number of entries stored in the cache
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the maximum number of entries stored in the cache
+     *
+     * @return the maximum number of entries stored in the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("EvaluationCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.4f}",
+                map.size(), capacity, hits, misses, getHitRate());
+    }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the latency and the allocated memory of each phase of the
+ * evaluations of a problem. The metrics are written periodically to a file as
+ * CSV, or as JSON if the file name ends with .json. Each write appends the
+ * cumulative metrics of every phase, so the file holds a time series. The
+ * metrics are enabled through the problem properties:
+ *
+ * "metrics" enables the metrics (default false)
+ *
+ * "metricsFile" the file the metrics are written to (default metrics.csv)
+ *
+ * "metricsInterval" the time between writes [s] (default 60)
+ *
+ * When the metrics are disabled, starting and stopping a sample does nothing.
+ * The allocated memory is measured on the evaluating thread only, so work
+ * that orekit hands to its own threads is not included. It is not measured if
+ * the JVM does not support it.
+ *
+ * @author nhitomi
+ */
+public class EvaluationMetrics {
+
+    /**
+     * Metrics that record nothing
+     */
+    public static final EvaluationMetrics DISABLED = new EvaluationMetrics();
+
+    /**
+     * The sample returned when the metrics are disabled
+     */
+    private static final Sample DISABLED_SAMPLE = new Sample(null, 0, 0);
+
+    private static final double NANOS_TO_MILLIS = 1e-6;
+
+    private static final double BYTES_TO_MB = 1. / (1024 * 1024);
+
+    /**
+     * The latencies [ns] of each phase
+     */
+    private final EnumMap<EvaluationPhase, LatencyHistogram> latencies;
+
+    /**
+     * The memory [bytes] allocated in each phase
+     */
+    private final EnumMap<EvaluationPhase, AtomicLong> allocations;
+
+    /**
+     * The file the metrics are written to
+     */
+    private final File file;
+
+    /**
+     * True if the metrics are written as JSON. Otherwise they are written as
+     * CSV
+     */
+    private final boolean json;
+
+    /**
+     * The time [ns] when the metrics were created
+     */
+    private final long startTime;
+
+    /**
+     * Writes the metrics periodically
+     */
+    private final ScheduledExecutorService exporter;
+
+    /**
+     * Measures the memory allocated by a thread. Null if not supported
+     */
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    /**
+     * Creates metrics that record nothing
+     */
+    private EvaluationMetrics() {
+        this.latencies = null;
+        this.allocations = null;
+        this.file = null;
+        this.json = false;
+        this.startTime = 0;
+        this.exporter = null;
+        this.allocationBean = null;
+    }
+
+    /**
+     * Creates metrics that are written to the given file
+     *
+     * @param file the file the metrics are written to. The metrics are written
+     * as JSON if the file name ends with .json and as CSV otherwise
+     * @param interval the time between writes [s]. The metrics are only
+     * written when closed if the interval is not positive
+     */
+    public EvaluationMetrics(File file, double interval) {
+        this.latencies = new EnumMap<>(EvaluationPhase.class);
+        this.allocations = new EnumMap<>(EvaluationPhase.class);
+        for (EvaluationPhase phase : EvaluationPhase.values()) {
+            latencies.put(phase, new LatencyHistogram());
+            allocations.put(phase, new AtomicLong());
+        }
+        this.file = file;
+        this.json = file.getName().toLowerCase(Locale.ENGLISH).endsWith(".json");
+        this.startTime = System.nanoTime();
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled()) {
+            this.allocationBean = (com.sun.management.ThreadMXBean) bean;
+        } else {
+            this.allocationBean = null;
+        }
+
+        if (interval > 0) {
+            this.exporter = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+                Thread thread = new Thread(r, "evaluation-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = (long) (interval * 1e3);
+            exporter.scheduleAtFixedRate(this::write, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.exporter = null;
+        }
+    }
+
+    /**
+     * Creates the metrics configured in the given properties
+     *
+     * @param properties the problem properties
+     * @return the configured metrics, or DISABLED if the metrics are not
+     * enabled
+     */
+    public static EvaluationMetrics create(Properties properties) {
+        if (!Boolean.parseBoolean(properties.getProperty("metrics", "false"))) {
+            return DISABLED;
+        }
+        File file = new File(properties.getProperty("metricsFile", "metrics.csv"));
+        double interval = Double.parseDouble(properties.getProperty("metricsInterval", "60"));
+        return new EvaluationMetrics(file, interval);
+    }
+
+    /**
+     * Checks if these metrics record anything
+     *
+     * @return true if these metrics record the phases
+     */
+    public boolean isEnabled() {
+        return latencies != null;
+    }
+
+    /**
+     * Starts timing a phase on the current thread
+     *
+     * @return the sample to stop when the phase ends
+     */
+    public Sample start() {
+        if (!isEnabled()) {
+            return DISABLED_SAMPLE;
+        }
+        return new Sample(this, System.nanoTime(), allocatedBytes());
+    }
+
+    /**
+     * Gets the memory allocated so far by the current thread
+     *
+     * @return the memory [bytes] allocated by the current thread. 0 if not
+     * supported
+     */
+    private long allocatedBytes() {
+        if (allocationBean == null) {
+            return 0;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Gets the latencies [ns] recorded for a phase
+     *
+     * @param phase the phase
+     * @return the latencies [ns] recorded for the phase. Null if the metrics
+     * are disabled
+     */
+    public LatencyHistogram getLatencies(EvaluationPhase phase) {
+        return isEnabled() ? latencies.get(phase) : null;
+    }
+
+    /**
+     * Gets the memory allocated on the evaluating threads during a phase
+     *
+     * @param phase the phase
+     * @return the memory [bytes] allocated during the phase. 0 if the metrics
+     * are disabled
+     */
+    public long getAllocatedBytes(EvaluationPhase phase) {
+        return isEnabled() ? allocations.get(phase).get() : 0;
+    }
+
+    /**
+     * Summarizes the metrics of a phase in the order of the CSV columns
+     *
+     * @param phase the phase
+     * @return the name, count, mean, 50th, 90th and 99th percentile and
+     * maximum latency [ms], total latency [s] and allocated memory [MB]
+     */
+    private Object[] summarize(EvaluationPhase phase) {
+        LatencyHistogram h = latencies.get(phase);
+        return new Object[]{phase.name().toLowerCase(Locale.ENGLISH), h.getCount(),
+            h.getCount() == 0 ? 0. : h.getMean() * NANOS_TO_MILLIS,
+            h.getPercentile(50) * NANOS_TO_MILLIS,
+            h.getPercentile(90) * NANOS_TO_MILLIS,
+            h.getPercentile(99) * NANOS_TO_MILLIS,
+            h.getMax() * NANOS_TO_MILLIS,
+            h.getTotal() * 1e-9,
+            allocations.get(phase).get() * BYTES_TO_MB};
+    }
+
+    /**
+     * Appends the current metrics of every phase to the metrics file. CSV
+     * files get one row per phase and JSON files get one object per line.
+     */
+    public synchronized void write() {
+        if (!isEnabled()) {
+            return;
+        }
+        boolean header = !json && (!file.exists() || file.length() == 0);
+        double elapsed = (System.nanoTime() - startTime) * 1e-9;
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            if (json) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(String.format(Locale.US, "{\"time_s\":%.3f,\"phases\":{", elapsed));
+                for (EvaluationPhase phase : EvaluationPhase.values()) {
+                    if (phase.ordinal() > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(String.format(Locale.US,
+                            "\"%s\":{\"count\":%d,\"mean_ms\":%.4f,\"p50_ms\":%.4f,\"p90_ms\":%.4f,"
+                            + "\"p99_ms\":%.4f,\"max_ms\":%.4f,\"total_s\":%.4f,\"allocated_mb\":%.3f}",
+                            summarize(phase)));
+                }
+                sb.append("}}");
+                out.println(sb.toString());
+            } else {
+                if (header) {
+                    out.println("time_s,phase,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms,total_s,allocated_mb");
+                }
+                for (EvaluationPhase phase : EvaluationPhase.values()) {
+                    out.println(String.format(Locale.US, "%.3f,", elapsed)
+                            + String.format(Locale.US, "%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.3f",
+                                    summarize(phase)));
+                }
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(EvaluationMetrics.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Stops the periodic writes and writes the metrics one last time
+     */
+    public void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (exporter != null) {
+            exporter.shutdownNow();
+        }
+        write();
+    }
+
+    /**
+     * The start of a timed phase on one thread
+     */
+    public static final class Sample {
+
+        private final EvaluationMetrics metrics;
+
+        private final long startTime;
+
+        private final long startBytes;
+
+        private Sample(EvaluationMetrics metrics, long startTime, long startBytes) {
+            this.metrics = metrics;
+            this.startTime = startTime;
+            this.startBytes = startBytes;
+        }
+
+        /**
+         * Records the time and the memory allocated since this sample was
+         * started. Must be called on the thread that started the sample.
+         *
+         * @param phase the phase that ended
+         */
+        public void stop(EvaluationPhase phase) {
+            if (metrics == null) {
+                return;
+            }
+            long elapsed = System.nanoTime() - startTime;
+            metrics.latencies.get(phase).record(elapsed);
+            metrics.allocations.get(phase).addAndGet(Math.max(0, metrics.allocatedBytes() - startBytes));
+        }
+    }
+
+}
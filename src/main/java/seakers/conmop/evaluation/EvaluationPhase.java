@@ -0,0 +1,49 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+/**
+ * The phases of an evaluation that are timed by the EvaluationMetrics
+ *
+ * @author nhitomi
+ */
+public enum EvaluationPhase {
+
+    /**
+     * The whole evaluation of one solution
+     */
+    EVALUATION,
+    /**
+     * Finding the deployment strategy of a constellation
+     */
+    DEPLOYMENT,
+    /**
+     * Estimating the objectives at the screening fidelity
+     */
+    SCREENING,
+    /**
+     * Building the orekit satellites or constellation from the variables
+     */
+    SATELLITES,
+    /**
+     * Running a scenario, including the propagation and the event analyses
+     * it runs and the time spent waiting for other scenarios to finish
+     */
+    SCENARIO,
+    /**
+     * Computing the coverage accesses outside of a scenario
+     */
+    COVERAGE,
+    /**
+     * Running the ground station event analysis outside of a scenario
+     */
+    GROUND_STATIONS,
+    /**
+     * Computing the coverage statistics from the accesses
+     */
+    STATISTICS;
+
+}
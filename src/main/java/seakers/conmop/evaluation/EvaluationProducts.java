@@ -0,0 +1,197 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.orekit.frames.TopocentricFrame;
+import seakers.conmop.deployment.DeploymentStrategy;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+import seakers.orekit.coverage.analysis.AnalysisMetric;
+import seakers.orekit.event.GndStationEventAnalysis;
+import seakers.orekit.object.Satellite;
+
+/**
+ * The analysis products of one evaluation of a constellation. The statistics
+ * derived from the products are computed the first time a metric asks for
+ * them and are shared by all metrics of the evaluation. Products that were
+ * not requested by any metric are null.
+ *
+ * @author nhitomi
+ */
+public class EvaluationProducts {
+
+    /**
+     * The manifested satellites
+     */
+    private final List<SatelliteVariable> satellites;
+
+    /**
+     * The deployment strategy of the constellation
+     */
+    private final DeploymentStrategy deployment;
+
+    /**
+     * The accesses to the points of interest
+     */
+    private final Map<TopocentricFrame, TimeIntervalArray> coverageEvents;
+
+    /**
+     * The orekit satellites the ground station accesses were computed for
+     */
+    private final List<Satellite> stationSatellites;
+
+    /**
+     * The ground station analysis that was run
+     */
+    private final GndStationEventAnalysis groundStations;
+
+    /**
+     * True if the products are at the screening fidelity
+     */
+    private final boolean screening;
+
+    /**
+     * The analyzer of the gaps in the coverage
+     */
+    private StreamingGapAnalyzer coverageAnalyzer;
+
+    /**
+     * The coverage statistics computed so far
+     */
+    private final HashMap<String, StreamingSummary> coverageStatistics;
+
+    /**
+     * The ground station events of each satellite
+     */
+    private List<Map<TopocentricFrame, TimeIntervalArray>> groundStationEvents;
+
+    /**
+     * Creates the products of an evaluation
+     *
+     * @param satellites the manifested satellites
+     * @param deployment the deployment strategy. May be null
+     * @param coverageEvents the accesses to the points of interest. May be
+     * null
+     * @param stationSatellites the orekit satellites the ground station
+     * accesses were computed for. May be null
+     * @param groundStations the ground station analysis that was run. May be
+     * null
+     * @param screening true if the products are at the screening fidelity
+     */
+    public EvaluationProducts(List<SatelliteVariable> satellites, DeploymentStrategy deployment,
+            Map<TopocentricFrame, TimeIntervalArray> coverageEvents,
+            List<Satellite> stationSatellites, GndStationEventAnalysis groundStations,
+            boolean screening) {
+        this.satellites = Collections.unmodifiableList(satellites);
+        this.deployment = deployment;
+        this.coverageEvents = coverageEvents;
+        this.stationSatellites = stationSatellites;
+        this.groundStations = groundStations;
+        this.screening = screening;
+        this.coverageStatistics = new HashMap<>();
+    }
+
+    /**
+     * Gets the manifested satellites
+     *
+     * @return the manifested satellites
+     */
+    public List<SatelliteVariable> getSatellites() {
+        return satellites;
+    }
+
+    /**
+     * Gets the deployment strategy of the constellation
+     *
+     * @return the deployment strategy of the constellation
+     */
+    public DeploymentStrategy getDeployment() {
+        return deployment;
+    }
+
+    /**
+     * Gets the accesses to the points of interest
+     *
+     * @return the accesses to the points of interest
+     */
+    public Map<TopocentricFrame, TimeIntervalArray> getCoverageEvents() {
+        return coverageEvents;
+    }
+
+    /**
+     * Checks if the products are at the screening fidelity
+     *
+     * @return true if the products are at the screening fidelity
+     */
+    public boolean isScreening() {
+        return screening;
+    }
+
+    /**
+     * Gets statistics of the gaps in the coverage of the points of interest.
+     * Statistics that were already computed during this evaluation are
+     * reused.
+     *
+     * @param metric the gap metric
+     * @return the statistics of the metric over all points of interest
+     */
+    public StreamingSummary getCoverageStatistics(AnalysisMetric metric) {
+        String key = metric.name();
+        StreamingSummary stats = coverageStatistics.get(key);
+        if (stats == null) {
+            stats = getCoverageAnalyzer().getStatistics(metric);
+            coverageStatistics.put(key, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Gets statistics of the gaps in the coverage of the points of interest,
+     * including an estimate of a percentile. Statistics that were already
+     * computed during this evaluation are reused.
+     *
+     * @param metric the gap metric
+     * @param percentile the percentile to estimate in (0, 100]
+     * @return the statistics of the metric over all points of interest
+     */
+    public StreamingSummary getCoverageStatistics(AnalysisMetric metric, double percentile) {
+        String key = metric.name() + "_" + percentile;
+        StreamingSummary stats = coverageStatistics.get(key);
+        if (stats == null) {
+            stats = getCoverageAnalyzer().getStatistics(metric, percentile);
+            coverageStatistics.put(key, stats);
+        }
+        return stats;
+    }
+
+    private StreamingGapAnalyzer getCoverageAnalyzer() {
+        if (coverageAnalyzer == null) {
+            coverageAnalyzer = new StreamingGapAnalyzer(coverageEvents);
+        }
+        return coverageAnalyzer;
+    }
+
+    /**
+     * Gets the ground station accesses of each satellite
+     *
+     * @return the ground station accesses of each satellite
+     */
+    public List<Map<TopocentricFrame, TimeIntervalArray>> getGroundStationEvents() {
+        if (groundStationEvents == null) {
+            groundStationEvents = new ArrayList<>(stationSatellites.size());
+            for (Satellite sat : stationSatellites) {
+                groundStationEvents.add(groundStations.getEvents(sat));
+            }
+        }
+        return groundStationEvents;
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative latencies with a fixed relative precision. Like
+ * an HdrHistogram, values are counted in buckets whose width grows with the
+ * magnitude of the value: values below 128 are counted exactly and larger
+ * values are counted in buckets that are at most 1/64 of their lower bound
+ * wide, so any percentile is reported to within about 1.6%. Recording a value
+ * does not allocate or lock, so the histogram can be shared by many threads.
+ *
+ * @author nhitomi
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of sub-buckets per power of two. Values below this number
+     * have their own bucket
+     */
+    private static final int SUB_BUCKETS = 128;
+
+    /**
+     * Half the number of sub-buckets. Each power of two above SUB_BUCKETS is
+     * split into this many buckets
+     */
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    /**
+     * The number of bits of a value that select its sub-bucket
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    /**
+     * The number of buckets needed to count any non-negative long
+     */
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    /**
+     * The count of each bucket
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * The number of recorded values
+     */
+    private final AtomicLong count;
+
+    /**
+     * The sum of the recorded values
+     */
+    private final AtomicLong total;
+
+    /**
+     * The largest recorded value
+     */
+    private final AtomicLong max;
+
+    /**
+     * Creates an empty histogram
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucket(v));
+        count.incrementAndGet();
+        total.addAndGet(v);
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Gets the bucket that counts the given value
+     *
+     * @param value a non-negative value
+     * @return the index of the bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int top = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (top - HALF_SUB_BUCKETS);
+    }
+
+    /**
+     * Gets the largest value counted by a bucket
+     *
+     * @param bucket the index of the bucket
+     * @return the largest value counted by the bucket
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long top = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets the number of recorded values
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the sum of the recorded values
+     *
+     * @return the sum of the recorded values
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values
+     *
+     * @return the mean of the recorded values. NaN if no values were recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? Double.NaN : (double) total.get() / n;
+    }
+
+    /**
+     * Gets the largest recorded value
+     *
+     * @return the largest recorded value. 0 if no values were recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the value below which the given percentage of the recorded values
+     * fall. The value is the upper end of the bucket containing the
+     * percentile, but is never larger than the largest recorded value.
+     *
+     * @param percentile the percentile in [0, 100]
+     * @return the value at the percentile. 0 if no values were recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a percentile in [0, 100]. Found %f", percentile));
+        }
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100. * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+}
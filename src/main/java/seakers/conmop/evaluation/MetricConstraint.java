@@ -0,0 +1,105 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.Set;
+import org.hipparchus.util.FastMath;
+
+/**
+ * A constraint that bounds a metric from above or from below. The constraint
+ * value stored in a solution is the amount by which the metric violates the
+ * bound, so it is zero for feasible solutions.
+ *
+ * @author nhitomi
+ */
+public class MetricConstraint {
+
+    /**
+     * The name of the constrained metric
+     */
+    private final String name;
+
+    /**
+     * The constrained metric
+     */
+    private final ConstellationMetric metric;
+
+    /**
+     * True if the metric must not exceed the limit. False if the metric must
+     * not fall below the limit
+     */
+    private final boolean upperBound;
+
+    /**
+     * The limit on the metric
+     */
+    private final double limit;
+
+    /**
+     * Creates a constraint on a metric
+     *
+     * @param name the name of the constrained metric
+     * @param metric the constrained metric
+     * @param upperBound true if the metric must not exceed the limit. False if
+     * the metric must not fall below the limit
+     * @param limit the limit on the metric
+     */
+    public MetricConstraint(String name, ConstellationMetric metric, boolean upperBound, double limit) {
+        this.name = name;
+        this.metric = metric;
+        this.upperBound = upperBound;
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the name of the constrained metric
+     *
+     * @return the name of the constrained metric
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the constrained metric
+     *
+     * @return the constrained metric
+     */
+    public ConstellationMetric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Gets the analysis products the constrained metric is computed from
+     *
+     * @return the analysis products the constrained metric is computed from
+     */
+    public Set<AnalysisProduct> getProducts() {
+        return metric.getProducts();
+    }
+
+    /**
+     * Computes the violation of the constraint
+     *
+     * @param products the analysis products of the constellation
+     * @return the amount by which the metric violates the limit. Zero if the
+     * constraint is satisfied
+     */
+    public double evaluate(EvaluationProducts products) {
+        double value = metric.evaluate(products);
+        if (upperBound) {
+            return FastMath.max(0., value - limit);
+        } else {
+            return FastMath.max(0., limit - value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + (upperBound ? "<=" : ">=") + limit;
+    }
+
+}
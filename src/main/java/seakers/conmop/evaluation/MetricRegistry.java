@@ -0,0 +1,299 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.hipparchus.util.FastMath;
+import org.orekit.frames.TopocentricFrame;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+import seakers.orekit.coverage.analysis.AnalysisMetric;
+
+/**
+ * The registry of the metrics that constellations can be evaluated on. The
+ * objectives and constraints of a problem are declared by name in the problem
+ * properties:
+ *
+ * "objectives" a comma separated list of metrics to minimize (default
+ * responseTime,nSatellites,meanSma, or responseTime,nSatellites,deploymentDV
+ * if "deploymentObjective" is true)
+ *
+ * "constraints" a comma separated list of bounds on metrics such as
+ * deploymentDV&lt;=5000 or nSatellites&gt;=4 (default none)
+ *
+ * The built-in metrics are responseTime, nSatellites, meanSma, deploymentDV,
+ * coverageGap and groundStationGap. Other metrics can be registered with
+ * register, or declared by the fully qualified name of a class implementing
+ * ConstellationMetric with a public constructor taking the problem properties.
+ *
+ * @author nhitomi
+ */
+public class MetricRegistry {
+
+    /**
+     * Creates a metric from the problem properties
+     */
+    public interface MetricFactory {
+
+        /**
+         * Creates a metric
+         *
+         * @param properties the problem properties
+         * @return the metric
+         */
+        public ConstellationMetric create(Properties properties);
+    }
+
+    private static final Set<AnalysisProduct> NONE
+            = Collections.unmodifiableSet(EnumSet.noneOf(AnalysisProduct.class));
+
+    private static final Set<AnalysisProduct> COVERAGE
+            = Collections.unmodifiableSet(EnumSet.of(AnalysisProduct.COVERAGE));
+
+    private static final Set<AnalysisProduct> GROUND_STATIONS
+            = Collections.unmodifiableSet(EnumSet.of(AnalysisProduct.GROUND_STATIONS));
+
+    private static final Set<AnalysisProduct> DEPLOYMENT
+            = Collections.unmodifiableSet(EnumSet.of(AnalysisProduct.DEPLOYMENT));
+
+    /**
+     * The registered metrics by name
+     */
+    private static final Map<String, MetricFactory> FACTORIES = new HashMap<>();
+
+    static {
+        //the mean time to respond [s] to a request at a point of interest
+        register("responseTime", new MetricFactory() {
+            @Override
+            public ConstellationMetric create(Properties properties) {
+                return new ConstellationMetric() {
+                    @Override
+                    public Set<AnalysisProduct> getProducts() {
+                        return COVERAGE;
+                    }
+
+                    @Override
+                    public double evaluate(EvaluationProducts products) {
+                        return products.getCoverageStatistics(AnalysisMetric.MEAN_TIME_TO_T).getMean();
+                    }
+                };
+            }
+        });
+
+        //the number of manifested satellites
+        register("nSatellites", new MetricFactory() {
+            @Override
+            public ConstellationMetric create(Properties properties) {
+                return new ConstellationMetric() {
+                    @Override
+                    public Set<AnalysisProduct> getProducts() {
+                        return NONE;
+                    }
+
+                    @Override
+                    public double evaluate(EvaluationProducts products) {
+                        return products.getSatellites().size();
+                    }
+                };
+            }
+        });
+
+        //the mean semi-major axis [m] of the manifested satellites
+        register("meanSma", new MetricFactory() {
+            @Override
+            public ConstellationMetric create(Properties properties) {
+                return new ConstellationMetric() {
+                    @Override
+                    public Set<AnalysisProduct> getProducts() {
+                        return NONE;
+                    }
+
+                    @Override
+                    public double evaluate(EvaluationProducts products) {
+                        StreamingSummary stats = new StreamingSummary();
+                        for (SatelliteVariable sat : products.getSatellites()) {
+                            stats.addValue(sat.getSma());
+                        }
+                        return stats.getMean();
+                    }
+                };
+            }
+        });
+
+        //the total delta V [m/s] to deploy the constellation
+        register("deploymentDV", new MetricFactory() {
+            @Override
+            public ConstellationMetric create(Properties properties) {
+                return new ConstellationMetric() {
+                    @Override
+                    public Set<AnalysisProduct> getProducts() {
+                        return DEPLOYMENT;
+                    }
+
+                    @Override
+                    public double evaluate(EvaluationProducts products) {
+                        return products.getDeployment().getTotalDV();
+                    }
+                };
+            }
+        });
+
+        //a percentile of the durations [s] of the gaps in coverage over all
+        //points of interest
+        register("coverageGap", new MetricFactory() {
+            @Override
+            public ConstellationMetric create(Properties properties) {
+                final double percentile = Double.parseDouble(properties.getProperty("coverageGapPercentile", "90"));
+                return new ConstellationMetric() {
+                    @Override
+                    public Set<AnalysisProduct> getProducts() {
+                        return COVERAGE;
+                    }
+
+                    @Override
+                    public double evaluate(EvaluationProducts products) {
+                        return products.getCoverageStatistics(AnalysisMetric.DURATION, percentile).getPercentile();
+                    }
+                };
+            }
+        });
+
+        //the longest gap [s] between contacts of any satellite with the
+        //ground stations
+        register("groundStationGap", new MetricFactory() {
+            @Override
+            public ConstellationMetric create(Properties properties) {
+                return new ConstellationMetric() {
+                    @Override
+                    public Set<AnalysisProduct> getProducts() {
+                        return GROUND_STATIONS;
+                    }
+
+                    @Override
+                    public double evaluate(EvaluationProducts products) {
+                        double maxGndGap = Double.NEGATIVE_INFINITY;
+                        for (Map<TopocentricFrame, TimeIntervalArray> events : products.getGroundStationEvents()) {
+                            StreamingGapAnalyzer gndStaAnalyzer = new StreamingGapAnalyzer(events);
+                            maxGndGap = FastMath.max(maxGndGap, gndStaAnalyzer.getStatistics(AnalysisMetric.DURATION).getMax());
+                        }
+                        return maxGndGap;
+                    }
+                };
+            }
+        });
+    }
+
+    private MetricRegistry() {
+    }
+
+    /**
+     * Registers a metric so that it can be declared by name in the problem
+     * properties. A metric registered under an existing name replaces it.
+     *
+     * @param name the name of the metric
+     * @param factory creates the metric from the problem properties
+     */
+    public static synchronized void register(String name, MetricFactory factory) {
+        FACTORIES.put(name, factory);
+    }
+
+    /**
+     * Creates the metric with the given name
+     *
+     * @param name the name of a registered metric or the fully qualified name
+     * of a class implementing ConstellationMetric
+     * @param properties the problem properties
+     * @return the metric
+     */
+    public static ConstellationMetric create(String name, Properties properties) {
+        MetricFactory factory;
+        synchronized (MetricRegistry.class) {
+            factory = FACTORIES.get(name);
+        }
+        if (factory != null) {
+            return factory.create(properties);
+        }
+        try {
+            Class<?> type = Class.forName(name);
+            if (!ConstellationMetric.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException(
+                        String.format("Class %s does not implement ConstellationMetric.", name));
+            }
+            return (ConstellationMetric) type.getConstructor(Properties.class).newInstance(properties);
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalArgumentException(
+                    String.format("Unknown metric %s.", name));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException(
+                    String.format("Could not create metric %s.", name), ex);
+        }
+    }
+
+    /**
+     * Creates the objectives declared in the "objectives" property
+     *
+     * @param properties the problem properties
+     * @return the objectives in the order they are stored in a solution
+     */
+    public static List<ConstellationMetric> objectives(Properties properties) {
+        String defaultObjectives = Boolean.parseBoolean(properties.getProperty("deploymentObjective", "false"))
+                ? "responseTime,nSatellites,deploymentDV"
+                : "responseTime,nSatellites,meanSma";
+        ArrayList<ConstellationMetric> objectives = new ArrayList<>();
+        HashSet<String> names = new HashSet<>();
+        for (String token : properties.getProperty("objectives", defaultObjectives).split(",")) {
+            String name = token.trim();
+            if (!names.add(name)) {
+                throw new IllegalArgumentException(
+                        String.format("Objective %s is declared more than once.", name));
+            }
+            objectives.add(create(name, properties));
+        }
+        return Collections.unmodifiableList(objectives);
+    }
+
+    /**
+     * Creates the constraints declared in the "constraints" property
+     *
+     * @param properties the problem properties
+     * @return the constraints in the order they are stored in a solution
+     */
+    public static List<MetricConstraint> constraints(Properties properties) {
+        ArrayList<MetricConstraint> constraints = new ArrayList<>();
+        String declared = properties.getProperty("constraints", "").trim();
+        if (declared.isEmpty()) {
+            return Collections.unmodifiableList(constraints);
+        }
+        for (String token : declared.split(",")) {
+            String constraint = token.trim();
+            boolean upperBound;
+            int index = constraint.indexOf("<=");
+            if (index >= 0) {
+                upperBound = true;
+            } else {
+                index = constraint.indexOf(">=");
+                if (index < 0) {
+                    throw new IllegalArgumentException(
+                            String.format("Expected a constraint of the form metric<=limit or metric>=limit. Found %s", constraint));
+                }
+                upperBound = false;
+            }
+            String name = constraint.substring(0, index).trim();
+            double limit = Double.parseDouble(constraint.substring(index + 2).trim());
+            constraints.add(new MetricConstraint(name, create(name, properties), upperBound, limit));
+        }
+        return Collections.unmodifiableList(constraints);
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.orekit.frames.TopocentricFrame;
+import seakers.conmop.coverage.AccessCalculator;
+import seakers.conmop.coverage.AccessMerger;
+import seakers.conmop.variable.SatelliteVariable;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+
+/**
+ * A bounded cache of the accesses between individual satellites and the
+ * points of interest. The coverage of a constellation is the union of the
+ * coverage of its satellites, so only the satellites that have not been seen
+ * before need to be simulated and the constellation's events are obtained by
+ * taking the union of the accesses of each satellite. Each satellite is keyed
+ * on its quantized orbital elements. An instance is bound to one access
+ * calculator, so a separate instance is needed for each set of points, sensor
+ * and time window. When the cache is full, the least recently used satellite
+ * is evicted. The cache is safe to use from multiple threads.
+ *
+ * @author nhitomi
+ */
+public class SatelliteAccessCache {
+
+    /**
+     * The calculator used to compute the accesses of new satellites
+     */
+    private final AccessCalculator calculator;
+
+    /**
+     * The tolerance [m] on the semi-major axis used to key the satellites
+     */
+    private final double smaTolerance;
+
+    /**
+     * The tolerance on the eccentricity used to key the satellites
+     */
+    private final double eccTolerance;
+
+    /**
+     * The tolerance [rad] on the angular orbital elements used to key the
+     * satellites
+     */
+    private final double angleTolerance;
+
+    /**
+     * The maximum number of satellites stored in the cache
+     */
+    private final int capacity;
+
+    /**
+     * The cached accesses of each satellite in least recently used order
+     */
+    private final LinkedHashMap<ConstellationFingerprint, Map<TopocentricFrame, TimeIntervalArray>> map;
+
+    /**
+     * The number of satellites that were found in the cache
+     */
+    private long hits;
+
+    /**
+     * The number of satellites that had to be simulated
+     */
+    private long misses;
+
+    /**
+     * Creates a new cache
+     *
+     * @param calculator the calculator used to compute the accesses of new
+     * satellites
+     * @param capacity the maximum number of satellites stored in the cache
+     * @param smaTolerance the tolerance [m] on the semi-major axis
+     * @param eccTolerance the tolerance on the eccentricity
+     * @param angleTolerance the tolerance [rad] on the inclination, argument of
+     * perigee, right ascension of the ascending node, and true anomaly
+     */
+    public SatelliteAccessCache(AccessCalculator calculator, final int capacity,
+            double smaTolerance, double eccTolerance, double angleTolerance) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a positive cache capacity. Found %d", capacity));
+        }
+        this.calculator = calculator;
+        this.smaTolerance = smaTolerance;
+        this.eccTolerance = eccTolerance;
+        this.angleTolerance = angleTolerance;
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<ConstellationFingerprint, Map<TopocentricFrame, TimeIntervalArray>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 4620196712083307263L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ConstellationFingerprint, Map<TopocentricFrame, TimeIntervalArray>> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Gets the events at each point of interest for a constellation made of
+     * the given satellites. Only the satellites that are not stored in the
+     * cache are simulated.
+     *
+     * @param satellites the satellites in the constellation
+     * @return the events at each point of interest
+     */
+    public Map<TopocentricFrame, TimeIntervalArray> getEvents(Collection<SatelliteVariable> satellites) {
+        //key each satellite and look up the ones already simulated
+        HashMap<ConstellationFingerprint, Map<TopocentricFrame, TimeIntervalArray>> accesses = new HashMap<>();
+        LinkedHashMap<ConstellationFingerprint, SatelliteVariable> missing = new LinkedHashMap<>();
+        synchronized (this) {
+            for (SatelliteVariable var : satellites) {
+                ConstellationFingerprint key = new ConstellationFingerprint(
+                        Collections.singletonList(var), smaTolerance, eccTolerance, angleTolerance);
+                if (accesses.containsKey(key) || missing.containsKey(key)) {
+                    continue;
+                }
+                Map<TopocentricFrame, TimeIntervalArray> access = map.get(key);
+                if (access == null) {
+                    misses++;
+                    missing.put(key, var);
+                } else {
+                    hits++;
+                    accesses.put(key, access);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            ArrayList<ConstellationFingerprint> keys = new ArrayList<>(missing.keySet());
+            List<Map<TopocentricFrame, TimeIntervalArray>> computed
+                    = calculator.getAccesses(new ArrayList<>(missing.values()));
+            synchronized (this) {
+                for (int i = 0; i < keys.size(); i++) {
+                    map.put(keys.get(i), computed.get(i));
+                }
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                accesses.put(keys.get(i), computed.get(i));
+            }
+        }
+
+        return AccessMerger.union(calculator.getPoints(), accesses.values(),
+                calculator.getStartDate(), calculator.getEndDate());
+    }
+
+    /**
+     * Gets the number of satellites that were found in the cache
+     *
+     * @return the number of satellites that were found in the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of satellites that had to be simulated
+     *
+     * @return the number of satellites that had to be simulated
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the fraction of satellites that were found in the cache
+     *
+     * @return the fraction of satellites that were found in the cache. NaN if
+     * there were no lookups
+     */
+    public synchronized double getHitRate() {
+        return (double) hits / (hits + misses);
+    }
+
+    /**
+     * Gets the number of satellites stored in the cache
+     *
+     * @return the number of satellites stored in the cache
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the maximum number of satellites stored in the cache
+     *
+     * @return the maximum number of satellites stored in the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SatelliteAccessCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.4f}",
+                map.size(), capacity, hits, misses, getHitRate());
+    }
+
+}
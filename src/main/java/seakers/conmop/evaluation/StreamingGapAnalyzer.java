@@ -0,0 +1,160 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.orekit.frames.TopocentricFrame;
+import seakers.orekit.coverage.access.RiseSetTime;
+import seakers.orekit.coverage.access.TimeIntervalArray;
+import seakers.orekit.coverage.analysis.AnalysisMetric;
+
+/**
+ * Computes statistics of the gaps between the accesses to a set of points.
+ * The statistics are the same as those of the GroundEventAnalyzer for gaps
+ * (isAccess = false), but the gaps are read directly from the rise and set
+ * times of the accesses. The complement of each access timeline and the
+ * array of gap durations are not built, and the statistics are accumulated
+ * in a StreamingSummary instead of a DescriptiveStatistics, so no memory is
+ * allocated per gap.
+ *
+ * @author nhitomi
+ */
+public class StreamingGapAnalyzer {
+
+    /**
+     * The accesses to each point
+     */
+    private final Map<TopocentricFrame, TimeIntervalArray> accesses;
+
+    /**
+     * Creates an analyzer of the gaps between the given accesses
+     *
+     * @param accesses the accesses to each point
+     */
+    public StreamingGapAnalyzer(Map<TopocentricFrame, TimeIntervalArray> accesses) {
+        this.accesses = accesses;
+    }
+
+    /**
+     * Computes statistics of the gaps over all points
+     *
+     * @param metric the metric. DURATION adds the duration of every gap,
+     * MEAN_TIME_TO_T, TIME_AVERAGE and PERCENT_TIME add one value per point,
+     * and OCCURRENCES adds the number of gaps of each point
+     * @return the statistics of the metric
+     */
+    public StreamingSummary getStatistics(AnalysisMetric metric) {
+        return accumulate(metric, new StreamingSummary());
+    }
+
+    /**
+     * Computes statistics of the gaps over all points, including an estimate
+     * of one percentile
+     *
+     * @param metric the metric
+     * @param percentile the percentile to estimate in (0, 100]
+     * @return the statistics of the metric
+     */
+    public StreamingSummary getStatistics(AnalysisMetric metric, double percentile) {
+        return accumulate(metric, new StreamingSummary(percentile));
+    }
+
+    /**
+     * Adds the values of a metric over all points to a summary
+     *
+     * @param metric the metric
+     * @param summary the summary to add the values to
+     * @return the summary
+     */
+    private StreamingSummary accumulate(AnalysisMetric metric, StreamingSummary summary) {
+        //the number, the sum and the sum of squares of the gaps of one point
+        double[] moments = new double[3];
+        for (TimeIntervalArray access : accesses.values()) {
+            if (metric == AnalysisMetric.DURATION) {
+                addGaps(access, summary, null);
+                continue;
+            }
+            Arrays.fill(moments, 0.);
+            addGaps(access, null, moments);
+            switch (metric) {
+                case MEAN_TIME_TO_T:
+                    //the mean time to access from a random time
+                    summary.addValue(moments[2] / (2. * length(access)));
+                    break;
+                case TIME_AVERAGE:
+                    summary.addValue(moments[2] / length(access));
+                    break;
+                case PERCENT_TIME:
+                    summary.addValue(moments[1] / length(access));
+                    break;
+                case OCCURRENCES:
+                    summary.addValue(moments[0]);
+                    break;
+                default:
+                    throw new UnsupportedOperationException(
+                            String.format("Unsupported metric %s.", metric));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Gets the length of the timeline of the accesses
+     *
+     * @param access the accesses to a point
+     * @return the length [s] of the timeline
+     */
+    private static double length(TimeIntervalArray access) {
+        return access.getTail().durationFrom(access.getHead());
+    }
+
+    /**
+     * Walks through the gaps between the accesses to one point. The gaps are
+     * those of the complement of the accesses: a gap opens at the head of the
+     * timeline unless an access starts there, each set time opens a gap, each
+     * rise time closes one, and a gap that is open at the end is closed at
+     * the tail.
+     *
+     * @param access the accesses to a point
+     * @param summary the summary to add the duration of each gap to. May be
+     * null
+     * @param moments the number, the sum and the sum of squares of the gap
+     * durations are added to the elements of this array. May be null
+     */
+    private static void addGaps(TimeIntervalArray access, StreamingSummary summary, double[] moments) {
+        boolean open = true;
+        boolean first = true;
+        double start = 0;
+        for (RiseSetTime time : access) {
+            if (time.isRise()) {
+                if (open && !(first && time.getTime() <= 0)) {
+                    addGap(time.getTime() - start, summary, moments);
+                }
+                open = false;
+            } else {
+                open = true;
+                start = time.getTime();
+            }
+            first = false;
+        }
+        if (open) {
+            addGap(length(access) - start, summary, moments);
+        }
+    }
+
+    private static void addGap(double duration, StreamingSummary summary, double[] moments) {
+        if (summary != null) {
+            summary.addValue(duration);
+        }
+        if (moments != null) {
+            moments[0] += 1;
+            moments[1] += duration;
+            moments[2] += duration * duration;
+        }
+    }
+
+}
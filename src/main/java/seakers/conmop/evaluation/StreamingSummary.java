@@ -0,0 +1,280 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.evaluation;
+
+/**
+ * Summary statistics of a stream of values that are updated as each value is
+ * added, without storing the values. The memory used does not depend on the
+ * number of values. The sum is accumulated with compensated summation so that
+ * the mean is as accurate as the one computed from the stored values. One
+ * percentile can be estimated with the P-square algorithm of Jain and
+ * Chlamtac (1985) if it is chosen when the summary is created. The algorithm
+ * keeps five markers whose heights approximate the minimum, the maximum, the
+ * percentile and the quantiles halfway between them, and adjusts them with
+ * a piecewise-parabolic interpolation as each value is added.
+ *
+ * @author nhitomi
+ */
+public class StreamingSummary {
+
+    /**
+     * The number of values
+     */
+    private long n;
+
+    /**
+     * The sum of the values
+     */
+    private double sum;
+
+    /**
+     * The running compensation of the rounding errors of the sum
+     */
+    private double compensation;
+
+    /**
+     * The smallest value
+     */
+    private double min;
+
+    /**
+     * The largest value
+     */
+    private double max;
+
+    /**
+     * The estimated quantile in [0, 1]. NaN if no percentile is estimated
+     */
+    private final double quantile;
+
+    /**
+     * The heights of the five markers. Holds the first values in ascending
+     * order until there are five values
+     */
+    private final double[] heights;
+
+    /**
+     * The positions of the markers, starting at 1
+     */
+    private final double[] positions;
+
+    /**
+     * The desired positions of the markers
+     */
+    private final double[] desired;
+
+    /**
+     * The increments of the desired positions of the markers for each value
+     */
+    private final double[] increments;
+
+    /**
+     * Creates an empty summary that does not estimate a percentile
+     */
+    public StreamingSummary() {
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        this.quantile = Double.NaN;
+        this.heights = null;
+        this.positions = null;
+        this.desired = null;
+        this.increments = null;
+    }
+
+    /**
+     * Creates an empty summary that estimates the given percentile
+     *
+     * @param percentile the percentile to estimate in (0, 100]
+     */
+    public StreamingSummary(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a percentile in (0, 100]. Found %f", percentile));
+        }
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        this.quantile = percentile / 100.;
+        this.heights = new double[5];
+        this.positions = new double[]{1, 2, 3, 4, 5};
+        this.desired = new double[]{1, 1 + 2 * quantile, 1 + 4 * quantile, 3 + 2 * quantile, 5};
+        this.increments = new double[]{0, quantile / 2, quantile, (1 + quantile) / 2, 1};
+    }
+
+    /**
+     * Adds a value to the summary
+     *
+     * @param value the value
+     */
+    public void addValue(double value) {
+        //Neumaier's variant of the Kahan summation
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+
+        if (n == 0) {
+            min = value;
+            max = value;
+        } else {
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        if (heights != null) {
+            if (n < 5) {
+                //insert the first values in ascending order
+                int i = (int) n;
+                while (i > 0 && heights[i - 1] > value) {
+                    heights[i] = heights[i - 1];
+                    i--;
+                }
+                heights[i] = value;
+            } else {
+                updateMarkers(value);
+            }
+        }
+        n++;
+    }
+
+    /**
+     * Updates the markers of the P-square algorithm with a new value
+     *
+     * @param value the value
+     */
+    private void updateMarkers(double value) {
+        //find the cell containing the value and extend the extreme markers
+        int k;
+        if (value < heights[0]) {
+            heights[0] = value;
+            k = 0;
+        } else if (value >= heights[4]) {
+            heights[4] = value;
+            k = 3;
+        } else {
+            k = 0;
+            while (value >= heights[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desired[i] += increments[i];
+        }
+
+        //move the middle markers that are off their desired position
+        for (int i = 1; i < 4; i++) {
+            double d = desired[i] - positions[i];
+            if ((d >= 1 && positions[i + 1] - positions[i] > 1)
+                    || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int step = d > 0 ? 1 : -1;
+                double h = parabolic(i, step);
+                if (heights[i - 1] < h && h < heights[i + 1]) {
+                    heights[i] = h;
+                } else {
+                    heights[i] += step * (heights[i + step] - heights[i])
+                            / (positions[i + step] - positions[i]);
+                }
+                positions[i] += step;
+            }
+        }
+    }
+
+    /**
+     * Computes the piecewise-parabolic prediction of the height of a marker
+     * moved by one position
+     *
+     * @param i the index of the marker
+     * @param step the direction the marker is moved in (+1 or -1)
+     * @return the predicted height of the marker
+     */
+    private double parabolic(int i, int step) {
+        return heights[i] + step / (positions[i + 1] - positions[i - 1])
+                * ((positions[i] - positions[i - 1] + step) * (heights[i + 1] - heights[i]) / (positions[i + 1] - positions[i])
+                + (positions[i + 1] - positions[i] - step) * (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]));
+    }
+
+    /**
+     * Gets the number of values
+     *
+     * @return the number of values
+     */
+    public long getN() {
+        return n;
+    }
+
+    /**
+     * Gets the sum of the values
+     *
+     * @return the sum of the values
+     */
+    public double getSum() {
+        return sum + compensation;
+    }
+
+    /**
+     * Gets the mean of the values
+     *
+     * @return the mean of the values. NaN if there are no values
+     */
+    public double getMean() {
+        return n == 0 ? Double.NaN : getSum() / n;
+    }
+
+    /**
+     * Gets the smallest value
+     *
+     * @return the smallest value. NaN if there are no values
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the largest value
+     *
+     * @return the largest value. NaN if there are no values
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the estimate of the percentile chosen when the summary was created
+     *
+     * @return the estimate of the percentile. NaN if there are no values
+     */
+    public double getPercentile() {
+        if (heights == null) {
+            throw new IllegalStateException("This summary does not estimate a percentile.");
+        }
+        if (n == 0) {
+            return Double.NaN;
+        }
+        if (n >= 5) {
+            return heights[2];
+        }
+        //interpolate between the few sorted values
+        double pos = quantile * (n + 1);
+        if (pos < 1) {
+            return heights[0];
+        }
+        if (pos >= n) {
+            return heights[(int) n - 1];
+        }
+        int lower = (int) Math.floor(pos);
+        return heights[lower - 1] + (pos - lower) * (heights[lower] - heights[lower - 1]);
+    }
+
+}
@@ -0,0 +1,354 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.moeaframework.core.Solution;
+
+/**
+ * Writes checkpoints of a run to a file in the background. A checkpoint is
+ * serialized on the calling thread, so that it is consistent with the step it
+ * was captured at, and is then compressed and written by a background thread
+ * so that the search does not wait on the disk. The file is written to a
+ * temporary file next to it, synced, and moved over the previous checkpoint
+ * in one atomic step, so the file always holds a complete checkpoint even if
+ * the JVM dies while writing. If checkpoints are taken faster than they can
+ * be written, only the latest one waiting is written.
+ *
+ * The solutions recorded by the AOSMOEA are not serialized with every
+ * checkpoint, since they grow with every evaluation. Each checkpoint only
+ * serializes the solutions recorded since the previous checkpoint, and they
+ * are appended as one chunk to a history file next to the checkpoint file.
+ * Each chunk is the length of its data (int32) followed by the gzipped
+ * serialized list of its solutions. The chunks are synced before the
+ * checkpoint that covers them is moved into place, so a checkpoint never
+ * refers to chunks that were not written. Chunks written after the last
+ * checkpoint are dropped when the run is resumed.
+ *
+ * @author nhitomi
+ */
+public class CheckpointWriter {
+
+    /**
+     * The checkpoint file
+     */
+    private final File file;
+
+    /**
+     * The temporary file the checkpoints are written to before they are
+     * moved to the checkpoint file
+     */
+    private final File temporaryFile;
+
+    /**
+     * The thread that writes the checkpoints
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The latest serialized checkpoint that has not been written yet
+     */
+    private final AtomicReference<byte[]> pending;
+
+    /**
+     * The history file the recorded solutions are appended to
+     */
+    private final File historyFile;
+
+    /**
+     * The serialized chunks of the history that have not been written yet
+     */
+    private final ConcurrentLinkedQueue<byte[]> pendingHistory;
+
+    /**
+     * The recorded solutions that are in the history
+     */
+    private final Set<Solution> recorded;
+
+    /**
+     * The number of chunks in the history
+     */
+    private int historyChunks;
+
+    /**
+     * The number of solutions in the history
+     */
+    private int numberOfSolutions;
+
+    /**
+     * True if the history file must be replaced by the first chunk that is
+     * written. Only read and written by the background thread once the first
+     * checkpoint is submitted
+     */
+    private boolean newHistory;
+
+    /**
+     * Creates a writer of checkpoints to the given file
+     *
+     * @param file the checkpoint file
+     */
+    public CheckpointWriter(File file) {
+        this.file = file;
+        this.temporaryFile = new File(file.getPath() + ".tmp");
+        this.executor = Executors.newSingleThreadExecutor(new CheckpointThreadFactory());
+        this.pending = new AtomicReference<>();
+        this.historyFile = historyFile(file);
+        this.pendingHistory = new ConcurrentLinkedQueue<>();
+        this.recorded = Collections.newSetFromMap(new IdentityHashMap<Solution, Boolean>());
+        this.historyChunks = 0;
+        this.numberOfSolutions = 0;
+        this.newHistory = true;
+    }
+
+    /**
+     * Continues the history of a checkpoint that a run was restored from. If
+     * the checkpoint was read from the file of this writer, the chunks of the
+     * history file after the ones the checkpoint covers are dropped and the
+     * later checkpoints only append the new solutions. Otherwise the history
+     * of this writer starts over with all the solutions of the run. Must be
+     * called before the first checkpoint is written.
+     *
+     * @param checkpoint the checkpoint the run was restored from
+     * @throws IOException if the history file cannot be truncated
+     */
+    public void resume(RunCheckpoint checkpoint) throws IOException {
+        if (checkpoint.getFile() == null
+                || !checkpoint.getFile().getAbsoluteFile().equals(file.getAbsoluteFile())) {
+            return;
+        }
+        long length = historyLength(historyFile, checkpoint.getHistoryChunks());
+        if (historyFile.exists()) {
+            try (FileChannel channel = FileChannel.open(historyFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+        }
+        recorded.addAll(checkpoint.getAllSolutions());
+        historyChunks = checkpoint.getHistoryChunks();
+        numberOfSolutions = checkpoint.getNumberOfSolutions();
+        newHistory = false;
+    }
+
+    /**
+     * Serializes a checkpoint and the solutions recorded since the previous
+     * checkpoint and writes them to the files in the background
+     *
+     * @param checkpoint the checkpoint
+     * @throws IOException if the checkpoint cannot be serialized
+     */
+    public void write(RunCheckpoint checkpoint) throws IOException {
+        ArrayList<Solution> newSolutions = new ArrayList<>();
+        for (Solution solution : checkpoint.getRecordedSolutions()) {
+            if (recorded.add(solution)) {
+                newSolutions.add(solution);
+            }
+        }
+        if (!newSolutions.isEmpty()) {
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(chunk)) {
+                out.writeObject(newSolutions);
+            }
+            pendingHistory.add(chunk.toByteArray());
+            historyChunks++;
+            numberOfSolutions += newSolutions.size();
+        }
+        checkpoint.setHistory(historyChunks, numberOfSolutions);
+
+        //the chunks are queued before the checkpoint so that the thread that
+        //takes the checkpoint also writes the chunks it covers
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(checkpoint);
+        }
+        if (pending.getAndSet(bytes.toByteArray()) == null) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    writePending();
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the pending chunks of the history and the latest serialized
+     * checkpoint to the files
+     */
+    private void writePending() {
+        byte[] bytes = pending.getAndSet(null);
+        if (bytes == null) {
+            return;
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try {
+            if (!pendingHistory.isEmpty()) {
+                try (FileOutputStream fos = new FileOutputStream(historyFile, !newHistory)) {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+                    byte[] chunk;
+                    while ((chunk = pendingHistory.poll()) != null) {
+                        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                            gzip.write(chunk);
+                        }
+                        out.writeInt(compressed.size());
+                        compressed.writeTo(out);
+                    }
+                    out.flush();
+                    fos.getFD().sync();
+                }
+                newHistory = false;
+            }
+            try (FileOutputStream fos = new FileOutputStream(temporaryFile)) {
+                GZIPOutputStream out = new GZIPOutputStream(new BufferedOutputStream(fos));
+                out.write(bytes);
+                out.finish();
+                out.flush();
+                fos.getFD().sync();
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Logger.getLogger(CheckpointWriter.class.getName()).log(Level.SEVERE,
+                    String.format("Failed to write checkpoint %s", file), ex);
+        }
+    }
+
+    /**
+     * Gets the history file that goes with a checkpoint file
+     *
+     * @param checkpointFile the checkpoint file
+     * @return the history file of the checkpoint file
+     */
+    static File historyFile(File checkpointFile) {
+        return new File(checkpointFile.getPath() + ".history");
+    }
+
+    /**
+     * Reads the solutions in the first chunks of a history file
+     *
+     * @param historyFile the history file
+     * @param chunks the number of chunks to read
+     * @return the solutions in the chunks in the order they were written
+     * @throws IOException if the chunks cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    static List<Solution> readHistory(File historyFile, int chunks) throws IOException {
+        ArrayList<Solution> solutions = new ArrayList<>();
+        if (chunks == 0) {
+            return solutions;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(historyFile)))) {
+            for (int i = 0; i < chunks; i++) {
+                byte[] chunk = new byte[in.readInt()];
+                in.readFully(chunk);
+                try (ObjectInputStream chunkIn = new ObjectInputStream(
+                        new GZIPInputStream(new ByteArrayInputStream(chunk)))) {
+                    solutions.addAll((List<Solution>) chunkIn.readObject());
+                } catch (ClassNotFoundException | ClassCastException ex) {
+                    throw new IOException(String.format("%s is not a checkpoint history.", historyFile), ex);
+                }
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * Finds the length in bytes of the first chunks of a history file
+     *
+     * @param historyFile the history file
+     * @param chunks the number of chunks
+     * @return the length in bytes of the chunks
+     * @throws IOException if the file holds fewer chunks
+     */
+    private static long historyLength(File historyFile, int chunks) throws IOException {
+        long length = 0;
+        if (chunks == 0) {
+            return length;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(historyFile)))) {
+            for (int i = 0; i < chunks; i++) {
+                int size = in.readInt();
+                if (in.skipBytes(size) != size) {
+                    throw new IOException(String.format(
+                            "Expected %d chunks in %s. Found %d", chunks, historyFile, i));
+                }
+                length += 4 + size;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Gets the checkpoint file
+     *
+     * @return the checkpoint file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Waits for the checkpoints that were taken to be written and stops the
+     * background thread
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Logger.getLogger(CheckpointWriter.class.getName()).log(Level.SEVERE, null, ex);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates a daemon thread so that a writer that is not closed does not
+     * keep the JVM alive
+     */
+    private static class CheckpointThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "conmop-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
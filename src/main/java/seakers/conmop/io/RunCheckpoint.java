@@ -0,0 +1,512 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import org.moeaframework.algorithm.AbstractEvolutionaryAlgorithm;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import seakers.aos.aos.AOSMOEA;
+import seakers.aos.creditassignment.Credit;
+import seakers.aos.history.CreditHistory;
+import seakers.aos.history.OperatorQualityHistory;
+import seakers.aos.history.OperatorSelectionHistory;
+import seakers.aos.history.QualityRecord;
+import seakers.aos.operator.AOSVariation;
+import seakers.conmop.parallel.AsynchronousEpsilonMOEA;
+import seakers.conmop.parallel.PerThreadRandom;
+
+/**
+ * The state of a run of an epsilon-MOEA with adaptive operator selection at
+ * the end of a step. It holds the population, the archive and the number of
+ * evaluations of the algorithm, the offspring still being evaluated by an
+ * AsynchronousEpsilonMOEA, the state of the PRNG, the state of the operator
+ * selector and the AOS strategy, and the credit, selection and quality
+ * histories. The solutions recorded by the AOSMOEA grow with every evaluation,
+ * so they are not serialized with each checkpoint. A CheckpointWriter appends
+ * the solutions recorded since the previous checkpoint to a history file next
+ * to the checkpoint file, and the checkpoint only holds the number of chunks
+ * of the history file it covers. A run restored from a checkpoint continues
+ * from the step the checkpoint was taken at.
+ *
+ * The operators are not serialized. They are identified by their position in
+ * the operator selector, so the run must be restored with the same operators
+ * created in the same order. The AOS library offers no setters for the
+ * probabilities and counters of the operator selector or the evaluation
+ * counter of the AOS strategy, so the mutable numeric fields and the maps from
+ * operators to values of these objects are copied by reflection.
+ *
+ * @author nhitomi
+ */
+public class RunCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = -6178839512307445207L;
+
+    /**
+     * The population, archive and number of evaluations of the algorithm
+     */
+    private final Serializable algorithmState;
+
+    /**
+     * The offspring being evaluated when the checkpoint was taken
+     */
+    private final ArrayList<Solution> offspringInFlight;
+
+    /**
+     * The number of chunks of the history file that hold the solutions
+     * recorded by the AOSMOEA when the checkpoint was taken
+     */
+    private int historyChunks;
+
+    /**
+     * The number of solutions recorded by the AOSMOEA when the checkpoint was
+     * taken
+     */
+    private int numberOfSolutions;
+
+    /**
+     * The solutions recorded by the AOSMOEA when the checkpoint was captured
+     */
+    private transient Collection<Solution> recordedSolutions;
+
+    /**
+     * The solutions read from the history file when the checkpoint was read
+     */
+    private transient List<Solution> allSolutions;
+
+    /**
+     * The file the checkpoint was read from
+     */
+    private transient File file;
+
+    /**
+     * The random number generator of the PRNG, or of the thread of the run if
+     * the PRNG is a PerThreadRandom
+     */
+    private final Random random;
+
+    /**
+     * The mutable fields of the operator selector
+     */
+    private final HashMap<String, Serializable> selectorFields;
+
+    /**
+     * The mutable fields of the AOS strategy
+     */
+    private final HashMap<String, Serializable> strategyFields;
+
+    /**
+     * The credits received by each operator
+     */
+    private final ArrayList<ArrayList<Credit>> credits;
+
+    /**
+     * The indices of the selected operators in the order they were selected
+     */
+    private final int[] selectedOperators;
+
+    /**
+     * The times the operators were selected at
+     */
+    private final int[] selectionTimes;
+
+    /**
+     * The quality values of each operator
+     */
+    private final double[][] qualities;
+
+    /**
+     * The iterations of the quality values of each operator
+     */
+    private final int[][] qualityIterations;
+
+    /**
+     * The number of evaluations when the checkpoint was taken
+     */
+    private final int numberOfEvaluations;
+
+    private RunCheckpoint(AbstractEvolutionaryAlgorithm ea, AOSVariation aosStrategy, AOSMOEA aos) throws NotSerializableException {
+        this.algorithmState = ea.getState();
+        this.numberOfEvaluations = ea.getNumberOfEvaluations();
+        this.offspringInFlight = new ArrayList<>();
+        if (ea instanceof AsynchronousEpsilonMOEA) {
+            //the workers may still be modifying the offspring, so the copies
+            //taken before they were submitted are saved and will be evaluated
+            //again on restore
+            offspringInFlight.addAll(((AsynchronousEpsilonMOEA) ea).getUnevaluatedOffspringInFlight());
+        }
+        this.recordedSolutions = aos.getAllSolutions();
+        //with a per-thread generator only the generator of this run is saved
+        if (PRNG.getRandom() instanceof PerThreadRandom) {
+            this.random = ((PerThreadRandom) PRNG.getRandom()).getRandom();
+        } else {
+            this.random = PRNG.getRandom();
+        }
+
+        List<Variation> operators = operators(aosStrategy);
+        this.selectorFields = captureFields(aosStrategy.getOperatorSelector(), operators);
+        this.strategyFields = captureFields(aosStrategy, operators);
+
+        this.credits = new ArrayList<>(operators.size());
+        this.qualities = new double[operators.size()][];
+        this.qualityIterations = new int[operators.size()][];
+        for (int i = 0; i < operators.size(); i++) {
+            Collection<Credit> creditHistory = aosStrategy.getCreditHistory().getHistory(operators.get(i));
+            credits.add(creditHistory == null ? new ArrayList<Credit>() : new ArrayList<>(creditHistory));
+
+            Collection<QualityRecord> qualityHistory = aosStrategy.getQualityHistory().getHistory(operators.get(i));
+            int n = qualityHistory == null ? 0 : qualityHistory.size();
+            qualities[i] = new double[n];
+            qualityIterations[i] = new int[n];
+            if (qualityHistory != null) {
+                int j = 0;
+                for (QualityRecord record : qualityHistory) {
+                    qualities[i][j] = record.getQuality();
+                    qualityIterations[i][j] = record.getIteration();
+                    j++;
+                }
+            }
+        }
+
+        ArrayList<Variation> selected = aosStrategy.getSelectionHistory().getOrderedHistory();
+        ArrayList<Integer> times = aosStrategy.getSelectionHistory().getOrderedSelectionTime();
+        this.selectedOperators = new int[selected.size()];
+        this.selectionTimes = new int[selected.size()];
+        for (int i = 0; i < selected.size(); i++) {
+            selectedOperators[i] = indexOf(operators, selected.get(i));
+            selectionTimes[i] = times.get(i);
+        }
+    }
+
+    /**
+     * Captures the state of a run. Must be called between steps of the
+     * AOSMOEA, on the thread that steps it.
+     *
+     * @param ea the epsilon-MOEA wrapped by the AOSMOEA
+     * @param aosStrategy the AOS strategy used as the variation of the
+     * epsilon-MOEA
+     * @param aos the AOSMOEA
+     * @return the checkpoint of the run. It shares the solutions with the run,
+     * so it must be written before the next step
+     * @throws NotSerializableException if the algorithm does not support
+     * checkpoints
+     */
+    public static RunCheckpoint capture(AbstractEvolutionaryAlgorithm ea, AOSVariation aosStrategy, AOSMOEA aos) throws NotSerializableException {
+        return new RunCheckpoint(ea, aosStrategy, aos);
+    }
+
+    /**
+     * Restores the state of the run into newly created objects that have not
+     * been stepped yet. The operators must be the same as, and in the same
+     * order as, those of the run the checkpoint was taken from.
+     *
+     * @param ea the epsilon-MOEA wrapped by the AOSMOEA
+     * @param aosStrategy the AOS strategy used as the variation of the
+     * epsilon-MOEA
+     * @param aos the AOSMOEA
+     * @throws NotSerializableException if the algorithm does not support
+     * checkpoints
+     */
+    public void restore(AbstractEvolutionaryAlgorithm ea, AOSVariation aosStrategy, AOSMOEA aos) throws NotSerializableException {
+        if (allSolutions == null) {
+            throw new IllegalStateException("Expected a checkpoint read from a file.");
+        }
+        List<Variation> operators = operators(aosStrategy);
+        if (operators.size() != credits.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %d operators. Found %d", credits.size(), operators.size()));
+        }
+
+        ea.setState(algorithmState);
+        if (!offspringInFlight.isEmpty()) {
+            if (!(ea instanceof AsynchronousEpsilonMOEA)) {
+                throw new IllegalArgumentException(
+                        "Expected an AsynchronousEpsilonMOEA to evaluate the offspring that were in flight.");
+            }
+            ((AsynchronousEpsilonMOEA) ea).submit(offspringInFlight);
+        }
+        aos.getAllSolutions().addAll(allSolutions);
+        if (PRNG.getRandom() instanceof PerThreadRandom) {
+            ((PerThreadRandom) PRNG.getRandom()).setRandom(random);
+        } else {
+            PRNG.setRandom(random);
+        }
+
+        restoreFields(aosStrategy.getOperatorSelector(), selectorFields, operators);
+        restoreFields(aosStrategy, strategyFields, operators);
+
+        CreditHistory creditHistory = aosStrategy.getCreditHistory();
+        OperatorQualityHistory qualityHistory = aosStrategy.getQualityHistory();
+        creditHistory.clear();
+        qualityHistory.clear();
+        for (int i = 0; i < operators.size(); i++) {
+            for (Credit credit : credits.get(i)) {
+                creditHistory.add(operators.get(i), credit);
+            }
+            for (int j = 0; j < qualities[i].length; j++) {
+                qualityHistory.add(operators.get(i), qualities[i][j], qualityIterations[i][j]);
+            }
+        }
+
+        OperatorSelectionHistory selectionHistory = aosStrategy.getSelectionHistory();
+        selectionHistory.reset();
+        for (int i = 0; i < selectedOperators.length; i++) {
+            selectionHistory.add(operators.get(selectedOperators[i]), selectionTimes[i]);
+        }
+    }
+
+    /**
+     * Gets the number of evaluations when the checkpoint was taken
+     *
+     * @return the number of evaluations when the checkpoint was taken
+     */
+    public int getNumberOfEvaluations() {
+        return numberOfEvaluations;
+    }
+
+    /**
+     * Gets the file the checkpoint was read from
+     *
+     * @return the file the checkpoint was read from, or null if the
+     * checkpoint was captured from a run
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the number of chunks of the history file that the checkpoint
+     * covers
+     *
+     * @return the number of chunks of the history file
+     */
+    int getHistoryChunks() {
+        return historyChunks;
+    }
+
+    /**
+     * Gets the number of solutions recorded by the AOSMOEA when the
+     * checkpoint was taken
+     *
+     * @return the number of solutions recorded by the AOSMOEA
+     */
+    int getNumberOfSolutions() {
+        return numberOfSolutions;
+    }
+
+    /**
+     * Sets the part of the history file that the checkpoint covers. Called by
+     * the CheckpointWriter before the checkpoint is serialized.
+     *
+     * @param historyChunks the number of chunks of the history file
+     * @param numberOfSolutions the number of solutions in those chunks
+     */
+    void setHistory(int historyChunks, int numberOfSolutions) {
+        this.historyChunks = historyChunks;
+        this.numberOfSolutions = numberOfSolutions;
+    }
+
+    /**
+     * Gets the solutions recorded by the AOSMOEA when the checkpoint was
+     * captured
+     *
+     * @return the solutions recorded by the AOSMOEA, or null if the checkpoint
+     * was read from a file
+     */
+    Collection<Solution> getRecordedSolutions() {
+        return recordedSolutions;
+    }
+
+    /**
+     * Gets the solutions read from the history file
+     *
+     * @return the solutions read from the history file, or null if the
+     * checkpoint was captured from a run
+     */
+    List<Solution> getAllSolutions() {
+        return allSolutions;
+    }
+
+    /**
+     * Reads a checkpoint written by a CheckpointWriter and the solutions it
+     * covers in the history file next to it
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static RunCheckpoint read(File file) throws IOException {
+        RunCheckpoint checkpoint;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            checkpoint = (RunCheckpoint) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException(String.format("%s is not a checkpoint.", file), ex);
+        }
+        checkpoint.file = file;
+        checkpoint.allSolutions = CheckpointWriter.readHistory(
+                CheckpointWriter.historyFile(file), checkpoint.historyChunks);
+        if (checkpoint.allSolutions.size() != checkpoint.numberOfSolutions) {
+            throw new IOException(String.format(
+                    "Expected %d solutions in the history of %s. Found %d",
+                    checkpoint.numberOfSolutions, file, checkpoint.allSolutions.size()));
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Gets the operators of the operator selector in a stable order
+     *
+     * @param aosStrategy the AOS strategy
+     * @return the operators in the order they were given to the operator
+     * selector
+     */
+    private static List<Variation> operators(AOSVariation aosStrategy) {
+        return new ArrayList<>(aosStrategy.getOperatorSelector().getOperators());
+    }
+
+    /**
+     * Finds an operator by identity
+     *
+     * @param operators the operators
+     * @param operator the operator to find
+     * @return the index of the operator
+     */
+    private static int indexOf(List<Variation> operators, Variation operator) {
+        for (int i = 0; i < operators.size(); i++) {
+            if (operators.get(i) == operator) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(
+                String.format("Operator %s is not known to the operator selector.", operator));
+    }
+
+    /**
+     * Copies the mutable primitive fields and the maps from operators to
+     * numbers of an object and its superclasses. The maps are stored as
+     * arrays indexed by operator, with NaN for the operators that are not in
+     * the map.
+     *
+     * @param object the object
+     * @param operators the operators
+     * @return the values of the fields by declaring class and name
+     */
+    private static HashMap<String, Serializable> captureFields(Object object, List<Variation> operators) {
+        HashMap<String, Serializable> fields = new HashMap<>();
+        for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Object value = get(field, object);
+                String key = type.getName() + "." + field.getName();
+                if (field.getType().isPrimitive()) {
+                    if (!Modifier.isFinal(field.getModifiers())) {
+                        fields.put(key, (Serializable) value);
+                    }
+                } else if (value instanceof Map && isOperatorMap((Map<?, ?>) value, operators)) {
+                    double[] values = new double[operators.size()];
+                    for (int i = 0; i < operators.size(); i++) {
+                        Object v = ((Map<?, ?>) value).get(operators.get(i));
+                        values[i] = v == null ? Double.NaN : ((Number) v).doubleValue();
+                    }
+                    fields.put(key, values);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Restores the fields copied by captureFields
+     *
+     * @param object the object
+     * @param fields the values of the fields by declaring class and name
+     * @param operators the operators
+     */
+    @SuppressWarnings("unchecked")
+    private static void restoreFields(Object object, HashMap<String, Serializable> fields, List<Variation> operators) {
+        for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                String key = type.getName() + "." + field.getName();
+                if (!fields.containsKey(key)) {
+                    continue;
+                }
+                Serializable value = fields.get(key);
+                field.setAccessible(true);
+                if (value instanceof double[]) {
+                    Map<Variation, Double> map = (Map<Variation, Double>) get(field, object);
+                    map.clear();
+                    double[] values = (double[]) value;
+                    for (int i = 0; i < operators.size(); i++) {
+                        if (!Double.isNaN(values[i])) {
+                            map.put(operators.get(i), values[i]);
+                        }
+                    }
+                } else {
+                    try {
+                        field.set(object, value);
+                    } catch (IllegalAccessException ex) {
+                        throw new IllegalStateException(
+                                String.format("Could not restore field %s.", key), ex);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Object get(Field field, Object object) {
+        try {
+            field.setAccessible(true);
+            return field.get(object);
+        } catch (IllegalAccessException | RuntimeException ex) {
+            throw new IllegalStateException(
+                    String.format("Could not read field %s.", field), ex);
+        }
+    }
+
+    /**
+     * Checks if a map maps operators to numbers
+     *
+     * @param map the map
+     * @param operators the operators
+     * @return true if every key of the map is one of the operators and every
+     * value is a number
+     */
+    private static boolean isOperatorMap(Map<?, ?> map, List<Variation> operators) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getValue() instanceof Number)) {
+                return false;
+            }
+            boolean known = false;
+            for (Variation operator : operators) {
+                known |= operator == entry.getKey();
+            }
+            if (!known) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
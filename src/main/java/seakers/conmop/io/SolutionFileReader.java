@@ -0,0 +1,241 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import seakers.conmop.util.OrbitalElementEnum;
+
+/**
+ * Reads a solution file written by SolutionFileWriter. The file is
+ * memory-mapped, so the solutions are read on demand without loading the
+ * whole file. If the writer was not closed, for example because the run was
+ * killed, the records are found by walking the file from the header and an
+ * incomplete last record is ignored.
+ *
+ * @author nhitomi
+ */
+public class SolutionFileReader {
+
+    /**
+     * The mapped file
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The number of objectives of each solution
+     */
+    private final int numberOfObjectives;
+
+    /**
+     * The number of constraints of each solution
+     */
+    private final int numberOfConstraints;
+
+    /**
+     * The byte offset of each record
+     */
+    private final long[] offsets;
+
+    /**
+     * Maps a solution file
+     *
+     * @param file the solution file
+     * @throws IOException if the file cannot be read or is not a solution
+     * file
+     */
+    public SolutionFileReader(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s is too large to be mapped.", file));
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < SolutionFileWriter.HEADER_SIZE) {
+            throw new IOException(String.format("%s is not a solution file.", file));
+        }
+        for (int i = 0; i < SolutionFileWriter.MAGIC.length; i++) {
+            if (buffer.get(i) != SolutionFileWriter.MAGIC[i]) {
+                throw new IOException(String.format("%s is not a solution file.", file));
+            }
+        }
+        int version = buffer.getInt(4);
+        if (version != SolutionFileWriter.VERSION) {
+            throw new IOException(String.format("Unsupported version %d of solution file %s.", version, file));
+        }
+        this.numberOfObjectives = buffer.getInt(8);
+        this.numberOfConstraints = buffer.getInt(12);
+        long numberOfSolutions = buffer.getLong(16);
+        long indexOffset = buffer.getLong(24);
+
+        if (indexOffset > 0) {
+            this.offsets = new long[(int) numberOfSolutions];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = buffer.getLong((int) indexOffset + 8 * i);
+            }
+        } else {
+            //the writer was not closed so walk the complete records
+            long[] found = new long[1024];
+            int n = 0;
+            long position = SolutionFileWriter.HEADER_SIZE;
+            while (position + 8 <= buffer.limit()) {
+                long size = recordSize(buffer.getInt((int) position));
+                if (position + size > buffer.limit()) {
+                    break;
+                }
+                if (n == found.length) {
+                    found = Arrays.copyOf(found, 2 * found.length);
+                }
+                found[n++] = position;
+                position += size;
+            }
+            this.offsets = Arrays.copyOf(found, n);
+        }
+    }
+
+    /**
+     * Computes the size of a record
+     *
+     * @param nSatellites the number of satellites in the record
+     * @return the size of the record in bytes
+     */
+    private long recordSize(int nSatellites) {
+        return 8 + 8L * (numberOfObjectives + numberOfConstraints
+                + SolutionFileWriter.N_ELEMENTS * nSatellites);
+    }
+
+    /**
+     * Gets the number of solutions in the file
+     *
+     * @return the number of solutions in the file
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Gets the number of objectives of each solution
+     *
+     * @return the number of objectives of each solution
+     */
+    public int getNumberOfObjectives() {
+        return numberOfObjectives;
+    }
+
+    /**
+     * Gets the number of constraints of each solution
+     *
+     * @return the number of constraints of each solution
+     */
+    public int getNumberOfConstraints() {
+        return numberOfConstraints;
+    }
+
+    /**
+     * Gets the number of manifested satellites of a solution
+     *
+     * @param index the index of the solution
+     * @return the number of manifested satellites of the solution
+     */
+    public int getNumberOfSatellites(int index) {
+        return buffer.getInt((int) offsets[index]);
+    }
+
+    /**
+     * Gets the NFE attribute of a solution
+     *
+     * @param index the index of the solution
+     * @return the NFE attribute of the solution. -1 if the solution had none
+     */
+    public int getNFE(int index) {
+        return buffer.getInt((int) offsets[index] + 4);
+    }
+
+    /**
+     * Gets an objective value of a solution
+     *
+     * @param index the index of the solution
+     * @param objective the index of the objective
+     * @return the objective value
+     */
+    public double getObjective(int index, int objective) {
+        return buffer.getDouble((int) offsets[index] + 8 + 8 * objective);
+    }
+
+    /**
+     * Gets the objective values of a solution
+     *
+     * @param index the index of the solution
+     * @return the objective values
+     */
+    public double[] getObjectives(int index) {
+        return readDoubles((int) offsets[index] + 8, numberOfObjectives);
+    }
+
+    /**
+     * Gets the constraint values of a solution
+     *
+     * @param index the index of the solution
+     * @return the constraint values
+     */
+    public double[] getConstraints(int index) {
+        return readDoubles((int) offsets[index] + 8 + 8 * numberOfObjectives, numberOfConstraints);
+    }
+
+    /**
+     * Gets one orbital element of all the manifested satellites of a solution
+     *
+     * @param index the index of the solution
+     * @param element the orbital element
+     * @return the values of the orbital element in the order of the
+     * satellites
+     */
+    public double[] getElement(int index, OrbitalElementEnum element) {
+        int n = getNumberOfSatellites(index);
+        int column;
+        switch (element) {
+            case SMA:
+                column = 0;
+                break;
+            case ECC:
+                column = 1;
+                break;
+            case INC:
+                column = 2;
+                break;
+            case RAAN:
+                column = 3;
+                break;
+            case AP:
+                column = 4;
+                break;
+            case TA:
+                column = 5;
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        String.format("Unknown orbital element %s.", element));
+        }
+        return readDoubles((int) offsets[index] + 8
+                + 8 * (numberOfObjectives + numberOfConstraints + column * n), n);
+    }
+
+    private double[] readDoubles(int position, int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = buffer.getDouble(position + 8 * i);
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,277 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.moeaframework.core.Solution;
+import seakers.conmop.variable.BooleanSatelliteVariable;
+import seakers.conmop.variable.ConstellationVariable;
+import seakers.conmop.variable.SatelliteVariable;
+
+/**
+ * Writes solutions to a binary solution file one at a time through a buffered
+ * file channel, so that no more than one buffer of the file is held in memory.
+ * All numbers are little-endian. The file holds a header, one record per
+ * solution and an index of the records:
+ *
+ * header (32 bytes): the magic bytes "CMOP", the version (int32), the number
+ * of objectives (int32), the number of constraints (int32), the number of
+ * solutions (int64) and the byte offset of the index (int64)
+ *
+ * record: the number of manifested satellites n (int32), the NFE attribute of
+ * the solution or -1 (int32), the objectives (float64), the constraints
+ * (float64), and the semi-major axes [m], eccentricities, inclinations [rad],
+ * right ascensions of the ascending node [rad], arguments of perigee [rad]
+ * and true anomalies [rad] of the n satellites, each as a column of n float64
+ *
+ * index: the byte offset of each record (int64)
+ *
+ * The number of solutions and the offset of the index are zero until the
+ * writer is closed. Every record starts on a multiple of 8 bytes so the file
+ * can be memory-mapped as columns of doubles. SolutionFileReader and
+ * matlab/readSolutionFile.m read the file back.
+ *
+ * @author nhitomi
+ */
+public class SolutionFileWriter implements Closeable {
+
+    /**
+     * The magic bytes at the start of a solution file
+     */
+    static final byte[] MAGIC = {'C', 'M', 'O', 'P'};
+
+    /**
+     * The version of the file format
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header in bytes
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * The number of orbital elements stored per satellite
+     */
+    static final int N_ELEMENTS = 6;
+
+    /**
+     * The channel to the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer the records are gathered in before they are written
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The number of objectives of each solution
+     */
+    private final int numberOfObjectives;
+
+    /**
+     * The number of constraints of each solution
+     */
+    private final int numberOfConstraints;
+
+    /**
+     * The byte offsets of the records written so far
+     */
+    private long[] offsets;
+
+    /**
+     * The number of records written so far
+     */
+    private int numberOfSolutions;
+
+    /**
+     * The byte offset of the next record
+     */
+    private long position;
+
+    /**
+     * Creates a new solution file, replacing any existing file
+     *
+     * @param file the file to write
+     * @param numberOfObjectives the number of objectives of each solution
+     * @param numberOfConstraints the number of constraints of each solution
+     * @throws IOException if the file cannot be created
+     */
+    public SolutionFileWriter(File file, int numberOfObjectives, int numberOfConstraints) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        this.numberOfObjectives = numberOfObjectives;
+        this.numberOfConstraints = numberOfConstraints;
+        this.offsets = new long[1024];
+        this.numberOfSolutions = 0;
+
+        buffer.put(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(numberOfObjectives);
+        buffer.putInt(numberOfConstraints);
+        buffer.putLong(0L);
+        buffer.putLong(0L);
+        this.position = HEADER_SIZE;
+    }
+
+    /**
+     * Writes all the given solutions
+     *
+     * @param solutions the solutions
+     * @throws IOException if the solutions cannot be written
+     */
+    public void writeAll(Iterable<Solution> solutions) throws IOException {
+        for (Solution solution : solutions) {
+            write(solution);
+        }
+    }
+
+    /**
+     * Writes a solution. The first variable of the solution must be a
+     * ConstellationVariable.
+     *
+     * @param solution the solution
+     * @throws IOException if the solution cannot be written
+     */
+    public void write(Solution solution) throws IOException {
+        if (solution.getNumberOfObjectives() != numberOfObjectives
+                || solution.getNumberOfConstraints() != numberOfConstraints) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %d objectives and %d constraints. Found %d and %d",
+                            numberOfObjectives, numberOfConstraints,
+                            solution.getNumberOfObjectives(), solution.getNumberOfConstraints()));
+        }
+
+        ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+        int n = 0;
+        for (SatelliteVariable var : constel.getSatelliteVariables()) {
+            if (isManifested(var)) {
+                n++;
+            }
+        }
+
+        int size = 8 + 8 * (numberOfObjectives + numberOfConstraints + N_ELEMENTS * n);
+        if (buffer.remaining() < size) {
+            flush();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        if (numberOfSolutions == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+        }
+        offsets[numberOfSolutions++] = position;
+        position += size;
+
+        Object nfe = solution.getAttribute("NFE");
+        buffer.putInt(n);
+        buffer.putInt(nfe instanceof Number ? ((Number) nfe).intValue() : -1);
+        for (int i = 0; i < numberOfObjectives; i++) {
+            buffer.putDouble(solution.getObjective(i));
+        }
+        for (int i = 0; i < numberOfConstraints; i++) {
+            buffer.putDouble(solution.getConstraint(i));
+        }
+
+        //each element is written as a contiguous column over the satellites
+        int start = buffer.position();
+        int k = 0;
+        for (SatelliteVariable var : constel.getSatelliteVariables()) {
+            if (!isManifested(var)) {
+                continue;
+            }
+            buffer.putDouble(start + 8 * k, var.getSma());
+            buffer.putDouble(start + 8 * (n + k), var.getEcc());
+            buffer.putDouble(start + 8 * (2 * n + k), var.getInc());
+            buffer.putDouble(start + 8 * (3 * n + k), var.getRaan());
+            buffer.putDouble(start + 8 * (4 * n + k), var.getArgPer());
+            buffer.putDouble(start + 8 * (5 * n + k), var.getTrueAnomaly());
+            k++;
+        }
+        buffer.position(start + 8 * N_ELEMENTS * n);
+    }
+
+    /**
+     * Checks if a satellite is manifested. Satellites that are not Boolean
+     * satellite variables are always manifested.
+     *
+     * @param var the satellite
+     * @return true if the satellite is manifested
+     */
+    private static boolean isManifested(SatelliteVariable var) {
+        return !(var instanceof BooleanSatelliteVariable)
+                || ((BooleanSatelliteVariable) var).getManifest();
+    }
+
+    /**
+     * Writes the gathered bytes to the channel
+     *
+     * @throws IOException if the bytes cannot be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Gets the number of solutions written so far
+     *
+     * @return the number of solutions written so far
+     */
+    public int getNumberOfSolutions() {
+        return numberOfSolutions;
+    }
+
+    /**
+     * Writes the index, completes the header and closes the file
+     *
+     * @throws IOException if the file cannot be completed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < numberOfSolutions; i++) {
+                if (buffer.remaining() < 8) {
+                    flush();
+                }
+                buffer.putLong(offsets[i]);
+            }
+            flush();
+
+            ByteBuffer counts = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            counts.putLong(numberOfSolutions);
+            counts.putLong(position);
+            counts.flip();
+            long at = HEADER_SIZE - 16;
+            while (counts.hasRemaining()) {
+                at += channel.write(counts, at);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,518 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.operators;
+
+import java.util.ArrayList;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Settings;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import seakers.conmop.variable.ConstellationVariable;
+import seakers.conmop.variable.PackedConstellationVariable;
+import seakers.conmop.variable.SatelliteBounds;
+import seakers.conmop.variable.SatelliteVariable;
+import static seakers.conmop.variable.PackedConstellationVariable.AP;
+import static seakers.conmop.variable.PackedConstellationVariable.ECC;
+import static seakers.conmop.variable.PackedConstellationVariable.ELEMENTS_PER_SATELLITE;
+import static seakers.conmop.variable.PackedConstellationVariable.INC;
+import static seakers.conmop.variable.PackedConstellationVariable.RAAN;
+import static seakers.conmop.variable.PackedConstellationVariable.SMA;
+import static seakers.conmop.variable.PackedConstellationVariable.TA;
+
+/**
+ * Applies simulated binary crossover followed by polynomial mutation to the
+ * orbital elements of two constellations or two satellites. The result is
+ * the same as an OrbitElementOperator wrapping a CompoundVariation of an SBX
+ * and a VariablePM with the same parameters, and the same random numbers are
+ * drawn in the same order. Instead of building a Solution of RealVariables
+ * for each parent, the orbital elements that can vary are copied into one
+ * array per parent and the crossover and mutation operate on the arrays. The
+ * orbital elements that can vary are found once for the bounds of a problem.
+ * The orbital elements of packed constellations are read from and written to
+ * their arrays directly.
+ *
+ * @author nhitomi
+ */
+public class ArrayOrbitElementOperator implements Variation {
+
+    /**
+     * The probability of applying the crossover
+     */
+    private final double sbxProbability;
+
+    /**
+     * The distribution index of the crossover
+     */
+    private final double sbxDistributionIndex;
+
+    /**
+     * The distribution index of the mutation
+     */
+    private final double pmDistributionIndex;
+
+    /**
+     * The orbital elements that can vary under the bounds seen last
+     */
+    private Locus locus;
+
+    /**
+     * Creates a new operator
+     *
+     * @param sbxProbability the probability of applying the crossover
+     * @param sbxDistributionIndex the distribution index of the crossover
+     * @param pmDistributionIndex the distribution index of the mutation. Each
+     * element is mutated with a probability that is the inverse of the number
+     * of elements crossed, as in VariablePM
+     */
+    public ArrayOrbitElementOperator(double sbxProbability, double sbxDistributionIndex, double pmDistributionIndex) {
+        this.sbxProbability = sbxProbability;
+        this.sbxDistributionIndex = sbxDistributionIndex;
+        this.pmDistributionIndex = pmDistributionIndex;
+    }
+
+    @Override
+    public int getArity() {
+        return 2;
+    }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        //copy the solutions
+        Solution[] children = new Solution[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            children[i] = parents[i].copy();
+        }
+
+        for (int i = 0; i < children[0].getNumberOfVariables(); i++) {
+            //if the solution is composed of constellation variables
+            boolean constelVariables = true;
+            for (int j = 0; j < children.length; j++) {
+                if (!(children[j].getVariable(i) instanceof ConstellationVariable)) {
+                    constelVariables = false;
+                    break;
+                }
+            }
+            boolean satVariables = true;
+            for (int j = 0; j < children.length; j++) {
+                if (!(children[j].getVariable(i) instanceof SatelliteVariable)) {
+                    satVariables = false;
+                    break;
+                }
+            }
+            if (constelVariables) {
+                evolve((ConstellationVariable) children[0].getVariable(i),
+                        (ConstellationVariable) children[1].getVariable(i));
+            } else if (satVariables) {
+                evolve((SatelliteVariable) children[0].getVariable(i),
+                        (SatelliteVariable) children[1].getVariable(i));
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Crosses and mutates the orbital elements of two constellations in place.
+     * A number of satellites equal to the number of satellites in the smaller
+     * constellation are drawn with replacement from each constellation and
+     * paired in the order they are drawn.
+     *
+     * @param constel1 the first constellation
+     * @param constel2 the second constellation
+     */
+    private void evolve(ConstellationVariable constel1, ConstellationVariable constel2) {
+        int minNSats = Math.min(constel1.getNumberOfSatellites(), constel2.getNumberOfSatellites());
+
+        //draw the satellites to cross
+        int[] index1 = new int[minNSats];
+        for (int j = 0; j < minNSats; j++) {
+            index1[j] = PRNG.nextInt(constel1.getNumberOfSatellites());
+        }
+        int[] index2 = new int[minNSats];
+        for (int j = 0; j < minNSats; j++) {
+            index2[j] = PRNG.nextInt(constel2.getNumberOfSatellites());
+        }
+
+        Locus loc = getLocus(constel1.getSatelliteBounds());
+        double[] x1 = read(constel1, index1, loc);
+        double[] x2 = read(constel2, index2, loc);
+        crossAndMutate(x1, x2, loc, minNSats);
+        write(constel1, index1, loc, x1);
+        write(constel2, index2, loc, x2);
+    }
+
+    /**
+     * Crosses and mutates the orbital elements of two satellites in place
+     *
+     * @param sat1 the first satellite
+     * @param sat2 the second satellite
+     */
+    private void evolve(SatelliteVariable sat1, SatelliteVariable sat2) {
+        Locus loc = getLocus(sat1.getBounds());
+        double[] x1 = new double[loc.size()];
+        double[] x2 = new double[loc.size()];
+        for (int k = 0; k < loc.size(); k++) {
+            x1[k] = get(sat1, loc.elements[k]);
+            x2[k] = get(sat2, loc.elements[k]);
+        }
+        crossAndMutate(x1, x2, loc, 1);
+        for (int k = 0; k < loc.size(); k++) {
+            set(sat1, loc.elements[k], x1[k]);
+            set(sat2, loc.elements[k], x2[k]);
+        }
+    }
+
+    /**
+     * Copies the varying orbital elements of the selected satellites into an
+     * array ordered by satellite and then by element
+     *
+     * @param constel the constellation
+     * @param indices the indices of the selected satellites
+     * @param loc the orbital elements that can vary
+     * @return the array of orbital elements
+     */
+    private static double[] read(ConstellationVariable constel, int[] indices, Locus loc) {
+        int n = loc.size();
+        double[] x = new double[indices.length * n];
+        if (constel instanceof PackedConstellationVariable) {
+            double[] elements = ((PackedConstellationVariable) constel).getElements();
+            for (int j = 0; j < indices.length; j++) {
+                int offset = indices[j] * ELEMENTS_PER_SATELLITE;
+                for (int k = 0; k < n; k++) {
+                    x[j * n + k] = elements[offset + loc.elements[k]];
+                }
+            }
+        } else {
+            ArrayList<SatelliteVariable> sats = new ArrayList<>(constel.getSatelliteVariables());
+            for (int j = 0; j < indices.length; j++) {
+                SatelliteVariable sat = sats.get(indices[j]);
+                for (int k = 0; k < n; k++) {
+                    x[j * n + k] = get(sat, loc.elements[k]);
+                }
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Writes the varying orbital elements back to the selected satellites. A
+     * satellite that was selected more than once keeps the values of its last
+     * selection.
+     *
+     * @param constel the constellation
+     * @param indices the indices of the selected satellites
+     * @param loc the orbital elements that can vary
+     * @param x the array of orbital elements
+     */
+    private static void write(ConstellationVariable constel, int[] indices, Locus loc, double[] x) {
+        int n = loc.size();
+        if (constel instanceof PackedConstellationVariable) {
+            //the values are clamped to the same bounds the views check
+            double[] elements = ((PackedConstellationVariable) constel).getElements();
+            for (int j = 0; j < indices.length; j++) {
+                int offset = indices[j] * ELEMENTS_PER_SATELLITE;
+                for (int k = 0; k < n; k++) {
+                    elements[offset + loc.elements[k]] = x[j * n + k];
+                }
+            }
+        } else {
+            ArrayList<SatelliteVariable> sats = new ArrayList<>(constel.getSatelliteVariables());
+            for (int j = 0; j < indices.length; j++) {
+                SatelliteVariable sat = sats.get(indices[j]);
+                for (int k = 0; k < n; k++) {
+                    set(sat, loc.elements[k], x[j * n + k]);
+                }
+            }
+            constel.setSatelliteVariables(sats);
+        }
+    }
+
+    /**
+     * Applies the crossover to both arrays and then the mutation to each array
+     * in the same way as CompoundVariation applies SBX and VariablePM
+     *
+     * @param x1 the orbital elements of the first parent
+     * @param x2 the orbital elements of the second parent
+     * @param loc the orbital elements that can vary
+     * @param nSats the number of satellites in each array
+     */
+    private void crossAndMutate(double[] x1, double[] x2, Locus loc, int nSats) {
+        int n = loc.size();
+        if (PRNG.nextDouble() <= sbxProbability) {
+            for (int j = 0; j < nSats; j++) {
+                for (int k = 0; k < n; k++) {
+                    if (PRNG.nextBoolean()) {
+                        sbx(x1, x2, j * n + k, loc.lower[k], loc.upper[k], sbxDistributionIndex);
+                    }
+                }
+            }
+        }
+        mutate(x1, loc, nSats);
+        mutate(x2, loc, nSats);
+    }
+
+    /**
+     * Mutates each element with a probability that is the inverse of the
+     * length of the array
+     *
+     * @param x the orbital elements
+     * @param loc the orbital elements that can vary
+     * @param nSats the number of satellites in the array
+     */
+    private void mutate(double[] x, Locus loc, int nSats) {
+        int n = loc.size();
+        for (int j = 0; j < nSats; j++) {
+            for (int k = 0; k < n; k++) {
+                if (PRNG.nextDouble() <= 1. / x.length) {
+                    pm(x, j * n + k, loc.lower[k], loc.upper[k], pmDistributionIndex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Simulated binary crossover of one element. Follows SBX.evolve_asymmetric
+     * with swapping enabled.
+     *
+     * @param x1 the elements of the first parent
+     * @param x2 the elements of the second parent
+     * @param i the index of the element
+     * @param lb the lower bound of the element
+     * @param ub the upper bound of the element
+     * @param distributionIndex the distribution index
+     */
+    private static void sbx(double[] x1, double[] x2, int i, double lb, double ub, double distributionIndex) {
+        double x0 = x1[i];
+        double x1i = x2[i];
+        if (Math.abs(x0 - x1i) > Settings.EPS) {
+            double y1;
+            double y2;
+            if (x1i > x0) {
+                y2 = x1i;
+                y1 = x0;
+            } else {
+                y2 = x0;
+                y1 = x1i;
+            }
+
+            double rand = PRNG.nextDouble();
+            double betaq1 = betaq(1.0 / (1.0 + 2.0 * (y1 - lb) / (y2 - y1)), rand, distributionIndex);
+            double betaq2 = betaq(1.0 / (1.0 + 2.0 * (ub - y2) / (y2 - y1)), rand, distributionIndex);
+            double c1 = 0.5 * ((y1 + y2) - betaq1 * (y2 - y1));
+            double c2 = 0.5 * ((y1 + y2) + betaq2 * (y2 - y1));
+
+            if (c1 < lb) {
+                c1 = lb;
+            } else if (c1 > ub) {
+                c1 = ub;
+            }
+            if (c2 < lb) {
+                c2 = lb;
+            } else if (c2 > ub) {
+                c2 = ub;
+            }
+
+            if (PRNG.nextBoolean()) {
+                double temp = c1;
+                c1 = c2;
+                c2 = temp;
+            }
+            x1[i] = c1;
+            x2[i] = c2;
+        }
+    }
+
+    /**
+     * Computes the spread factor of one child in the simulated binary
+     * crossover
+     *
+     * @param beta the spread factor allowed by the bounds
+     * @param rand the uniform random number shared by both children
+     * @param distributionIndex the distribution index
+     * @return the spread factor of the child
+     */
+    private static double betaq(double beta, double rand, double distributionIndex) {
+        double alpha = 2.0 - Math.pow(beta, distributionIndex + 1.0);
+        if (rand <= 1.0 / alpha) {
+            alpha = alpha * rand;
+        } else {
+            alpha = alpha * rand;
+            alpha = 1.0 / (2.0 - alpha);
+        }
+        return Math.pow(alpha, 1.0 / (distributionIndex + 1.0));
+    }
+
+    /**
+     * Polynomial mutation of one element. Follows PM.evolve.
+     *
+     * @param x the elements
+     * @param i the index of the element
+     * @param lb the lower bound of the element
+     * @param ub the upper bound of the element
+     * @param distributionIndex the distribution index
+     */
+    private static void pm(double[] x, int i, double lb, double ub, double distributionIndex) {
+        double u = PRNG.nextDouble();
+        double value = x[i];
+        double dx = ub - lb;
+        double delta;
+        if (u < 0.5) {
+            double bl = (value - lb) / dx;
+            double b = 2.0 * u + (1.0 - 2.0 * u) * Math.pow(1.0 - bl, distributionIndex + 1.0);
+            delta = Math.pow(b, 1.0 / (distributionIndex + 1.0)) - 1.0;
+        } else {
+            double bu = (ub - value) / dx;
+            double b = 2.0 * (1.0 - u) + 2.0 * (u - 0.5) * Math.pow(1.0 - bu, distributionIndex + 1.0);
+            delta = 1.0 - Math.pow(b, 1.0 / (distributionIndex + 1.0));
+        }
+        value = value + delta * dx;
+        if (value < lb) {
+            value = lb;
+        } else if (value > ub) {
+            value = ub;
+        }
+        x[i] = value;
+    }
+
+    /**
+     * Gets the orbital elements that can vary under the given bounds. The
+     * locus is only recomputed when the bounds change, which normally happens
+     * once per problem.
+     *
+     * @param bounds the bounds on the orbital elements
+     * @return the orbital elements that can vary
+     */
+    private Locus getLocus(SatelliteBounds bounds) {
+        Locus loc = this.locus;
+        if (loc == null || loc.bounds != bounds) {
+            loc = new Locus(bounds);
+            this.locus = loc;
+        }
+        return loc;
+    }
+
+    /**
+     * Gets an orbital element of a satellite
+     *
+     * @param sat the satellite
+     * @param element the offset of the element as defined in
+     * PackedConstellationVariable
+     * @return the value of the element
+     */
+    private static double get(SatelliteVariable sat, int element) {
+        switch (element) {
+            case SMA:
+                return sat.getSma();
+            case ECC:
+                return sat.getEcc();
+            case INC:
+                return sat.getInc();
+            case AP:
+                return sat.getArgPer();
+            case RAAN:
+                return sat.getRaan();
+            case TA:
+                return sat.getTrueAnomaly();
+            default:
+                throw new IllegalArgumentException(String.format("Unknown orbital element %d", element));
+        }
+    }
+
+    /**
+     * Sets an orbital element of a satellite
+     *
+     * @param sat the satellite
+     * @param element the offset of the element as defined in
+     * PackedConstellationVariable
+     * @param value the value of the element
+     */
+    private static void set(SatelliteVariable sat, int element, double value) {
+        switch (element) {
+            case SMA:
+                sat.setSma(value);
+                break;
+            case ECC:
+                sat.setEcc(value);
+                break;
+            case INC:
+                sat.setInc(value);
+                break;
+            case AP:
+                sat.setArgPer(value);
+                break;
+            case RAAN:
+                sat.setRaan(value);
+                break;
+            case TA:
+                sat.setTrueAnomaly(value);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown orbital element %d", element));
+        }
+    }
+
+    /**
+     * The orbital elements that can vary under a set of bounds. Elements with
+     * a lower bound equal to the upper bound are not included.
+     */
+    private static final class Locus {
+
+        /**
+         * The bounds the locus was computed for
+         */
+        private final SatelliteBounds bounds;
+
+        /**
+         * The offsets of the varying elements in the order sma, ecc, inc, ap,
+         * raan, ta
+         */
+        private final int[] elements;
+
+        /**
+         * The lower bound of each varying element
+         */
+        private final double[] lower;
+
+        /**
+         * The upper bound of each varying element
+         */
+        private final double[] upper;
+
+        Locus(SatelliteBounds bounds) {
+            this.bounds = bounds;
+            double[] lo = {
+                bounds.getSmaBound().getLowerBound(), bounds.getEccBound().getLowerBound(),
+                bounds.getIncBound().getLowerBound(), bounds.getArgPerBound().getLowerBound(),
+                bounds.getRaanBound().getLowerBound(), bounds.getAnomBound().getLowerBound()};
+            double[] hi = {
+                bounds.getSmaBound().getUpperBound(), bounds.getEccBound().getUpperBound(),
+                bounds.getIncBound().getUpperBound(), bounds.getArgPerBound().getUpperBound(),
+                bounds.getRaanBound().getUpperBound(), bounds.getAnomBound().getUpperBound()};
+            int n = 0;
+            for (int e = 0; e < ELEMENTS_PER_SATELLITE; e++) {
+                if (Double.compare(lo[e], hi[e]) != 0) {
+                    n++;
+                }
+            }
+            this.elements = new int[n];
+            this.lower = new double[n];
+            this.upper = new double[n];
+            int k = 0;
+            for (int e = 0; e < ELEMENTS_PER_SATELLITE; e++) {
+                if (Double.compare(lo[e], hi[e]) != 0) {
+                    elements[k] = e;
+                    lower[k] = lo[e];
+                    upper[k] = hi[e];
+                    k++;
+                }
+            }
+        }
+
+        int size() {
+            return elements.length;
+        }
+    }
+
+}
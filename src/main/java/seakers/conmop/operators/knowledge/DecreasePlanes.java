@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import org.hipparchus.stat.descriptive.DescriptiveStatistics;
 import org.moeaframework.core.Solution;
+import seakers.conmop.deployment.DeploymentPlanner;
 import seakers.conmop.deployment.DeploymentStrategy;
 import seakers.conmop.deployment.Installment;
 import seakers.conmop.variable.ConstellationVariable;
@@ -24,6 +25,32 @@ import seakers.conmop.variable.SatelliteVariable;
  */
 public class DecreasePlanes extends AbstractCheckParent {
 
+    /**
+     * The planner used to update the deployment strategy of the offspring.
+     * Null if the deployment strategy is left to be planned again when the
+     * offspring is evaluated
+     */
+    private final DeploymentPlanner planner;
+
+    /**
+     * Creates the operator. The deployment strategy of the offspring is
+     * planned again when the offspring is evaluated
+     */
+    public DecreasePlanes() {
+        this(null);
+    }
+
+    /**
+     * Creates the operator. Only the installments of the offspring that the
+     * operator changes are planned again
+     *
+     * @param planner the planner used to update the deployment strategy of
+     * the offspring
+     */
+    public DecreasePlanes(DeploymentPlanner planner) {
+        this.planner = planner;
+    }
+
     @Override
     public int getArity() {
         return 1;
@@ -78,11 +105,10 @@ public class DecreasePlanes extends AbstractCheckParent {
             var.setRaan(meanRaan);
         }
 
-        ArrayList<SatelliteVariable> sats = new ArrayList<>();
-        for (Installment installment : candidates) {
-            sats.addAll(installment.getSatellites());
+        //only the moved installment is planned again
+        if (planner != null) {
+            constelVariable.updateDeploymentStrategy(planner);
         }
-        constelVariable.setSatelliteVariables(sats);
         return constelVariable;
     }
 
@@ -53,15 +53,12 @@ public class DistributeAnomaly extends AbstractCheckParent  {
     private ConstellationVariable evolve(ConstellationVariable constelVariable) {
         DeploymentStrategy deploymentStrategy = constelVariable.getDeploymentStrategy();
 
-        ArrayList<SatelliteVariable> allSats = new ArrayList<>();
-
         //randomly select a installment to operate on
         ArrayList<Installment> installmentCandidates = new ArrayList<>();
         for (Installment installment : deploymentStrategy.getInstallments()) {
             if (installment.getSatellites().size() > 1) {
                 installmentCandidates.add(installment);
             }
-            allSats.addAll(installment.getSatellites());
         }
 
         if (installmentCandidates.isEmpty()) {
@@ -93,7 +90,8 @@ public class DistributeAnomaly extends AbstractCheckParent  {
             sats.get(i).setTrueAnomaly(newAnomaly);
         }
 
-        constelVariable.setSatelliteVariables(allSats);
+        //the anomalies were changed in place and do not affect the deployment
+        //strategy
         return constelVariable;
     }
 
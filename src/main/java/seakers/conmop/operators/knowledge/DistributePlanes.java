@@ -13,6 +13,7 @@ import org.hipparchus.stat.descriptive.DescriptiveStatistics;
 import org.hipparchus.util.FastMath;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Solution;
+import seakers.conmop.deployment.DeploymentPlanner;
 import seakers.conmop.deployment.DeploymentStrategy;
 import seakers.conmop.deployment.Installment;
 import seakers.conmop.variable.ConstellationVariable;
@@ -26,6 +27,32 @@ import seakers.conmop.variable.SatelliteVariable;
  */
 public class DistributePlanes extends AbstractCheckParent  {
 
+    /**
+     * The planner used to update the deployment strategy of the offspring.
+     * Null if the deployment strategy is left to be planned again when the
+     * offspring is evaluated
+     */
+    private final DeploymentPlanner planner;
+
+    /**
+     * Creates the operator. The deployment strategy of the offspring is
+     * planned again when the offspring is evaluated
+     */
+    public DistributePlanes() {
+        this(null);
+    }
+
+    /**
+     * Creates the operator. Only the installments of the offspring that the
+     * operator changes are planned again
+     *
+     * @param planner the planner used to update the deployment strategy of
+     * the offspring
+     */
+    public DistributePlanes(DeploymentPlanner planner) {
+        this.planner = planner;
+    }
+
     @Override
     public int getArity() {
         return 1;
@@ -51,12 +78,7 @@ public class DistributePlanes extends AbstractCheckParent  {
     private ConstellationVariable evolve(ConstellationVariable constelVariable) {
         DeploymentStrategy deploymentStrategy = constelVariable.getDeploymentStrategy();
 
-        ArrayList<SatelliteVariable> allSats = new ArrayList<>();
-        ArrayList<Installment> installmentCandidates = new ArrayList<>();
-        for (Installment installment : deploymentStrategy.getInstallments()) {
-            installmentCandidates.add(installment);
-            allSats.addAll(installment.getSatellites());
-        }
+        ArrayList<Installment> installmentCandidates = new ArrayList<>(deploymentStrategy.getInstallments());
 
         int nplanes = installmentCandidates.size();
         double separation = 2. * FastMath.PI / nplanes;
@@ -90,7 +112,10 @@ public class DistributePlanes extends AbstractCheckParent  {
             }
         }
 
-        constelVariable.setSatelliteVariables(allSats);
+        //only the installments that were rotated are planned again
+        if (planner != null) {
+            constelVariable.updateDeploymentStrategy(planner);
+        }
         return constelVariable;
     }
 
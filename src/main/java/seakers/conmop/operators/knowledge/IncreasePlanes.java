@@ -12,6 +12,7 @@ import org.hipparchus.stat.descriptive.DescriptiveStatistics;
 import org.hipparchus.util.FastMath;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Solution;
+import seakers.conmop.deployment.DeploymentPlanner;
 import seakers.conmop.deployment.DeploymentStrategy;
 import seakers.conmop.deployment.Installment;
 import seakers.conmop.variable.ConstellationVariable;
@@ -26,6 +27,32 @@ import seakers.conmop.variable.SatelliteVariable;
  */
 public class IncreasePlanes extends AbstractCheckParent  {
 
+    /**
+     * The planner used to update the deployment strategy of the offspring.
+     * Null if the deployment strategy is left to be planned again when the
+     * offspring is evaluated
+     */
+    private final DeploymentPlanner planner;
+
+    /**
+     * Creates the operator. The deployment strategy of the offspring is
+     * planned again when the offspring is evaluated
+     */
+    public IncreasePlanes() {
+        this(null);
+    }
+
+    /**
+     * Creates the operator. Only the installments of the offspring that the
+     * operator changes are planned again
+     *
+     * @param planner the planner used to update the deployment strategy of
+     * the offspring
+     */
+    public IncreasePlanes(DeploymentPlanner planner) {
+        this.planner = planner;
+    }
+
     @Override
     public int getArity() {
         return 1;
@@ -52,15 +79,12 @@ public class IncreasePlanes extends AbstractCheckParent  {
     private ConstellationVariable evolve(ConstellationVariable constelVariable) {
         DeploymentStrategy deploymentStrategy = constelVariable.getDeploymentStrategy();
 
-        ArrayList<SatelliteVariable> sats = new ArrayList<>();
-
         //randomly select a installment to break up
         ArrayList<Installment> installmentCandidates = new ArrayList<>();
         for (Installment installment : deploymentStrategy.getInstallments()) {
             if (installment.getSatellites().size() > 1) {
                 installmentCandidates.add(installment);
             }
-            sats.addAll(installment.getSatellites());
         }
 
         if (installmentCandidates.isEmpty()) {
@@ -88,7 +112,10 @@ public class IncreasePlanes extends AbstractCheckParent  {
             satCandidates.get(i).setRaan(newRaan);
         }
 
-        constelVariable.setSatelliteVariables(sats);
+        //only the installment that was broken up is planned again
+        if (planner != null) {
+            constelVariable.updateDeploymentStrategy(planner);
+        }
         return constelVariable;
     }
 
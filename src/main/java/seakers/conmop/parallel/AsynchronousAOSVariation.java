@@ -0,0 +1,77 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.parallel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.moeaframework.core.Solution;
+import seakers.aos.creditassignment.AbstractSetImprovement;
+import seakers.aos.operator.AbstractAOSVariation;
+import seakers.aos.operatorselectors.OperatorSelector;
+
+/**
+ * An adaptive operator selection strategy with set improvement credits for
+ * the AsynchronousEpsilonMOEA. AOSVariationSI credits every offspring created
+ * since the last update, but with evaluations in flight most of those
+ * offspring have not been evaluated or inserted into the archive yet, so they
+ * would receive no credit. This strategy instead credits the offspring that
+ * were evaluated and inserted since the last update, whenever they were
+ * created.
+ *
+ * @author nhitomi
+ */
+public class AsynchronousAOSVariation extends AbstractAOSVariation {
+
+    /**
+     * The offspring evaluated and inserted since the last update
+     */
+    private final Collection<Solution> evaluated;
+
+    /**
+     * Creates a new strategy
+     *
+     * @param operatorSelector the operator selector
+     * @param creditAssignment the set improvement credit assignment
+     * @param nfe the number of function evaluations already conducted
+     */
+    public AsynchronousAOSVariation(OperatorSelector operatorSelector,
+            AbstractSetImprovement creditAssignment, int nfe) {
+        super(operatorSelector, creditAssignment, nfe);
+        this.evaluated = new ArrayList<>();
+    }
+
+    /**
+     * Records an offspring that was evaluated and inserted into the
+     * population and the archive so that it is credited on the next update
+     *
+     * @param offspring the evaluated offspring
+     */
+    public void evaluated(Solution offspring) {
+        evaluated.add(offspring);
+    }
+
+    @Override
+    protected Map<String, Double> computeCredits() {
+        HashMap<String, Double> credits = new HashMap<>();
+        AbstractSetImprovement creditAssignment = (AbstractSetImprovement) getCreditAssignment();
+        for (Solution offspring : evaluated) {
+            String operator = String.valueOf(offspring.getAttribute(OPERATOR_ATTRIBUTE));
+            if (!credits.containsKey(operator)) {
+                credits.put(operator, 0.0);
+            }
+            credits.put(operator, credits.get(operator) + creditAssignment.compute(offspring));
+        }
+        return credits;
+    }
+
+    @Override
+    protected void internalReset() {
+        evaluated.clear();
+    }
+
+}
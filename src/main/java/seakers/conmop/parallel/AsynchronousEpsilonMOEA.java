@@ -0,0 +1,291 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang3.ArrayUtils;
+import org.moeaframework.algorithm.EpsilonMOEA;
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
+import org.moeaframework.core.Initialization;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Selection;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.comparator.DominanceComparator;
+import org.moeaframework.core.comparator.ParetoDominanceComparator;
+
+/**
+ * A steady-state epsilon-MOEA that keeps a number of evaluations in flight on
+ * the worker threads. Each iteration tops the evaluations in flight back up
+ * with new offspring, waits for at least one evaluation to complete, and
+ * inserts every completed offspring into the population and the archive. No
+ * iteration waits for a whole batch, so a slow evaluation does not hold the
+ * other workers idle. The evaluations in flight only run in parallel if the
+ * problem can be evaluated from several threads at once. See
+ * ParallelEvaluator.
+ *
+ * Parent selection and variation are conducted on the calling thread. The
+ * offspring are inserted in the order their evaluations complete, so unlike
+ * ParallelEpsilonMOEA a run is not reproducible for a fixed seed when more
+ * than one evaluation is in flight. With one evaluation in flight and one
+ * worker thread, the offspring are created and inserted in the same order as
+ * in the serial epsilon-MOEA.
+ *
+ * If the variation is an AsynchronousAOSVariation, it is told about each
+ * offspring once the offspring is inserted so that the credits are assigned
+ * to evaluated offspring only.
+ *
+ * @author nhitomi
+ */
+public class AsynchronousEpsilonMOEA extends EpsilonMOEA {
+
+    /**
+     * The selection operator
+     */
+    private final Selection selection;
+
+    /**
+     * The variation operator
+     */
+    private final Variation variation;
+
+    /**
+     * The number of evaluations to keep in flight
+     */
+    private final int maxInFlight;
+
+    /**
+     * The evaluator used to evaluate the initial population
+     */
+    private final ParallelEvaluator evaluator;
+
+    /**
+     * The offspring being evaluated, handed back as their evaluations
+     * complete
+     */
+    private final CompletionService<Solution> inFlight;
+
+    /**
+     * The offspring being evaluated
+     */
+    private final List<Solution> offspringInFlight;
+
+    /**
+     * Copies of the offspring being evaluated taken before they were
+     * submitted, in the same order as the offspring
+     */
+    private final List<Solution> unevaluatedInFlight;
+
+    /**
+     * Creates a new asynchronous epsilon-MOEA using Pareto dominance
+     *
+     * @param problem the problem being solved
+     * @param population the population used to store solutions
+     * @param archive the archive used to store the result
+     * @param selection the selection operator
+     * @param variation the variation operator
+     * @param initialization the initialization method
+     * @param maxInFlight the number of evaluations to keep in flight
+     * @param evaluator the evaluator whose worker threads run the evaluations
+     */
+    public AsynchronousEpsilonMOEA(Problem problem, Population population,
+            EpsilonBoxDominanceArchive archive, Selection selection,
+            Variation variation, Initialization initialization,
+            int maxInFlight, ParallelEvaluator evaluator) {
+        this(problem, population, archive, selection, variation, initialization,
+                new ParetoDominanceComparator(), maxInFlight, evaluator);
+    }
+
+    /**
+     * Creates a new asynchronous epsilon-MOEA
+     *
+     * @param problem the problem being solved
+     * @param population the population used to store solutions
+     * @param archive the archive used to store the result
+     * @param selection the selection operator
+     * @param variation the variation operator
+     * @param initialization the initialization method
+     * @param comparator the dominance comparator used by the population
+     * @param maxInFlight the number of evaluations to keep in flight
+     * @param evaluator the evaluator whose worker threads run the evaluations
+     */
+    public AsynchronousEpsilonMOEA(Problem problem, Population population,
+            EpsilonBoxDominanceArchive archive, Selection selection,
+            Variation variation, Initialization initialization,
+            DominanceComparator comparator, int maxInFlight, ParallelEvaluator evaluator) {
+        super(problem, population, archive, selection, variation, initialization, comparator);
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected at least one evaluation in flight. Found %d", maxInFlight));
+        }
+        this.selection = selection;
+        this.variation = variation;
+        this.maxInFlight = maxInFlight;
+        this.evaluator = evaluator;
+        this.inFlight = evaluator.newCompletionService();
+        this.offspringInFlight = new ArrayList<>();
+        this.unevaluatedInFlight = new ArrayList<>();
+    }
+
+    @Override
+    public void evaluateAll(Solution[] solutions) {
+        evaluateAll(Arrays.asList(solutions));
+    }
+
+    @Override
+    public void evaluateAll(Iterable<Solution> solutions) {
+        ArrayList<Solution> batch = new ArrayList<>();
+        for (Solution solution : solutions) {
+            batch.add(solution);
+        }
+        evaluator.evaluateAll(problem, batch);
+        numberOfEvaluations += batch.size();
+    }
+
+    @Override
+    public void iterate() {
+        //create offspring until the workers are busy again
+        while (offspringInFlight.size() < maxInFlight) {
+            Solution[] parents;
+            if (archive.size() <= 1) {
+                parents = selection.select(variation.getArity(), population);
+            } else {
+                parents = ArrayUtils.add(
+                        selection.select(variation.getArity() - 1, population),
+                        archive.get(PRNG.nextInt(archive.size())));
+            }
+            PRNG.shuffle(parents);
+            submit(Arrays.asList(variation.evolve(parents)));
+        }
+
+        //wait for one offspring, then insert any others that are already done
+        insert(take());
+        Future<Solution> done;
+        while ((done = inFlight.poll()) != null) {
+            insert(done);
+        }
+    }
+
+    /**
+     * Submits offspring to be evaluated on the worker threads. Offspring
+     * that were in flight when a checkpoint was taken can be submitted again
+     * with this method when the run is resumed. An unevaluated copy of each
+     * offspring is kept until its evaluation completes, since the evaluation
+     * may modify the variables of the offspring.
+     *
+     * @param offspring the offspring to evaluate
+     */
+    public void submit(Iterable<Solution> offspring) {
+        for (Solution child : offspring) {
+            unevaluatedInFlight.add(child.copy());
+            offspringInFlight.add(child);
+            inFlight.submit(ParallelEvaluator.evaluation(problem, child));
+        }
+    }
+
+    /**
+     * Waits for the next evaluation to complete
+     *
+     * @return the completed evaluation
+     */
+    private Future<Solution> take() {
+        try {
+            return inFlight.take();
+        } catch (InterruptedException ex) {
+            Logger.getLogger(AsynchronousEpsilonMOEA.class.getName()).log(Level.SEVERE, null, ex);
+            throw new IllegalStateException("Interrupted while waiting on an evaluation", ex);
+        }
+    }
+
+    /**
+     * Inserts an evaluated offspring into the population and the archive
+     *
+     * @param done the completed evaluation of the offspring
+     */
+    private void insert(Future<Solution> done) {
+        Solution child;
+        try {
+            child = done.get();
+        } catch (InterruptedException | ExecutionException ex) {
+            Logger.getLogger(AsynchronousEpsilonMOEA.class.getName()).log(Level.SEVERE, null, ex);
+            throw new IllegalStateException("Evaluation failed", ex);
+        }
+        for (int i = 0; i < offspringInFlight.size(); i++) {
+            if (offspringInFlight.get(i) == child) {
+                offspringInFlight.remove(i);
+                unevaluatedInFlight.remove(i);
+                break;
+            }
+        }
+        numberOfEvaluations++;
+        addToPopulation(child);
+        archive.add(child);
+        if (variation instanceof AsynchronousAOSVariation) {
+            ((AsynchronousAOSVariation) variation).evaluated(child);
+        }
+    }
+
+    /**
+     * Waits for the evaluations still in flight and inserts their offspring
+     * before terminating
+     */
+    @Override
+    public void terminate() {
+        while (!offspringInFlight.isEmpty()) {
+            insert(take());
+        }
+        super.terminate();
+    }
+
+    /**
+     * Gets the number of evaluations kept in flight
+     *
+     * @return the number of evaluations kept in flight
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Gets the number of offspring currently being evaluated
+     *
+     * @return the number of offspring currently being evaluated
+     */
+    public int getNumberOfEvaluationsInFlight() {
+        return offspringInFlight.size();
+    }
+
+    /**
+     * Gets the offspring currently being evaluated
+     *
+     * @return a copy of the list of offspring currently being evaluated
+     */
+    public List<Solution> getOffspringInFlight() {
+        return new ArrayList<>(offspringInFlight);
+    }
+
+    /**
+     * Gets copies of the offspring currently being evaluated that were taken
+     * before the offspring were submitted. Unlike the offspring themselves,
+     * the copies are not modified by the worker threads.
+     *
+     * @return a copy of the list of unevaluated copies of the offspring
+     * currently being evaluated
+     */
+    public List<Solution> getUnevaluatedOffspringInFlight() {
+        return new ArrayList<>(unevaluatedInFlight);
+    }
+
+}
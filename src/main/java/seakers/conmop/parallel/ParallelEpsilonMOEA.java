@@ -0,0 +1,157 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.apache.commons.lang3.ArrayUtils;
+import org.moeaframework.algorithm.EpsilonMOEA;
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
+import org.moeaframework.core.Initialization;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Selection;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.comparator.DominanceComparator;
+import org.moeaframework.core.comparator.ParetoDominanceComparator;
+
+/**
+ * An epsilon-MOEA that creates a batch of offspring each iteration and
+ * evaluates the batch concurrently. Parent selection and variation are
+ * conducted on the calling thread, in the same order as the serial
+ * epsilon-MOEA, and the offspring are inserted into the population and archive
+ * in the order they were created. Therefore, results are deterministic for a
+ * fixed seed regardless of the number of threads. The batch size does change
+ * the results, so it should be a fixed setting of the run rather than derived
+ * from the number of cores of the machine. With a batch size of one, this
+ * algorithm behaves exactly as the serial epsilon-MOEA.
+ *
+ * The batch runs in parallel only if the problem can be evaluated from
+ * several threads at once. See ParallelEvaluator.
+ *
+ * @author nhitomi
+ */
+public class ParallelEpsilonMOEA extends EpsilonMOEA {
+
+    /**
+     * The selection operator
+     */
+    private final Selection selection;
+
+    /**
+     * The variation operator
+     */
+    private final Variation variation;
+
+    /**
+     * The number of variation calls to conduct per iteration
+     */
+    private final int batchSize;
+
+    /**
+     * The evaluator used to evaluate batches of solutions
+     */
+    private final ParallelEvaluator evaluator;
+
+    /**
+     * Creates a new parallel epsilon-MOEA using Pareto dominance
+     *
+     * @param problem the problem being solved
+     * @param population the population used to store solutions
+     * @param archive the archive used to store the result
+     * @param selection the selection operator
+     * @param variation the variation operator
+     * @param initialization the initialization method
+     * @param batchSize the number of variation calls to conduct per iteration
+     * @param evaluator the evaluator used to evaluate batches of solutions
+     */
+    public ParallelEpsilonMOEA(Problem problem, Population population,
+            EpsilonBoxDominanceArchive archive, Selection selection,
+            Variation variation, Initialization initialization,
+            int batchSize, ParallelEvaluator evaluator) {
+        this(problem, population, archive, selection, variation, initialization,
+                new ParetoDominanceComparator(), batchSize, evaluator);
+    }
+
+    /**
+     * Creates a new parallel epsilon-MOEA
+     *
+     * @param problem the problem being solved
+     * @param population the population used to store solutions
+     * @param archive the archive used to store the result
+     * @param selection the selection operator
+     * @param variation the variation operator
+     * @param initialization the initialization method
+     * @param comparator the dominance comparator used by the population
+     * @param batchSize the number of variation calls to conduct per iteration
+     * @param evaluator the evaluator used to evaluate batches of solutions
+     */
+    public ParallelEpsilonMOEA(Problem problem, Population population,
+            EpsilonBoxDominanceArchive archive, Selection selection,
+            Variation variation, Initialization initialization,
+            DominanceComparator comparator, int batchSize, ParallelEvaluator evaluator) {
+        super(problem, population, archive, selection, variation, initialization, comparator);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected batch size to be positive. Found %d", batchSize));
+        }
+        this.selection = selection;
+        this.variation = variation;
+        this.batchSize = batchSize;
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public void evaluateAll(Solution[] solutions) {
+        evaluateAll(Arrays.asList(solutions));
+    }
+
+    @Override
+    public void evaluateAll(Iterable<Solution> solutions) {
+        ArrayList<Solution> batch = new ArrayList<>();
+        for (Solution solution : solutions) {
+            batch.add(solution);
+        }
+        evaluator.evaluateAll(problem, batch);
+        numberOfEvaluations += batch.size();
+    }
+
+    @Override
+    public void iterate() {
+        ArrayList<Solution> offspring = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            Solution[] parents;
+            if (archive.size() <= 1) {
+                parents = selection.select(variation.getArity(), population);
+            } else {
+                parents = ArrayUtils.add(
+                        selection.select(variation.getArity() - 1, population),
+                        archive.get(PRNG.nextInt(archive.size())));
+            }
+            PRNG.shuffle(parents);
+            offspring.addAll(Arrays.asList(variation.evolve(parents)));
+        }
+
+        evaluateAll(offspring);
+
+        for (Solution child : offspring) {
+            addToPopulation(child);
+            archive.add(child);
+        }
+    }
+
+    /**
+     * Gets the number of variation calls conducted per iteration
+     *
+     * @return the number of variation calls conducted per iteration
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+}
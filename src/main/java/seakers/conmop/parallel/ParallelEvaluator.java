@@ -0,0 +1,149 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.parallel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Solution;
+
+/**
+ * Evaluates a batch of solutions concurrently on a fixed pool of worker
+ * threads. Only the problem's evaluate method is run on the workers. Any use
+ * of the PRNG (selection, variation, initialization) is expected to stay on the
+ * calling thread so that a run remains deterministic for a fixed seed.
+ *
+ * The solutions are only evaluated in parallel if the problem's evaluations do
+ * not serialize on a shared resource. With the ConstellationOptimizer and the
+ * WalkerOptimizer, only the j2 coverage backend evaluates in parallel. The
+ * scenario and fast backends and the ground station metrics run through the
+ * ScenarioRunner one evaluation at a time.
+ *
+ * @author nhitomi
+ */
+public class ParallelEvaluator {
+
+    /**
+     * The worker threads that run the evaluations
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of worker threads
+     */
+    private final int nThreads;
+
+    /**
+     * Creates a new evaluator backed by the given number of worker threads
+     *
+     * @param nThreads the number of worker threads
+     */
+    public ParallelEvaluator(int nThreads) {
+        if (nThreads < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected at least one thread. Found %d", nThreads));
+        }
+        this.nThreads = nThreads;
+        this.executor = Executors.newFixedThreadPool(nThreads, new EvaluatorThreadFactory());
+    }
+
+    /**
+     * Gets the number of worker threads
+     *
+     * @return the number of worker threads
+     */
+    public int getNumberOfThreads() {
+        return nThreads;
+    }
+
+    /**
+     * Evaluates all the given solutions with the given problem. This method
+     * blocks until every solution has been evaluated.
+     *
+     * @param problem the problem to evaluate the solutions with
+     * @param solutions the solutions to evaluate
+     */
+    public void evaluateAll(final Problem problem, Collection<Solution> solutions) {
+        List<Future<Solution>> futures = new ArrayList<>(solutions.size());
+        for (Solution solution : solutions) {
+            futures.add(executor.submit(evaluation(problem, solution)));
+        }
+
+        //wait on the futures in submission order
+        for (Future<Solution> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                Logger.getLogger(ParallelEvaluator.class.getName()).log(Level.SEVERE, null, ex);
+                throw new IllegalStateException("Evaluation failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Creates a completion service that runs on the worker threads of this
+     * evaluator. The evaluated solutions can be taken from the service in the
+     * order their evaluations complete.
+     *
+     * @return a completion service backed by the worker threads
+     */
+    public CompletionService<Solution> newCompletionService() {
+        return new ExecutorCompletionService<>(executor);
+    }
+
+    /**
+     * Creates the task that evaluates a solution on a worker thread
+     *
+     * @param problem the problem to evaluate the solution with
+     * @param solution the solution to evaluate
+     * @return the task that evaluates the solution and returns it
+     */
+    static Callable<Solution> evaluation(final Problem problem, final Solution solution) {
+        return new Callable<Solution>() {
+            @Override
+            public Solution call() throws Exception {
+                problem.evaluate(solution);
+                return solution;
+            }
+        };
+    }
+
+    /**
+     * Shuts down the worker threads. Evaluations already submitted are
+     * completed.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Creates daemon threads so that an evaluator that is not shut down does
+     * not keep the JVM alive
+     */
+    private static class EvaluatorThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "conmop-eval-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.parallel;
+
+import java.util.Random;
+import org.moeaframework.core.PRNG;
+
+/**
+ * A random number generator that delegates to a separate generator for each
+ * thread. The PRNG is shared by the whole JVM, so runs on different threads
+ * would otherwise draw from the same generator in an order that depends on
+ * the thread schedule. Once this generator is installed in the PRNG, each run
+ * seeds the generator of its own thread and stays deterministic for a fixed
+ * seed regardless of the other runs. Threads that never set a generator get
+ * one seeded from the time.
+ *
+ * @author nhitomi
+ */
+public class PerThreadRandom extends Random {
+
+    private static final long serialVersionUID = -2262049385467434734L;
+
+    /**
+     * The generator of each thread. Null only during the construction of the
+     * superclass
+     */
+    private final transient ThreadLocal<Random> randoms;
+
+    private PerThreadRandom() {
+        this.randoms = new ThreadLocal<Random>() {
+            @Override
+            protected Random initialValue() {
+                return new Random();
+            }
+        };
+    }
+
+    /**
+     * Installs a per-thread generator in the PRNG if one is not already
+     * installed
+     *
+     * @return the installed per-thread generator
+     */
+    public static synchronized PerThreadRandom install() {
+        if (!(PRNG.getRandom() instanceof PerThreadRandom)) {
+            PRNG.setRandom(new PerThreadRandom());
+        }
+        return (PerThreadRandom) PRNG.getRandom();
+    }
+
+    /**
+     * Gets the generator of the calling thread
+     *
+     * @return the generator of the calling thread
+     */
+    public Random getRandom() {
+        return randoms.get();
+    }
+
+    /**
+     * Sets the generator of the calling thread
+     *
+     * @param random the generator of the calling thread
+     */
+    public void setRandom(Random random) {
+        randoms.set(random);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        //the superclass constructor sets a seed before the generators exist
+        if (randoms != null) {
+            randoms.get().setSeed(seed);
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        return randoms.get().nextInt() >>> (32 - bits);
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        randoms.get().nextBytes(bytes);
+    }
+
+    @Override
+    public int nextInt() {
+        return randoms.get().nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return randoms.get().nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return randoms.get().nextLong();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return randoms.get().nextBoolean();
+    }
+
+    @Override
+    public float nextFloat() {
+        return randoms.get().nextFloat();
+    }
+
+    @Override
+    public double nextDouble() {
+        return randoms.get().nextDouble();
+    }
+
+    @Override
+    public double nextGaussian() {
+        return randoms.get().nextGaussian();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.parallel;
+
+import seakers.orekit.event.EventAnalysis;
+import seakers.orekit.scenario.Scenario;
+
+/**
+ * Runs seakers.orekit scenarios and event analyses one at a time. Scenarios
+ * and event analyses fan their work out over the process-wide ParallelRoutine,
+ * which can only service one caller at a time and returns no results to any
+ * other caller. Problems that may be evaluated from several threads must run
+ * their scenarios and event analyses through this class. Evaluations that run
+ * through this class therefore do not scale with the number of evaluations in
+ * flight, only with the threads given to OrekitConfig.init. Of the coverage
+ * backends of the ConstellationOptimizer and the WalkerOptimizer, only j2
+ * does not use this class, so only j2 evaluates solutions in parallel. The
+ * ground station metrics always use this class.
+ *
+ * @author nhitomi
+ */
+public final class ScenarioRunner {
+
+    private ScenarioRunner() {
+    }
+
+    /**
+     * Runs the given scenario. Blocks while another thread is running a
+     * scenario.
+     *
+     * @param scenario the scenario to run
+     * @return the scenario after it has been run
+     * @throws Exception if the scenario fails
+     */
+    public static synchronized Scenario call(Scenario scenario) throws Exception {
+        return scenario.call();
+    }
+
+    /**
+     * Runs the given event analysis outside of a scenario. Blocks while
+     * another thread is running a scenario or an event analysis.
+     *
+     * @param analysis the event analysis to run
+     * @return the event analysis after it has been run
+     * @throws Exception if the event analysis fails
+     */
+    public static synchronized EventAnalysis call(EventAnalysis analysis) throws Exception {
+        return analysis.call();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.moeaframework.core.NondominatedPopulation;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Solution;
+import seakers.conmop.util.Bounds;
+import seakers.conmop.util.Factor;
+import seakers.conmop.variable.WalkerVariable;
+
+/**
+ * Evaluates every feasible Walker delta pattern t/p/f over a grid of
+ * semi-major axes and inclinations. The designs are swept in batches of
+ * increasing t and each batch is evaluated concurrently. The problem must
+ * create solutions with a WalkerVariable as the first variable, have the
+ * coverage gap as the first objective and the number of satellites as the
+ * second objective, like the WalkerOptimizer.
+ *
+ * Since the number of satellites is an objective and only grows through the
+ * sweep, a design can only be nondominated if its gap is smaller than every
+ * gap found with fewer satellites. Once a design reaches the gap tolerance
+ * (by default, continuous coverage), every design with more satellites is
+ * dominated and the rest of the sweep is pruned without being evaluated.
+ *
+ * @author nhitomi
+ */
+public class WalkerSweep {
+
+    /**
+     * The problem to evaluate the designs with
+     */
+    private final Problem problem;
+
+    /**
+     * The bounds on the total number of satellites
+     */
+    private final Bounds<Integer> tBound;
+
+    /**
+     * The bounds on the number of planes
+     */
+    private final Bounds<Integer> pBound;
+
+    /**
+     * The bounds on the phasing value
+     */
+    private final Bounds<Integer> fBound;
+
+    /**
+     * The semi-major axes [m] to sweep
+     */
+    private final double[] smaGrid;
+
+    /**
+     * The inclinations [rad] to sweep
+     */
+    private final double[] incGrid;
+
+    /**
+     * The gap at or below which designs with more satellites are pruned
+     */
+    private final double gapTolerance;
+
+    /**
+     * The evaluator used to evaluate each batch of designs
+     */
+    private final ParallelEvaluator evaluator;
+
+    /**
+     * Every design evaluated so far
+     */
+    private final Population evaluated;
+
+    /**
+     * The number of designs pruned without being evaluated
+     */
+    private int numberOfPruned;
+
+    /**
+     * Creates a sweep that prunes the designs with more satellites than a
+     * design with continuous coverage
+     *
+     * @param problem the problem to evaluate the designs with
+     * @param tBound the bounds on the total number of satellites
+     * @param pBound the bounds on the number of planes
+     * @param fBound the bounds on the phasing value
+     * @param smaGrid the semi-major axes [m] to sweep
+     * @param incGrid the inclinations [rad] to sweep
+     * @param evaluator the evaluator used to evaluate each batch of designs
+     */
+    public WalkerSweep(Problem problem, Bounds<Integer> tBound, Bounds<Integer> pBound,
+            Bounds<Integer> fBound, double[] smaGrid, double[] incGrid, ParallelEvaluator evaluator) {
+        this(problem, tBound, pBound, fBound, smaGrid, incGrid, 0., evaluator);
+    }
+
+    /**
+     * Creates a sweep
+     *
+     * @param problem the problem to evaluate the designs with
+     * @param tBound the bounds on the total number of satellites
+     * @param pBound the bounds on the number of planes
+     * @param fBound the bounds on the phasing value
+     * @param smaGrid the semi-major axes [m] to sweep
+     * @param incGrid the inclinations [rad] to sweep
+     * @param gapTolerance the gap at or below which the designs with more
+     * satellites are pruned. With a tolerance of 0, only dominated designs are
+     * pruned
+     * @param evaluator the evaluator used to evaluate each batch of designs
+     */
+    public WalkerSweep(Problem problem, Bounds<Integer> tBound, Bounds<Integer> pBound,
+            Bounds<Integer> fBound, double[] smaGrid, double[] incGrid,
+            double gapTolerance, ParallelEvaluator evaluator) {
+        if (tBound.getLowerBound() < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a positive number of satellites. Found %d", tBound.getLowerBound()));
+        }
+        if (gapTolerance < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a non-negative gap tolerance. Found %f", gapTolerance));
+        }
+        this.problem = problem;
+        this.tBound = tBound;
+        this.pBound = pBound;
+        this.fBound = fBound;
+        this.smaGrid = smaGrid.clone();
+        this.incGrid = incGrid.clone();
+        this.gapTolerance = gapTolerance;
+        this.evaluator = evaluator;
+        this.evaluated = new Population();
+        this.numberOfPruned = 0;
+    }
+
+    /**
+     * Runs the sweep
+     *
+     * @param archive the archive that collects the nondominated designs
+     * @return the given archive
+     */
+    public NondominatedPopulation run(NondominatedPopulation archive) {
+        double bestGap = Double.POSITIVE_INFINITY;
+        for (int t = tBound.getLowerBound(); t <= tBound.getUpperBound(); t++) {
+            if (bestGap <= gapTolerance) {
+                numberOfPruned += getDesigns(t).size() * smaGrid.length * incGrid.length;
+                continue;
+            }
+
+            ArrayList<Solution> batch = new ArrayList<>();
+            for (int[] pf : getDesigns(t)) {
+                for (double sma : smaGrid) {
+                    for (double inc : incGrid) {
+                        Solution solution = problem.newSolution();
+                        WalkerVariable walker = (WalkerVariable) solution.getVariable(0);
+                        walker.setWalker(sma, inc, t, pf[0], pf[1]);
+                        batch.add(solution);
+                    }
+                }
+            }
+            evaluator.evaluateAll(problem, batch);
+
+            for (Solution solution : batch) {
+                evaluated.add(solution);
+                archive.add(solution);
+                bestGap = Math.min(bestGap, solution.getObjective(0));
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Gets the feasible numbers of planes and phasing values for t satellites
+     * within the bounds
+     *
+     * @param t the total number of satellites
+     * @return the feasible pairs of the number of planes and the phasing value
+     */
+    private List<int[]> getDesigns(int t) {
+        ArrayList<int[]> designs = new ArrayList<>();
+        for (int p : Factor.divisors(t)) {
+            if (p < pBound.getLowerBound() || p > pBound.getUpperBound()) {
+                continue;
+            }
+            int fMax = Math.min(fBound.getUpperBound(), p - 1);
+            for (int f = Math.max(0, fBound.getLowerBound()); f <= fMax; f++) {
+                designs.add(new int[]{p, f});
+            }
+        }
+        return designs;
+    }
+
+    /**
+     * Gets every design evaluated by the sweep
+     *
+     * @return every design evaluated by the sweep
+     */
+    public Population getEvaluated() {
+        return evaluated;
+    }
+
+    /**
+     * Gets the number of designs evaluated by the sweep
+     *
+     * @return the number of designs evaluated by the sweep
+     */
+    public int getNumberOfEvaluations() {
+        return evaluated.size();
+    }
+
+    /**
+     * Gets the number of designs pruned without being evaluated
+     *
+     * @return the number of designs pruned without being evaluated
+     */
+    public int getNumberOfPruned() {
+        return numberOfPruned;
+    }
+
+}
@@ -5,60 +5,88 @@
  */
 package seakers.conmop.util;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * class that uses a pre computed table to find the divisors of a given number.
- * The divisors are from sequence A027750 available at https://oeis.org/A027750
- * from the On-line encyclopedia of integer sequences (OEIS)
+ * Finds the divisors of positive integers. The divisors of a number are
+ * computed by trial division the first time they are requested and are cached
+ * for later requests. This class is thread-safe.
  *
  * @author nhitomi
  */
-public class Factor {
+public final class Factor {
 
-    private static final HashMap<Integer, List<Integer>> map = new HashMap<>();
+    /**
+     * The divisors of the numbers requested so far, in ascending order
+     */
+    private static final ConcurrentHashMap<Integer, int[]> cache = new ConcurrentHashMap<>();
 
     private Factor() {
-        System.out.print("Loading divisors...");
-        String fileName = "1-1000_divisors.txt";
-        String resourcePath = System.getProperty("user.dir") + File.separator + "resources";
-        try (BufferedReader br = new BufferedReader(new FileReader(new File(resourcePath, fileName)))) {
-            String line = br.readLine();
-            while (line != null) {
-                String[] args = line.split("\\s");
-                String[] divisors = args[1].split(",");
-                List<Integer> divisorList = new ArrayList<>(divisors.length);
-                for (String div : divisors) {
-                    divisorList.add(Integer.parseInt(div));
-                }
-                map.put(Integer.parseInt(args[0]), Collections.unmodifiableList(divisorList));
-                line = br.readLine();
-            }
-        } catch (IOException ex) {
-            Logger.getLogger(Factor.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        System.out.println("done");
     }
 
     /**
      * Returns all the divisors of n in ascending order.
      *
-     * @param n
-     * @return
+     * @param n a positive integer
+     * @return the divisors of n in ascending order
+     */
+    public static int[] divisors(int n) {
+        int[] divisors = cache.get(n);
+        if (divisors == null) {
+            divisors = compute(n);
+            cache.putIfAbsent(n, divisors);
+        }
+        return divisors.clone();
+    }
+
+    /**
+     * Checks if d is a divisor of n
+     *
+     * @param n a positive integer
+     * @param d the candidate divisor
+     * @return true if d is a positive divisor of n
      */
-    public static List<Integer> divisors(int n) {
-        if (map.isEmpty()) {
-            new Factor();
+    public static boolean isDivisor(int n, int d) {
+        if (n < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a positive integer. Found %d", n));
+        }
+        return d > 0 && n % d == 0;
+    }
+
+    /**
+     * Computes the divisors of n by trial division up to the square root of n
+     *
+     * @param n a positive integer
+     * @return the divisors of n in ascending order
+     */
+    private static int[] compute(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected a positive integer. Found %d", n));
+        }
+        //the divisors below the square root and their cofactors above it
+        int[] small = new int[64];
+        int[] large = new int[64];
+        int nSmall = 0;
+        int nLarge = 0;
+        for (int d = 1; d <= n / d; d++) {
+            if (n % d == 0) {
+                if (nSmall == small.length) {
+                    small = Arrays.copyOf(small, 2 * small.length);
+                    large = Arrays.copyOf(large, 2 * large.length);
+                }
+                small[nSmall++] = d;
+                if (d != n / d) {
+                    large[nLarge++] = n / d;
+                }
+            }
+        }
+        int[] divisors = Arrays.copyOf(small, nSmall + nLarge);
+        for (int i = 0; i < nLarge; i++) {
+            divisors[nSmall + i] = large[nLarge - 1 - i];
         }
-        return map.get(n);
+        return divisors;
     }
 }
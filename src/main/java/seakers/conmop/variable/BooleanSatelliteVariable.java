@@ -41,6 +41,11 @@ public class BooleanSatelliteVariable extends SatelliteVariable {
         manifest = null;
     }
     
+    public BooleanSatelliteVariable(SatelliteBounds bounds) {
+        super(bounds);
+        manifest = null;
+    }
+
     public BooleanSatelliteVariable(SatelliteVariable var) {
         super(var);
         manifest = null;
@@ -5,13 +5,20 @@
  */
 package seakers.conmop.variable;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Variable;
 import org.orekit.utils.Constants;
+import seakers.conmop.deployment.DeploymentPlanner;
 import seakers.conmop.deployment.DeploymentStrategy;
 import seakers.conmop.deployment.Installment;
 import seakers.conmop.util.Bounds;
@@ -61,6 +68,12 @@ public class ConstellationVariable implements Variable {
      */
     private final Bounds<Double> anomBound;
 
+    /**
+     * The bounds on the orbital elements shared by all satellites in this
+     * constellation and its copies
+     */
+    private SatelliteBounds satelliteBounds;
+
     /**
      * Satellite variables
      */
@@ -71,6 +84,20 @@ public class ConstellationVariable implements Variable {
      */
     private DeploymentStrategy deploymentStrategy;
 
+    /**
+     * The number of orbital elements of each satellite that the deployment
+     * strategy depends on
+     */
+    private static final int DEPLOYMENT_ELEMENTS = 4;
+
+    /**
+     * The semi-major axis, eccentricity, inclination and right ascension of
+     * the ascending node of each satellite in the deployment strategy when the
+     * strategy was set, in the order of the installments. Null if there is no
+     * deployment strategy
+     */
+    private double[] deploymentElements;
+
     /**
      * Creates a new variable for a satellite. Assumes all valid values are
      * allowed for right ascension of the ascending node 
@@ -117,6 +144,7 @@ public class ConstellationVariable implements Variable {
         this.argPerBound = argPerBound;
         this.raanBound = raanBound;
         this.anomBound = anomBound;
+        this.satelliteBounds = new SatelliteBounds(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
         this.satelliteVars = new ArrayList<>();
     }
 
@@ -141,11 +169,33 @@ public class ConstellationVariable implements Variable {
         this.anomBound = rep.getAnomBound();
         checkBounds(satelliteBound, smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
         this.satelliteBound = satelliteBound;
+        this.satelliteBounds = rep.getBounds();
         this.satelliteVars = new ArrayList<>();
 
         this.setSatelliteVariables(satellites);
     }
 
+    /**
+     * Constructs a new constellation variable without satellites whose
+     * satellites share the given bounds on their orbital elements
+     *
+     * @param satelliteBound The bounds on the number of satellites allowed in
+     * this constellation
+     * @param satelliteBounds the bounds on the orbital elements
+     */
+    protected ConstellationVariable(Bounds<Integer> satelliteBound, SatelliteBounds satelliteBounds) {
+        this.smaBound = satelliteBounds.getSmaBound();
+        this.eccBound = satelliteBounds.getEccBound();
+        this.incBound = satelliteBounds.getIncBound();
+        this.argPerBound = satelliteBounds.getArgPerBound();
+        this.raanBound = satelliteBounds.getRaanBound();
+        this.anomBound = satelliteBounds.getAnomBound();
+        checkBounds(satelliteBound, smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
+        this.satelliteBound = satelliteBound;
+        this.satelliteBounds = satelliteBounds;
+        this.satelliteVars = new ArrayList<>();
+    }
+
     /**
      * Copies the fields of the given constellation variable and creates a new
      * instance of a constellation.
@@ -153,15 +203,48 @@ public class ConstellationVariable implements Variable {
      * @param var the constellation variable to copy
      */
     protected ConstellationVariable(ConstellationVariable var) {
-        this(var.satelliteBound,
-                var.smaBound, var.eccBound, var.incBound,
-                var.argPerBound, var.raanBound, var.anomBound);
+        this.satelliteBound = var.satelliteBound;
+        this.smaBound = var.smaBound;
+        this.eccBound = var.eccBound;
+        this.incBound = var.incBound;
+        this.argPerBound = var.argPerBound;
+        this.raanBound = var.raanBound;
+        this.anomBound = var.anomBound;
+        this.satelliteBounds = var.satelliteBounds;
+        this.satelliteVars = new ArrayList<>(var.satelliteVars.size());
         for (SatelliteVariable sat : var.getSatelliteVariables()) {
             satelliteVars.add((SatelliteVariable) sat.copy());
         }
-        if (var.getDeploymentStrategy() != null) {
-            this.setDeploymentStrategy(var.getDeploymentStrategy());
+        copyDeploymentStrategy(var);
+    }
+
+    /**
+     * Copies the deployment strategy of the given constellation onto the
+     * satellites of this constellation. The satellites of this constellation
+     * must be copies of the satellites of the given constellation in the same
+     * order.
+     *
+     * @param var the constellation whose deployment strategy is copied
+     */
+    protected final void copyDeploymentStrategy(ConstellationVariable var) {
+        if (var.deploymentStrategy == null) {
+            return;
+        }
+        IdentityHashMap<SatelliteVariable, SatelliteVariable> copies = new IdentityHashMap<>();
+        Iterator<SatelliteVariable> iter = this.getSatelliteVariables().iterator();
+        for (SatelliteVariable sat : var.getSatelliteVariables()) {
+            copies.put(sat, iter.next());
         }
+        ArrayList<Installment> installments = new ArrayList<>();
+        for (Installment installment : var.deploymentStrategy.getInstallments()) {
+            ArrayList<SatelliteVariable> sats = new ArrayList<>(installment.getSatellites().size());
+            for (SatelliteVariable sat : installment.getSatellites()) {
+                sats.add(copies.get(sat));
+            }
+            installments.add(new Installment(sats, installment.getLaunchDV(), installment.getOtherDV()));
+        }
+        this.deploymentStrategy = new DeploymentStrategy(installments);
+        this.deploymentElements = var.deploymentElements.clone();
     }
 
     private void checkBounds(Bounds<Integer> satelliteBound,
@@ -207,7 +290,7 @@ public class ConstellationVariable implements Variable {
      * @return
      */
     public SatelliteVariable createSatelliteVariable() {
-        return new SatelliteVariable(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
+        return new SatelliteVariable(satelliteBounds);
     }
 
     @Override
@@ -220,7 +303,7 @@ public class ConstellationVariable implements Variable {
         satelliteVars.clear();
         int n = PRNG.nextInt(satelliteBound.getLowerBound(), satelliteBound.getUpperBound());
         for (int i = 0; i < n; i++) {
-            SatelliteVariable var = new SatelliteVariable(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
+            SatelliteVariable var = new SatelliteVariable(satelliteBounds);
             var.randomize();
             satelliteVars.add(var);
         }
@@ -252,15 +335,11 @@ public class ConstellationVariable implements Variable {
      * constellation. Any satellite variables that existed previously to this
      * call are cleared out.
      */
-    public final void setSatelliteVariables(Collection<SatelliteVariable> satellites) {
-        //check that all the bounds are still the same and 
+    public void setSatelliteVariables(Collection<SatelliteVariable> satellites) {
+        //check that all the bounds are still the same. satellites created by
+        //this constellation or its copies share the same bounds instance
         for (SatelliteVariable var : satellites) {
-            if (!(var.getSmaBound().equals(this.smaBound)
-                    && var.getEccBound().equals(this.eccBound)
-                    && var.getIncBound().equals(this.incBound)
-                    && var.getArgPerBound().equals(this.argPerBound)
-                    && var.getRaanBound().equals(this.raanBound)
-                    && var.getAnomBound().equals(this.anomBound))) {
+            if (!satelliteBounds.sameAs(var.getBounds())) {
                 throw new IllegalArgumentException(
                         "Given satellites and this constellation have different"
                         + " bounds on the allowable orbital parameters."
@@ -280,6 +359,16 @@ public class ConstellationVariable implements Variable {
         return satelliteBound;
     }
 
+    /**
+     * Gets the bounds on the orbital elements shared by the satellites in this
+     * constellation
+     *
+     * @return the bounds on the orbital elements
+     */
+    public SatelliteBounds getSatelliteBounds() {
+        return satelliteBounds;
+    }
+
     /**
      * Gets the bounds for an allowable semi-major axis [m]
      *
@@ -348,44 +437,191 @@ public class ConstellationVariable implements Variable {
     /**
      * Sets this constellation's deployment strategy. This method will save the
      * deployment strategy using the satellite variables stored within this
-     * instance. Deployment strategy must assign every satellite in this
-     * constellation and must not include other satellites other than the ones
-     * in this constellation.
+     * instance. Each satellite in the deployment strategy is matched to the
+     * same instance in this constellation or else to an equal satellite.
+     * Deployment strategy must assign every satellite in this constellation
+     * and must not include other satellites other than the ones in this
+     * constellation.
      *
      * @param deploymentStrategy this constellation's deployment strategy
      * @return true if the deployment strategy was successfully set. else false.
      */
     public final boolean setDeploymentStrategy(DeploymentStrategy deploymentStrategy) {
-        int nSatsInDeployment = 0;
-        int nSatsAssigned = 0;
+        //index the satellites of this constellation by instance and by value
+        IdentityHashMap<SatelliteVariable, Boolean> unassigned = new IdentityHashMap<>();
+        HashMap<SatelliteVariable, ArrayDeque<SatelliteVariable>> byValue = new HashMap<>();
+        for (SatelliteVariable sat : this.getSatelliteVariables()) {
+            unassigned.put(sat, Boolean.TRUE);
+            if (!byValue.containsKey(sat)) {
+                byValue.put(sat, new ArrayDeque<SatelliteVariable>());
+            }
+            byValue.get(sat).add(sat);
+        }
 
+        int nSatsInDeployment = 0;
         ArrayList<Installment> newDeployment = new ArrayList<>();
+        ArrayList<SatelliteVariable> assigned = new ArrayList<>();
         for (Installment installment : deploymentStrategy.getInstallments()) {
             nSatsInDeployment += installment.getSatellites().size();
-            ArrayList<SatelliteVariable> constelSatellites = new ArrayList<>(this.getSatelliteVariables());
-            List<SatelliteVariable> installSatellites = installment.getSatellites();
             ArrayList<SatelliteVariable> sats = new ArrayList<>();
-            for (SatelliteVariable sat : installSatellites) {
-                for (int i = 0; i < constelSatellites.size(); i++) {
-                    if (sat.equals(constelSatellites.get(i))) {
-                        sats.add(sat);
-                        nSatsAssigned++;
-                        constelSatellites.remove(i);
-                        break;
+            for (SatelliteVariable sat : installment.getSatellites()) {
+                SatelliteVariable match = null;
+                if (unassigned.remove(sat) != null) {
+                    match = sat;
+                } else if (byValue.containsKey(sat)) {
+                    //skip equal satellites that were already matched by instance
+                    ArrayDeque<SatelliteVariable> candidates = byValue.get(sat);
+                    while (!candidates.isEmpty() && match == null) {
+                        SatelliteVariable candidate = candidates.poll();
+                        if (unassigned.remove(candidate) != null) {
+                            match = candidate;
+                        }
                     }
                 }
+                if (match != null) {
+                    sats.add(match);
+                    assigned.add(match);
+                }
             }
             newDeployment.add(new Installment(sats, installment.getLaunchDV(), installment.getOtherDV()));
         }
         if (nSatsInDeployment > getNumberOfSatellites()
-                || nSatsAssigned < getNumberOfSatellites()) {
+                || assigned.size() < getNumberOfSatellites()) {
             this.deploymentStrategy = null;
+            this.deploymentElements = null;
             return false;
         }
         this.deploymentStrategy = new DeploymentStrategy(newDeployment);
+        recordDeploymentElements(assigned);
         return true;
     }
 
+    /**
+     * Records the orbital elements that the deployment strategy depends on
+     *
+     * @param deployed the satellites of the deployment strategy in the order
+     * of the installments
+     */
+    private void recordDeploymentElements(List<SatelliteVariable> deployed) {
+        this.deploymentElements = new double[DEPLOYMENT_ELEMENTS * deployed.size()];
+        for (int i = 0; i < deployed.size(); i++) {
+            SatelliteVariable sat = deployed.get(i);
+            deploymentElements[DEPLOYMENT_ELEMENTS * i] = sat.getSma();
+            deploymentElements[DEPLOYMENT_ELEMENTS * i + 1] = sat.getEcc();
+            deploymentElements[DEPLOYMENT_ELEMENTS * i + 2] = sat.getInc();
+            deploymentElements[DEPLOYMENT_ELEMENTS * i + 3] = sat.getRaan();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        //constellations written before the bounds were shared have neither the
+        //shared bounds nor the elements their deployment strategy depends on
+        if (satelliteBounds == null) {
+            satelliteBounds = new SatelliteBounds(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
+        }
+        for (SatelliteVariable sat : satelliteVars) {
+            sat.shareBounds(satelliteBounds);
+        }
+        if (deploymentStrategy != null && deploymentElements == null) {
+            ArrayList<SatelliteVariable> deployed = new ArrayList<>();
+            for (Installment installment : deploymentStrategy.getInstallments()) {
+                deployed.addAll(installment.getSatellites());
+            }
+            recordDeploymentElements(deployed);
+        }
+    }
+
+    /**
+     * Checks if the deployment strategy still deploys exactly the satellites
+     * of this constellation into the orbits they had when the strategy was
+     * set. Changes in the argument of perigee or the true anomaly of the
+     * satellites do not affect the deployment strategy.
+     *
+     * @return true if the deployment strategy is up to date. false if there is
+     * no deployment strategy or if the satellites have changed since it was
+     * set
+     */
+    public boolean isDeploymentStrategyCurrent() {
+        if (deploymentStrategy == null) {
+            return false;
+        }
+        ArrayList<SatelliteVariable> unassigned = new ArrayList<>();
+        List<Installment> unchanged = unchangedInstallments(unassigned);
+        return unassigned.isEmpty()
+                && unchanged.size() == deploymentStrategy.getInstallments().size();
+    }
+
+    /**
+     * Updates the deployment strategy after satellites of this constellation
+     * were moved, added or removed. The installments whose satellites all
+     * remain in this constellation in the same orbits are kept and only the
+     * other satellites are planned again. If there is no deployment strategy,
+     * all the satellites are planned. If the previous strategy had the fewest
+     * launches and the least total delta V, so does the updated strategy.
+     *
+     * @param planner the planner used to plan the affected satellites
+     * @return true if the deployment strategy was successfully updated. else
+     * false.
+     */
+    public boolean updateDeploymentStrategy(DeploymentPlanner planner) {
+        if (deploymentStrategy == null) {
+            return setDeploymentStrategy(planner.plan(getSatelliteVariables()));
+        }
+        ArrayList<SatelliteVariable> unassigned = new ArrayList<>();
+        List<Installment> unchanged = unchangedInstallments(unassigned);
+        if (unassigned.isEmpty()
+                && unchanged.size() == deploymentStrategy.getInstallments().size()) {
+            return true;
+        }
+        return setDeploymentStrategy(planner.replan(unchanged, unassigned));
+    }
+
+    /**
+     * Finds the installments of the deployment strategy whose satellites are
+     * all still in this constellation with the orbits they had when the
+     * strategy was set
+     *
+     * @param unassigned the list that collects the satellites of this
+     * constellation that are not in any of the unchanged installments
+     * @return the unchanged installments
+     */
+    private List<Installment> unchangedInstallments(List<SatelliteVariable> unassigned) {
+        IdentityHashMap<SatelliteVariable, Boolean> remaining = new IdentityHashMap<>();
+        for (SatelliteVariable sat : this.getSatelliteVariables()) {
+            remaining.put(sat, Boolean.TRUE);
+        }
+
+        ArrayList<Installment> unchanged = new ArrayList<>();
+        int offset = 0;
+        for (Installment installment : deploymentStrategy.getInstallments()) {
+            boolean same = true;
+            for (SatelliteVariable sat : installment.getSatellites()) {
+                if (!remaining.containsKey(sat)
+                        || sat.getSma() != deploymentElements[offset]
+                        || sat.getEcc() != deploymentElements[offset + 1]
+                        || sat.getInc() != deploymentElements[offset + 2]
+                        || sat.getRaan() != deploymentElements[offset + 3]) {
+                    same = false;
+                }
+                offset += DEPLOYMENT_ELEMENTS;
+            }
+            if (same) {
+                unchanged.add(installment);
+                for (SatelliteVariable sat : installment.getSatellites()) {
+                    remaining.remove(sat);
+                }
+            }
+        }
+
+        for (SatelliteVariable sat : this.getSatelliteVariables()) {
+            if (remaining.containsKey(sat)) {
+                unassigned.add(sat);
+            }
+        }
+        return unchanged;
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
@@ -396,7 +632,7 @@ public class ConstellationVariable implements Variable {
         hash = 41 * hash + Objects.hashCode(this.argPerBound);
         hash = 41 * hash + Objects.hashCode(this.raanBound);
         hash = 41 * hash + Objects.hashCode(this.anomBound);
-        hash = 41 * hash + Objects.hashCode(this.satelliteVars);
+        hash = 41 * hash + Objects.hashCode(this.getSatelliteVariables());
         return hash;
     }
 
@@ -433,7 +669,7 @@ public class ConstellationVariable implements Variable {
         if (!Objects.equals(this.anomBound, other.anomBound)) {
             return false;
         }
-        if (!Objects.equals(this.satelliteVars, other.satelliteVars)) {
+        if (!Objects.equals(this.getSatelliteVariables(), other.getSatelliteVariables())) {
             return false;
         }
         return true;
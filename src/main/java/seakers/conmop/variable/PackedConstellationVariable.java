@@ -0,0 +1,364 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Variable;
+import seakers.conmop.util.Bounds;
+
+/**
+ * A constellation variable that stores the orbital elements of all its
+ * satellites in one contiguous array. The elements of satellite i are stored
+ * at indices [6i, 6i+5] in the order semi-major axis, eccentricity,
+ * inclination, argument of perigee, right ascension of the ascending node,
+ * and true anomaly. The satellite variables returned by this constellation
+ * are views that read and write the array, so code written for the
+ * ConstellationVariable keeps working, while operators and evaluators can
+ * work directly on the array. Copying the constellation copies one array.
+ *
+ * Setting the satellite variables copies their orbital elements into the
+ * array. Unlike the ConstellationVariable, the given satellite variables are
+ * not stored, so modifying them afterwards does not modify this
+ * constellation. Only the orbital elements are stored, so the manifest flag
+ * of a BooleanSatelliteVariable is not kept.
+ *
+ * @author nhitomi
+ */
+public class PackedConstellationVariable extends ConstellationVariable {
+
+    private static final long serialVersionUID = -2178355296024907563L;
+
+    /**
+     * The number of elements stored for each satellite
+     */
+    public static final int ELEMENTS_PER_SATELLITE = 6;
+
+    /**
+     * Offset of the semi-major axis [m] within a satellite's elements
+     */
+    public static final int SMA = 0;
+
+    /**
+     * Offset of the eccentricity within a satellite's elements
+     */
+    public static final int ECC = 1;
+
+    /**
+     * Offset of the inclination [rad] within a satellite's elements
+     */
+    public static final int INC = 2;
+
+    /**
+     * Offset of the argument of perigee [rad] within a satellite's elements
+     */
+    public static final int AP = 3;
+
+    /**
+     * Offset of the right ascension of the ascending node [rad] within a
+     * satellite's elements
+     */
+    public static final int RAAN = 4;
+
+    /**
+     * Offset of the true anomaly [rad] within a satellite's elements
+     */
+    public static final int TA = 5;
+
+    /**
+     * The orbital elements of all satellites
+     */
+    private double[] elements;
+
+    /**
+     * The number of satellites in this constellation
+     */
+    private int nSats;
+
+    /**
+     * The views of each satellite. Views are only created when they are
+     * requested, so that copying a constellation only copies the array
+     */
+    private final ArrayList<SatelliteVariable> views;
+
+    /**
+     * Constructs a new constellation variable
+     *
+     * @param satelliteBound The bounds on the number of satellites allowed in
+     * this constellation
+     * @param smaBound The bounds on the semi major axis [m]
+     * @param eccBound The bounds on the eccentricity
+     * @param incBound The bounds on the inclination [rad]
+     * @param argPerBound The bounds on the argument of perigee [rad]
+     * @param raanBound The bounds on the right ascension of the ascending node
+     * [rad]
+     * @param anomBound The bounds on the true anomaly [rad]
+     */
+    public PackedConstellationVariable(
+            Bounds<Integer> satelliteBound,
+            Bounds<Double> smaBound, Bounds<Double> eccBound, Bounds<Double> incBound,
+            Bounds<Double> argPerBound, Bounds<Double> raanBound, Bounds<Double> anomBound) {
+        this(satelliteBound, new SatelliteBounds(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound));
+    }
+
+    /**
+     * Constructs a new constellation variable from a collection of satellite
+     * variables. The satellites must all have the same bounds on their
+     * orbital elements.
+     *
+     * @param satelliteBound The bounds on the number of satellites allowed in
+     * this constellation
+     * @param satellites the satellites whose orbital elements are copied into
+     * this constellation
+     */
+    public PackedConstellationVariable(Bounds<Integer> satelliteBound, Collection<SatelliteVariable> satellites) {
+        this(satelliteBound, satellites.iterator().next().getBounds());
+        setSatelliteVariables(satellites);
+    }
+
+    /**
+     * Constructs a new constellation variable without satellites
+     *
+     * @param satelliteBound The bounds on the number of satellites allowed in
+     * this constellation
+     * @param satelliteBounds the bounds on the orbital elements
+     */
+    private PackedConstellationVariable(Bounds<Integer> satelliteBound, SatelliteBounds satelliteBounds) {
+        super(satelliteBound, satelliteBounds);
+        this.elements = new double[0];
+        this.nSats = 0;
+        this.views = new ArrayList<>();
+    }
+
+    /**
+     * Copies the fields of the given constellation variable and creates a new
+     * instance of a constellation.
+     *
+     * @param var the constellation variable to copy
+     */
+    protected PackedConstellationVariable(PackedConstellationVariable var) {
+        this(var.getSatelliteBound(), var.getSatelliteBounds());
+        this.elements = Arrays.copyOf(var.elements, var.nSats * ELEMENTS_PER_SATELLITE);
+        resize(var.nSats);
+        copyDeploymentStrategy(var);
+    }
+
+    /**
+     * Sets the number of satellites and removes the views of satellites that
+     * no longer exist. The array of elements must already have the required
+     * length.
+     *
+     * @param n the number of satellites
+     */
+    private void resize(int n) {
+        while (views.size() > n) {
+            views.remove(views.size() - 1);
+        }
+        this.nSats = n;
+    }
+
+    /**
+     * Gets the views of all satellites, creating the ones that do not exist
+     * yet
+     *
+     * @return the views of all satellites
+     */
+    private List<SatelliteVariable> views() {
+        while (views.size() < nSats) {
+            views.add(new ElementView(this, views.size()));
+        }
+        return views;
+    }
+
+    @Override
+    public Variable copy() {
+        return new PackedConstellationVariable(this);
+    }
+
+    @Override
+    public void randomize() {
+        int n = PRNG.nextInt(getSatelliteBound().getLowerBound(), getSatelliteBound().getUpperBound());
+        this.elements = new double[n * ELEMENTS_PER_SATELLITE];
+        Arrays.fill(elements, Double.NaN);
+        resize(n);
+        for (SatelliteVariable view : views()) {
+            view.randomize();
+        }
+    }
+
+    @Override
+    public int getNumberOfSatellites() {
+        return nSats;
+    }
+
+    /**
+     * Gets views of the satellites stored within this constellation. The views
+     * read and write the orbital elements stored in this constellation.
+     *
+     * @return views of the satellites stored within this constellation
+     */
+    @Override
+    public Collection<SatelliteVariable> getSatelliteVariables() {
+        return Collections.unmodifiableList(views());
+    }
+
+    /**
+     * Copies the orbital elements of the given satellite variables into this
+     * constellation. All satellite variables must have the same bounds as
+     * this constellation. The given satellites may be views of this
+     * constellation in any order.
+     *
+     * @param satellites the satellite variables whose elements are copied
+     */
+    @Override
+    public void setSatelliteVariables(Collection<SatelliteVariable> satellites) {
+        double[] newElements = new double[satellites.size() * ELEMENTS_PER_SATELLITE];
+        int offset = 0;
+        for (SatelliteVariable var : satellites) {
+            if (!getSatelliteBounds().sameAs(var.getBounds())) {
+                throw new IllegalArgumentException(
+                        "Given satellites and this constellation have different"
+                        + " bounds on the allowable orbital parameters."
+                        + " Expected the same bounds.");
+            }
+            newElements[offset + SMA] = var.getSma();
+            newElements[offset + ECC] = var.getEcc();
+            newElements[offset + INC] = var.getInc();
+            newElements[offset + AP] = var.getArgPer();
+            newElements[offset + RAAN] = var.getRaan();
+            newElements[offset + TA] = var.getTrueAnomaly();
+            offset += ELEMENTS_PER_SATELLITE;
+        }
+        this.elements = newElements;
+        resize(satellites.size());
+    }
+
+    /**
+     * Gets the array storing the orbital elements of all satellites. The array
+     * is not copied, so changes to the array modify this constellation. Values
+     * written to the array are not checked against the bounds, so callers must
+     * keep them within bounds. The array is replaced when the number of
+     * satellites changes.
+     *
+     * @return the array storing the orbital elements of all satellites
+     */
+    public double[] getElements() {
+        return elements;
+    }
+
+    /**
+     * Gets a view of one satellite in this constellation
+     *
+     * @param i the index of the satellite
+     * @return a view of the satellite
+     */
+    public SatelliteVariable getSatelliteVariable(int i) {
+        return views().get(i);
+    }
+
+    /**
+     * A satellite variable that reads and writes the orbital elements of one
+     * satellite in a packed constellation. The setters check the bounds in the
+     * same way as the satellite variable. Copies of a view are ordinary
+     * satellite variables that are detached from the constellation.
+     */
+    private static final class ElementView extends SatelliteVariable {
+
+        private static final long serialVersionUID = 5102846675932713044L;
+
+        /**
+         * The constellation that stores the elements
+         */
+        private final PackedConstellationVariable owner;
+
+        /**
+         * The offset of this satellite's elements in the array
+         */
+        private final int offset;
+
+        ElementView(PackedConstellationVariable owner, int index) {
+            super(owner.getSatelliteBounds());
+            this.owner = owner;
+            this.offset = index * ELEMENTS_PER_SATELLITE;
+        }
+
+        @Override
+        public double getSma() {
+            return owner.elements[offset + SMA];
+        }
+
+        @Override
+        public void setSma(double sma) {
+            super.setSma(sma);
+            owner.elements[offset + SMA] = sma;
+        }
+
+        @Override
+        public double getEcc() {
+            return owner.elements[offset + ECC];
+        }
+
+        @Override
+        public void setEcc(double ecc) {
+            super.setEcc(ecc);
+            owner.elements[offset + ECC] = ecc;
+        }
+
+        @Override
+        public double getInc() {
+            return owner.elements[offset + INC];
+        }
+
+        @Override
+        public void setInc(double inc) {
+            super.setInc(inc);
+            owner.elements[offset + INC] = inc;
+        }
+
+        @Override
+        public double getArgPer() {
+            return owner.elements[offset + AP];
+        }
+
+        @Override
+        public void setArgPer(double argPer) {
+            super.setArgPer(argPer);
+            owner.elements[offset + AP] = argPer;
+        }
+
+        @Override
+        public double getRaan() {
+            return owner.elements[offset + RAAN];
+        }
+
+        @Override
+        public void setRaan(double raan) {
+            super.setRaan(raan);
+            owner.elements[offset + RAAN] = raan;
+        }
+
+        @Override
+        public double getTrueAnomaly() {
+            return owner.elements[offset + TA];
+        }
+
+        @Override
+        public void setTrueAnomaly(double anom) {
+            super.setTrueAnomaly(anom);
+            owner.elements[offset + TA] = anom;
+        }
+
+        @Override
+        public Variable copy() {
+            return new SatelliteVariable(this);
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.conmop.variable;
+
+import java.io.Serializable;
+import seakers.conmop.util.Bounds;
+
+/**
+ * The bounds on the orbital elements of a satellite variable. Instances are
+ * immutable and are meant to be shared by every satellite of a problem, so
+ * that satellites with the same bounds can be recognized by comparing the
+ * references of their bounds. The lower and upper bounds are also stored as
+ * primitives so that the bounds can be checked without unboxing.
+ *
+ * @author nhitomi
+ */
+public final class SatelliteBounds implements Serializable {
+
+    private static final long serialVersionUID = 2318705930414958217L;
+
+    /**
+     * The bounds on the semi major axis [m]
+     */
+    private final Bounds<Double> smaBound;
+
+    /**
+     * The bounds on the eccentricity
+     */
+    private final Bounds<Double> eccBound;
+
+    /**
+     * The bounds on the inclination [rad]
+     */
+    private final Bounds<Double> incBound;
+
+    /**
+     * The bounds on the argument of perigee [rad]
+     */
+    private final Bounds<Double> argPerBound;
+
+    /**
+     * The bounds on the right ascension of the ascending node [rad]
+     */
+    private final Bounds<Double> raanBound;
+
+    /**
+     * The bounds on the true anomaly [rad]
+     */
+    private final Bounds<Double> anomBound;
+
+    final double smaLower;
+
+    final double smaUpper;
+
+    final double eccLower;
+
+    final double eccUpper;
+
+    final double incLower;
+
+    final double incUpper;
+
+    final double argPerLower;
+
+    final double argPerUpper;
+
+    final double raanLower;
+
+    final double raanUpper;
+
+    final double anomLower;
+
+    final double anomUpper;
+
+    /**
+     * Creates new bounds on the orbital elements
+     *
+     * @param smaBound The bounds on the semi major axis [m]
+     * @param eccBound The bounds on the eccentricity
+     * @param incBound The bounds on the inclination [rad]
+     * @param argPerBound The bounds on the argument of perigee [rad]
+     * @param raanBound The bounds on the right ascension of the ascending node
+     * [rad]
+     * @param anomBound The bounds on the true anomaly [rad]
+     */
+    public SatelliteBounds(Bounds<Double> smaBound, Bounds<Double> eccBound,
+            Bounds<Double> incBound, Bounds<Double> argPerBound,
+            Bounds<Double> raanBound, Bounds<Double> anomBound) {
+        this.smaBound = smaBound;
+        this.eccBound = eccBound;
+        this.incBound = incBound;
+        this.argPerBound = argPerBound;
+        this.raanBound = raanBound;
+        this.anomBound = anomBound;
+        this.smaLower = smaBound.getLowerBound();
+        this.smaUpper = smaBound.getUpperBound();
+        this.eccLower = eccBound.getLowerBound();
+        this.eccUpper = eccBound.getUpperBound();
+        this.incLower = incBound.getLowerBound();
+        this.incUpper = incBound.getUpperBound();
+        this.argPerLower = argPerBound.getLowerBound();
+        this.argPerUpper = argPerBound.getUpperBound();
+        this.raanLower = raanBound.getLowerBound();
+        this.raanUpper = raanBound.getUpperBound();
+        this.anomLower = anomBound.getLowerBound();
+        this.anomUpper = anomBound.getUpperBound();
+    }
+
+    /**
+     * Checks if a value is within the given bounds. Values are compared with
+     * the same ordering as Bounds.inBounds, so NaN is out of bounds.
+     *
+     * @param value the value
+     * @param lower the lower bound
+     * @param upper the upper bound
+     * @return true if the value is within the bounds
+     */
+    static boolean inBounds(double value, double lower, double upper) {
+        return Double.compare(value, lower) >= 0 && Double.compare(value, upper) <= 0;
+    }
+
+    /**
+     * Gets the bounds for an allowable semi-major axis [m]
+     *
+     * @return the bounds for an allowable semi-major axis [m]
+     */
+    public Bounds<Double> getSmaBound() {
+        return smaBound;
+    }
+
+    /**
+     * Gets the bounds for an allowable eccentricity
+     *
+     * @return the bounds for an allowable eccentricity
+     */
+    public Bounds<Double> getEccBound() {
+        return eccBound;
+    }
+
+    /**
+     * Gets the bounds for an allowable inclination [rad]
+     *
+     * @return the bounds for an allowable inclination [rad]
+     */
+    public Bounds<Double> getIncBound() {
+        return incBound;
+    }
+
+    /**
+     * Gets the bounds for an allowable argument of perigee [rad]
+     *
+     * @return the bounds for an allowable argument of perigee [rad]
+     */
+    public Bounds<Double> getArgPerBound() {
+        return argPerBound;
+    }
+
+    /**
+     * Gets the bounds for an allowable right ascension of the ascending node
+     * [rad]
+     *
+     * @return the bounds for an allowable right ascension of the ascending node
+     * [rad]
+     */
+    public Bounds<Double> getRaanBound() {
+        return raanBound;
+    }
+
+    /**
+     * Gets the bounds for an allowable true anomaly [rad]
+     *
+     * @return the bounds for an allowable true anomaly [rad]
+     */
+    public Bounds<Double> getAnomBound() {
+        return anomBound;
+    }
+
+    /**
+     * Checks if these bounds allow the same values as the given bounds. This
+     * is slower than comparing references and is only needed for bounds that
+     * were created separately.
+     *
+     * @param other the other bounds
+     * @return true if all the bounds on the orbital elements are equal
+     */
+    public boolean sameAs(SatelliteBounds other) {
+        return this == other
+                || (smaBound.equals(other.smaBound)
+                && eccBound.equals(other.eccBound)
+                && incBound.equals(other.incBound)
+                && argPerBound.equals(other.argPerBound)
+                && raanBound.equals(other.raanBound)
+                && anomBound.equals(other.anomBound));
+    }
+
+}
@@ -5,7 +5,10 @@
  */
 package seakers.conmop.variable;
 
-import java.util.Objects;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Variable;
 import org.orekit.frames.Frame;
@@ -25,46 +28,42 @@ public class SatelliteVariable implements Variable {
     private static final long serialVersionUID = -7659983869462960260L;
 
     /**
-     * The bounds on the semi major axis
+     * The serialized form of a satellite variable. Satellites are written with
+     * six bounds and boxed orbital elements, as they were before the bounds
+     * were shared, so that populations written by earlier versions can still
+     * be read
      */
-    private final Bounds<Double> smaBound;
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("smaBound", Bounds.class),
+        new ObjectStreamField("eccBound", Bounds.class),
+        new ObjectStreamField("incBound", Bounds.class),
+        new ObjectStreamField("argPerBound", Bounds.class),
+        new ObjectStreamField("raanBound", Bounds.class),
+        new ObjectStreamField("anomBound", Bounds.class),
+        new ObjectStreamField("sma", Double.class),
+        new ObjectStreamField("ecc", Double.class),
+        new ObjectStreamField("inc", Double.class),
+        new ObjectStreamField("argPer", Double.class),
+        new ObjectStreamField("raan", Double.class),
+        new ObjectStreamField("anom", Double.class)};
 
     /**
-     * The bounds on the eccentricity
+     * The bounds on the orbital elements. Shared with the other satellites of
+     * the same problem
      */
-    private final Bounds<Double> eccBound;
+    private SatelliteBounds bounds;
 
-    /**
-     * The bounds on the inclination
-     */
-    private final Bounds<Double> incBound;
-
-    /**
-     * The bounds on the argument of perigee
-     */
-    private final Bounds<Double> argPerBound;
-
-    /**
-     * The bounds on the right ascension of the ascending node
-     */
-    private final Bounds<Double> raanBound;
+    private double sma;
 
-    /**
-     * The bounds on the true anomaly
-     */
-    private final Bounds<Double> anomBound;
-
-    private Double sma;
-
-    private Double ecc;
+    private double ecc;
 
-    private Double inc;
+    private double inc;
 
-    private Double argPer;
+    private double argPer;
 
-    private Double raan;
+    private double raan;
 
-    private Double anom;
+    private double anom;
 
     /**
      * Creates a new variable for a satellite. Assumes all valid values are
@@ -98,12 +97,17 @@ public class SatelliteVariable implements Variable {
             Bounds<Double> smaBound, Bounds<Double> eccBound,
             Bounds<Double> incBound, Bounds<Double> argPerBound,
             Bounds<Double> raanBound, Bounds<Double> anomBound) {
-        this.smaBound = smaBound;
-        this.eccBound = eccBound;
-        this.incBound = incBound;
-        this.argPerBound = argPerBound;
-        this.raanBound = raanBound;
-        this.anomBound = anomBound;
+        this(new SatelliteBounds(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound));
+    }
+
+    /**
+     * Creates a new variable for a satellite with the given bounds. Use this
+     * constructor to share one instance of the bounds between satellites.
+     *
+     * @param bounds The bounds on the orbital elements
+     */
+    public SatelliteVariable(SatelliteBounds bounds) {
+        this.bounds = bounds;
         this.sma = Double.NaN;
         this.ecc = Double.NaN;
         this.inc = Double.NaN;
@@ -119,12 +123,7 @@ public class SatelliteVariable implements Variable {
      * @param var the satellite variable to copy
      */
     protected SatelliteVariable(SatelliteVariable var) {
-        this.smaBound = var.smaBound;
-        this.eccBound = var.eccBound;
-        this.incBound = var.incBound;
-        this.argPerBound = var.argPerBound;
-        this.raanBound = var.raanBound;
-        this.anomBound = var.anomBound;
+        this.bounds = var.bounds;
         this.sma = var.getSma();
         this.ecc = var.getEcc();
         this.inc = var.getInc();
@@ -138,7 +137,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the semimajor axis [m]
      */
-    public Double getSma() {
+    public double getSma() {
         return sma;
     }
 
@@ -147,13 +146,13 @@ public class SatelliteVariable implements Variable {
      *
      * @param sma the semimajor axis [m]
      */
-    public void setSma(Double sma) {
-        if (smaBound.inBounds(sma)) {
+    public void setSma(double sma) {
+        if (SatelliteBounds.inBounds(sma, bounds.smaLower, bounds.smaUpper)) {
             this.sma = sma;
         } else {
             throw new IllegalArgumentException(String.format(
                     "Given semi-major axis (%f)m is out of bounds ([%f,%f])m",
-                    sma, smaBound.getLowerBound(), smaBound.getUpperBound()));
+                    sma, bounds.smaLower, bounds.smaUpper));
         }
     }
 
@@ -162,7 +161,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the eccentricity
      */
-    public Double getEcc() {
+    public double getEcc() {
         return ecc;
     }
 
@@ -171,13 +170,13 @@ public class SatelliteVariable implements Variable {
      *
      * @param ecc the eccentricity
      */
-    public void setEcc(Double ecc) {
-        if (eccBound.inBounds(ecc)) {
+    public void setEcc(double ecc) {
+        if (SatelliteBounds.inBounds(ecc, bounds.eccLower, bounds.eccUpper)) {
             this.ecc = ecc;
         } else {
             throw new IllegalArgumentException(String.format(
                     "Given eccentricity (%f) is out of bounds ([%f,%f])",
-                    ecc, eccBound.getLowerBound(), eccBound.getUpperBound()));
+                    ecc, bounds.eccLower, bounds.eccUpper));
         }
     }
 
@@ -186,7 +185,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the inclination [rad]
      */
-    public Double getInc() {
+    public double getInc() {
         return inc;
     }
 
@@ -195,13 +194,13 @@ public class SatelliteVariable implements Variable {
      *
      * @param inc the inclination [rad]
      */
-    public void setInc(Double inc) {
-        if (incBound.inBounds(inc)) {
+    public void setInc(double inc) {
+        if (SatelliteBounds.inBounds(inc, bounds.incLower, bounds.incUpper)) {
             this.inc = inc;
         } else {
             throw new IllegalArgumentException(String.format(
                     "Given inclination (%f)rad is out of bounds ([%f,%f])rad",
-                    inc, incBound.getLowerBound(), incBound.getUpperBound()));
+                    inc, bounds.incLower, bounds.incUpper));
         }
     }
 
@@ -210,7 +209,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the argument of perigee [rad]
      */
-    public Double getArgPer() {
+    public double getArgPer() {
         return argPer;
     }
 
@@ -219,13 +218,13 @@ public class SatelliteVariable implements Variable {
      *
      * @param argPer the argument of perigee [rad]
      */
-    public void setArgPer(Double argPer) {
-        if (argPerBound.inBounds(argPer)) {
+    public void setArgPer(double argPer) {
+        if (SatelliteBounds.inBounds(argPer, bounds.argPerLower, bounds.argPerUpper)) {
             this.argPer = argPer;
         } else {
             throw new IllegalArgumentException(String.format(
                     "Given argument of perigee (%f)rad is out of bounds ([%f,%f])rad",
-                    argPer, argPerBound.getLowerBound(), argPerBound.getUpperBound()));
+                    argPer, bounds.argPerLower, bounds.argPerUpper));
         }
     }
 
@@ -234,7 +233,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the right ascension of the ascending node [rad]
      */
-    public Double getRaan() {
+    public double getRaan() {
         return raan;
     }
 
@@ -243,13 +242,13 @@ public class SatelliteVariable implements Variable {
      *
      * @param raan the right ascension of the ascending node [rad]
      */
-    public void setRaan(Double raan) {
-        if (raanBound.inBounds(raan)) {
+    public void setRaan(double raan) {
+        if (SatelliteBounds.inBounds(raan, bounds.raanLower, bounds.raanUpper)) {
             this.raan = raan;
         } else {
             throw new IllegalArgumentException(String.format(
                     "Given right ascension of the ascending node (%f)rad is out of bounds ([%f,%f])rad",
-                    raan, raanBound.getLowerBound(), raanBound.getUpperBound()));
+                    raan, bounds.raanLower, bounds.raanUpper));
         }
     }
 
@@ -258,7 +257,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the true anomaly [rad]
      */
-    public Double getTrueAnomaly() {
+    public double getTrueAnomaly() {
         return anom;
     }
 
@@ -267,13 +266,13 @@ public class SatelliteVariable implements Variable {
      *
      * @param anom the true anomaly [rad]
      */
-    public void setTrueAnomaly(Double anom) {
-        if (anomBound.inBounds(anom)) {
+    public void setTrueAnomaly(double anom) {
+        if (SatelliteBounds.inBounds(anom, bounds.anomLower, bounds.anomUpper)) {
             this.anom = anom;
         } else {
             throw new IllegalArgumentException(String.format(
                     "Given true anomaly (%f)rad is out of bounds ([%f,%f])rad",
-                    anom, anomBound.getLowerBound(), anomBound.getUpperBound()));
+                    anom, bounds.anomLower, bounds.anomUpper));
         }
     }
 
@@ -284,12 +283,34 @@ public class SatelliteVariable implements Variable {
 
     @Override
     public void randomize() {
-        this.setTrueAnomaly(PRNG.nextDouble(anomBound.getLowerBound(), anomBound.getUpperBound()));
-        this.setArgPer(PRNG.nextDouble(argPerBound.getLowerBound(), argPerBound.getUpperBound()));
-        this.setEcc(PRNG.nextDouble(eccBound.getLowerBound(), eccBound.getUpperBound()));
-        this.setInc(PRNG.nextDouble(incBound.getLowerBound(), incBound.getUpperBound()));
-        this.setRaan(PRNG.nextDouble(raanBound.getLowerBound(), raanBound.getUpperBound()));
-        this.setSma(PRNG.nextDouble(smaBound.getLowerBound(), smaBound.getUpperBound()));
+        this.setTrueAnomaly(PRNG.nextDouble(bounds.anomLower, bounds.anomUpper));
+        this.setArgPer(PRNG.nextDouble(bounds.argPerLower, bounds.argPerUpper));
+        this.setEcc(PRNG.nextDouble(bounds.eccLower, bounds.eccUpper));
+        this.setInc(PRNG.nextDouble(bounds.incLower, bounds.incUpper));
+        this.setRaan(PRNG.nextDouble(bounds.raanLower, bounds.raanUpper));
+        this.setSma(PRNG.nextDouble(bounds.smaLower, bounds.smaUpper));
+    }
+
+    /**
+     * Gets the bounds on the orbital elements
+     *
+     * @return the bounds on the orbital elements
+     */
+    public SatelliteBounds getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Replaces the bounds of this satellite with the given instance if they
+     * are the same, so that satellites read from a stream share the bounds of
+     * their constellation again
+     *
+     * @param bounds the bounds to share
+     */
+    void shareBounds(SatelliteBounds bounds) {
+        if (this.bounds.sameAs(bounds)) {
+            this.bounds = bounds;
+        }
     }
 
     /**
@@ -298,7 +319,7 @@ public class SatelliteVariable implements Variable {
      * @return the bounds for an allowable semi-major axis [m]
      */
     public Bounds<Double> getSmaBound() {
-        return smaBound;
+        return bounds.getSmaBound();
     }
 
     /**
@@ -307,7 +328,7 @@ public class SatelliteVariable implements Variable {
      * @return the bounds for an allowable eccentricity
      */
     public Bounds<Double> getEccBound() {
-        return eccBound;
+        return bounds.getEccBound();
     }
 
     /**
@@ -316,7 +337,7 @@ public class SatelliteVariable implements Variable {
      * @return the bounds for an allowable inclination [rad]
      */
     public Bounds<Double> getIncBound() {
-        return incBound;
+        return bounds.getIncBound();
     }
 
     /**
@@ -325,7 +346,7 @@ public class SatelliteVariable implements Variable {
      * @return the bounds for an allowable argument of perigee [rad]
      */
     public Bounds<Double> getArgPerBound() {
-        return argPerBound;
+        return bounds.getArgPerBound();
     }
 
     /**
@@ -336,7 +357,7 @@ public class SatelliteVariable implements Variable {
      * [rad]
      */
     public Bounds<Double> getRaanBound() {
-        return raanBound;
+        return bounds.getRaanBound();
     }
 
     /**
@@ -345,7 +366,7 @@ public class SatelliteVariable implements Variable {
      * @return the bounds for an allowable true anomaly [rad]
      */
     public Bounds<Double> getAnomBound() {
-        return anomBound;
+        return bounds.getAnomBound();
     }
 
     /**
@@ -365,15 +386,50 @@ public class SatelliteVariable implements Variable {
                 PositionAngle.TRUE, inertialFrame, date, mu);
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("smaBound", bounds.getSmaBound());
+        fields.put("eccBound", bounds.getEccBound());
+        fields.put("incBound", bounds.getIncBound());
+        fields.put("argPerBound", bounds.getArgPerBound());
+        fields.put("raanBound", bounds.getRaanBound());
+        fields.put("anomBound", bounds.getAnomBound());
+        fields.put("sma", Double.valueOf(getSma()));
+        fields.put("ecc", Double.valueOf(getEcc()));
+        fields.put("inc", Double.valueOf(getInc()));
+        fields.put("argPer", Double.valueOf(getArgPer()));
+        fields.put("raan", Double.valueOf(getRaan()));
+        fields.put("anom", Double.valueOf(getTrueAnomaly()));
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.bounds = new SatelliteBounds(
+                (Bounds<Double>) fields.get("smaBound", null),
+                (Bounds<Double>) fields.get("eccBound", null),
+                (Bounds<Double>) fields.get("incBound", null),
+                (Bounds<Double>) fields.get("argPerBound", null),
+                (Bounds<Double>) fields.get("raanBound", null),
+                (Bounds<Double>) fields.get("anomBound", null));
+        this.sma = (Double) fields.get("sma", null);
+        this.ecc = (Double) fields.get("ecc", null);
+        this.inc = (Double) fields.get("inc", null);
+        this.argPer = (Double) fields.get("argPer", null);
+        this.raan = (Double) fields.get("raan", null);
+        this.anom = (Double) fields.get("anom", null);
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
-        hash = 89 * hash + Objects.hashCode(this.sma);
-        hash = 89 * hash + Objects.hashCode(this.ecc);
-        hash = 89 * hash + Objects.hashCode(this.inc);
-        hash = 89 * hash + Objects.hashCode(this.argPer);
-        hash = 89 * hash + Objects.hashCode(this.raan);
-        hash = 89 * hash + Objects.hashCode(this.anom);
+        hash = 89 * hash + Double.hashCode(this.getSma());
+        hash = 89 * hash + Double.hashCode(this.getEcc());
+        hash = 89 * hash + Double.hashCode(this.getInc());
+        hash = 89 * hash + Double.hashCode(this.getArgPer());
+        hash = 89 * hash + Double.hashCode(this.getRaan());
+        hash = 89 * hash + Double.hashCode(this.getTrueAnomaly());
         return hash;
     }
 
@@ -389,22 +445,22 @@ public class SatelliteVariable implements Variable {
             return false;
         }
         final SatelliteVariable other = (SatelliteVariable) obj;
-        if (!Objects.equals(this.sma, other.sma)) {
+        if (Double.compare(this.getSma(), other.getSma()) != 0) {
             return false;
         }
-        if (!Objects.equals(this.ecc, other.ecc)) {
+        if (Double.compare(this.getEcc(), other.getEcc()) != 0) {
             return false;
         }
-        if (!Objects.equals(this.inc, other.inc)) {
+        if (Double.compare(this.getInc(), other.getInc()) != 0) {
             return false;
         }
-        if (!Objects.equals(this.argPer, other.argPer)) {
+        if (Double.compare(this.getArgPer(), other.getArgPer()) != 0) {
             return false;
         }
-        if (!Objects.equals(this.raan, other.raan)) {
+        if (Double.compare(this.getRaan(), other.getRaan()) != 0) {
             return false;
         }
-        if (!Objects.equals(this.anom, other.anom)) {
+        if (Double.compare(this.getTrueAnomaly(), other.getTrueAnomaly()) != 0) {
             return false;
         }
         return true;
@@ -96,6 +96,11 @@ public class WalkerVariable extends ConstellationVariable {
         this.tBound = var.tBound;
         this.pBound = var.pBound;
         this.fBound = var.fBound;
+        this.t = var.t;
+        this.p = var.p;
+        this.f = var.f;
+        this.sma = var.sma;
+        this.inc = var.inc;
     }
 
     /**
@@ -110,7 +115,7 @@ public class WalkerVariable extends ConstellationVariable {
             throw new IllegalArgumentException(
                     String.format("Expected t >= p."
                             + "Found %d/%d/%d", t, p, f));
-        } else if (!Factor.divisors(t).contains(p)) {
+        } else if (p == 0 || !Factor.isDivisor(t, p)) {
             throw new IllegalArgumentException(
                     String.format("Expected t to be divisible by p."
                             + "Found %d/%d/%d", t, p, f));
@@ -156,6 +161,11 @@ public class WalkerVariable extends ConstellationVariable {
      */
     public final void setWalker(double sma, double inc, int t, int p, int f, double refRaan, double refAnom) {
         checkFeasible(t, p, f);
+        this.t = t;
+        this.p = p;
+        this.f = f;
+        this.sma = sma;
+        this.inc = inc;
 
         //Uses Walker delta pattern
         final int s = t / p; //number of satellites per plane
@@ -195,6 +205,14 @@ public class WalkerVariable extends ConstellationVariable {
         return f;
     }
 
+    public double getSma() {
+        return sma;
+    }
+
+    public double getInc() {
+        return inc;
+    }
+
     @Override
     public Variable copy() {
         return new WalkerVariable(this);
@@ -204,10 +222,10 @@ public class WalkerVariable extends ConstellationVariable {
     public void randomize() {
         this.t = PRNG.nextInt(tBound.getLowerBound(), tBound.getUpperBound());
         List<Integer> possibleP = new ArrayList<>();
-        for (int i = 0; i < Factor.divisors(this.t).size(); i++) {
-            if ((Factor.divisors(this.t).get(i) >= pBound.getLowerBound())
-                    && (Factor.divisors(this.t).get(i) <= pBound.getUpperBound())) {
-                possibleP.add(Factor.divisors(this.t).get(i));
+        for (int divisor : Factor.divisors(this.t)) {
+            if ((divisor >= pBound.getLowerBound())
+                    && (divisor <= pBound.getUpperBound())) {
+                possibleP.add(divisor);
             }
         }
         this.p = possibleP.get(PRNG.nextInt(possibleP.size()));